@@ -0,0 +1,103 @@
+// k6 load test for GET /events and POST /tickets/purchase.
+// Run it once against a server started with VIRTUAL_THREADS_ENABLED=false and once with
+// VIRTUAL_THREADS_ENABLED=true, then compare the summaries (see README.md).
+import http from 'k6/http';
+import {check, fail} from 'k6';
+import {Counter, Trend} from 'k6/metrics';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api';
+const USERNAME = __ENV.USERNAME || 'user1';
+const PASSWORD = __ENV.PASSWORD || '123456';
+const EVENTS_RATE = parseInt(__ENV.EVENTS_RATE || '500');
+const PURCHASE_RATE = parseInt(__ENV.PURCHASE_RATE || '100');
+const DURATION = __ENV.DURATION || '2m';
+
+const eventsLatency = new Trend('events_latency', true);
+const purchaseLatency = new Trend('purchase_latency', true);
+const soldOut = new Counter('purchase_sold_out');
+
+export const options = {
+    scenarios: {
+        browse_events: {
+            executor: 'constant-arrival-rate',
+            exec: 'browseEvents',
+            rate: EVENTS_RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+        purchase_tickets: {
+            executor: 'constant-arrival-rate',
+            exec: 'purchaseTickets',
+            rate: PURCHASE_RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 100,
+            maxVUs: 1000,
+        },
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_failed{scenario:browse_events}': ['rate<0.01'],
+        events_latency: ['p(95)<500'],
+        purchase_latency: ['p(95)<1000'],
+    },
+};
+
+export function setup() {
+    const login = http.post(`${BASE_URL}/auth/token`, JSON.stringify({username: USERNAME, password: PASSWORD}),
+        {headers: {'Content-Type': 'application/json'}});
+    if (login.status !== 200) {
+        fail(`Login failed: ${login.status} ${login.body}`);
+    }
+    const token = login.json('result.token');
+
+    let eventId = __ENV.EVENT_ID;
+    let ticketTypeId = __ENV.TICKET_TYPE_ID;
+    if (!eventId || !ticketTypeId) {
+        // Pick the first upcoming event with a ticket type that needs no seat selection
+        const events = http.get(`${BASE_URL}/events?size=50`).json('result.content') || [];
+        for (const event of events) {
+            const detail = http.get(`${BASE_URL}/events/${event.id}`).json('result');
+            const ticketType = (detail.ticketTypes || [])
+                .find(tt => !tt.requiresSeatSelection && tt.available > 0);
+            if (ticketType) {
+                eventId = event.id;
+                ticketTypeId = ticketType.id;
+                break;
+            }
+        }
+    }
+    if (!eventId || !ticketTypeId) {
+        fail('No event with an unseated ticket type available, set EVENT_ID and TICKET_TYPE_ID');
+    }
+    return {token, eventId, ticketTypeId};
+}
+
+export function browseEvents() {
+    const res = http.get(`${BASE_URL}/events?page=0&size=20`, {tags: {name: 'GET /events'}});
+    eventsLatency.add(res.timings.duration);
+    check(res, {'events 200': r => r.status === 200});
+}
+
+export function purchaseTickets(data) {
+    const body = JSON.stringify({
+        eventId: data.eventId,
+        ticketTypeId: data.ticketTypeId,
+        quantity: 1,
+        paymentMethod: 'E_WALLET',
+    });
+    const res = http.post(`${BASE_URL}/tickets/purchase`, body, {
+        headers: {'Content-Type': 'application/json', Authorization: `Bearer ${data.token}`},
+        tags: {name: 'POST /tickets/purchase'},
+    });
+    purchaseLatency.add(res.timings.duration);
+
+    // Selling out is an expected outcome, not an error of the server
+    if (res.status === 400 && res.json('code') === 3002) {
+        soldOut.add(1);
+        return;
+    }
+    check(res, {'purchase 200': r => r.status === 200});
+}
@@ -1,50 +1,106 @@
 package com.uit.vesbookingapi.configuration;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.nimbusds.jose.JOSEException;
-import com.uit.vesbookingapi.dto.request.IntrospectRequest;
-import com.uit.vesbookingapi.service.AuthenticationService;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.crypto.MACVerifier;
+import com.nimbusds.jwt.SignedJWT;
+import com.uit.vesbookingapi.service.TokenRevocationService;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtException;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.MappedJwtClaimSetConverter;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.spec.SecretKeySpec;
 import java.text.ParseException;
-import java.util.Objects;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Single-pass HS512 decoder: the token is parsed and its signature verified once, then the
+ * resulting {@link Jwt} is cached until the token expires. Every request still checks
+ * expiry and the in-memory revocation set, so authentication does no database I/O.
+ */
 @Component
 public class CustomJwtDecoder implements JwtDecoder {
-    @Value("${jwt.signerKey}")
-    private String signerKey;
+    private final TokenRevocationService tokenRevocationService;
+    private final MACVerifier verifier;
+    private final Cache<String, Jwt> verifiedTokens;
+    private final MappedJwtClaimSetConverter claimSetConverter =
+            MappedJwtClaimSetConverter.withDefaults(Collections.emptyMap());
 
-    @Autowired
-    private AuthenticationService authenticationService;
+    public CustomJwtDecoder(
+            TokenRevocationService tokenRevocationService,
+            @Value("${jwt.signerKey}") String signerKey,
+            @Value("${booking.auth.token-cache-size:10000}") long tokenCacheSize) throws JOSEException {
+        this.tokenRevocationService = tokenRevocationService;
+        this.verifier = new MACVerifier(signerKey.getBytes());
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheSize)
+                .expireAfter(new Expiry<String, Jwt>() {
+                    @Override
+                    public long expireAfterCreate(String token, Jwt jwt, long currentTime) {
+                        long millis = jwt.getExpiresAt().toEpochMilli() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+                    }
 
-    private NimbusJwtDecoder nimbusJwtDecoder = null;
+                    @Override
+                    public long expireAfterUpdate(String token, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Jwt jwt, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     @Override
     public Jwt decode(String token) throws JwtException {
+        Jwt jwt = verifiedTokens.getIfPresent(token);
+        if (jwt == null) {
+            jwt = verify(token);
+            verifiedTokens.put(token, jwt);
+        }
 
-        try {
-            var response = authenticationService.introspect(
-                    IntrospectRequest.builder().token(token).build());
+        // The cache may hand out an entry right at its expiry
+        if (!jwt.getExpiresAt().isAfter(Instant.now())) {
+            verifiedTokens.invalidate(token);
+            throw new JwtException("Token invalid");
+        }
 
-            if (!response.isValid()) throw new JwtException("Token invalid");
-        } catch (JOSEException | ParseException e) {
-            throw new JwtException(e.getMessage());
+        if (tokenRevocationService.isRevoked(jwt.getId())) {
+            throw new JwtException("Token invalid");
         }
 
-        if (Objects.isNull(nimbusJwtDecoder)) {
-            SecretKeySpec secretKeySpec = new SecretKeySpec(signerKey.getBytes(), "HS512");
-            nimbusJwtDecoder = NimbusJwtDecoder.withSecretKey(secretKeySpec)
-                    .macAlgorithm(MacAlgorithm.HS512)
+        return jwt;
+    }
+
+    private Jwt verify(String token) {
+        try {
+            SignedJWT signedJWT = SignedJWT.parse(token);
+            if (!JWSAlgorithm.HS512.equals(signedJWT.getHeader().getAlgorithm()) || !signedJWT.verify(verifier)) {
+                throw new JwtException("Token invalid");
+            }
+
+            Map<String, Object> claims = claimSetConverter.convert(signedJWT.getJWTClaimsSet().getClaims());
+            if (claims == null || !(claims.get("exp") instanceof Instant)) {
+                throw new JwtException("Token invalid");
+            }
+
+            return Jwt.withTokenValue(token)
+                    .headers(headers -> headers.putAll(signedJWT.getHeader().toJSONObject()))
+                    .claims(jwtClaims -> jwtClaims.putAll(claims))
                     .build();
+        } catch (ParseException | JOSEException | IllegalArgumentException e) {
+            throw new JwtException(e.getMessage());
         }
-
-        return nimbusJwtDecoder.decode(token);
     }
 }
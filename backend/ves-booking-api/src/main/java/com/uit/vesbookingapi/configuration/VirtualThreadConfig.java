@@ -0,0 +1,42 @@
+package com.uit.vesbookingapi.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Virtual-thread mode, enabled with {@code spring.threads.virtual.enabled=true}
+ * (env {@code VIRTUAL_THREADS_ENABLED}). Spring Boot then runs Tomcat requests, {@code @Async}
+ * methods and scheduled jobs on virtual threads, and the background executors of services
+ * follow the same setting; this configuration only adds the connection limiter in front of the pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int maxConcurrency = environment.getProperty("booking.datasource.max-concurrency", Integer.class, poolSize);
+                long acquireTimeout = environment.getProperty("booking.datasource.acquire-timeout-ms", Long.class, 60000L);
+
+                log.info("Limiting data source {} to {} concurrent connections", beanName, maxConcurrency);
+                return new ConnectionLimitingDataSource(dataSource, maxConcurrency, acquireTimeout);
+            }
+        };
+    }
+}
@@ -2,8 +2,12 @@ package com.uit.vesbookingapi.controller;
 
 import com.uit.vesbookingapi.dto.request.ApiResponse;
 import com.uit.vesbookingapi.dto.response.AdminOrderResponse;
+import com.uit.vesbookingapi.dto.response.CursorPageResponse;
+import com.uit.vesbookingapi.enums.ExportFormat;
 import com.uit.vesbookingapi.enums.OrderStatus;
+import com.uit.vesbookingapi.service.AdminExportService;
 import com.uit.vesbookingapi.service.AdminOrderService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -11,15 +15,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 @RestController
 @RequestMapping("/admin/orders")
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AdminOrderController {
     AdminOrderService adminOrderService;
+    AdminExportService adminExportService;
 
     /**
      * Get all orders with optional filters (Admin only)
@@ -42,6 +52,55 @@ public class AdminOrderController {
                 .build();
     }
 
+    /**
+     * Scroll orders newest first with a cursor instead of a page number (Admin only)
+     * <p>
+     * Query Parameters:
+     * - userId, eventId, status: Same filters as the paged listing
+     * - cursor: nextCursor of the previous page, omit for the first page
+     * - size: Page size, 1 to 100
+     * - includeTotal: Also count matching orders, up to a cap
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<CursorPageResponse<AdminOrderResponse>> scrollOrders(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String eventId,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ApiResponse.<CursorPageResponse<AdminOrderResponse>>builder()
+                .result(adminOrderService.scrollOrders(userId, eventId, status, cursor, size, includeTotal))
+                .build();
+    }
+
+    /**
+     * Download every order of an event as one file, written while it is read (Admin only)
+     * <p>
+     * Query Parameters:
+     * - eventId: Event to export
+     * - format: CSV or NDJSON
+     * - gzip: Gzip the file (.gz)
+     * <p>
+     * At most booking.export.max-concurrent exports run at once per node; more get 429
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportOrders(
+            @RequestParam String eventId,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        String fileName = adminExportService.exportFileName(eventId, "orders", format, gzip);
+        adminExportService.exportOrders(eventId, format, gzip, () -> {
+            response.setContentType(gzip ? "application/gzip" : format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+            return response.getOutputStream();
+        });
+    }
+
     /**
      * Get order details by ID (Admin can view any order)
      * Returns rich admin response with user, event, ticket type, and tickets information
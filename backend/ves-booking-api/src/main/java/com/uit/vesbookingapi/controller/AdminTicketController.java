@@ -1,11 +1,21 @@
 package com.uit.vesbookingapi.controller;
 
 import com.uit.vesbookingapi.dto.request.ApiResponse;
+import com.uit.vesbookingapi.dto.request.BatchCheckInRequest;
 import com.uit.vesbookingapi.dto.request.CheckInRequest;
 import com.uit.vesbookingapi.dto.response.AdminTicketResponse;
+import com.uit.vesbookingapi.dto.response.BatchCheckInResponse;
+import com.uit.vesbookingapi.dto.response.CheckInIndexResponse;
+import com.uit.vesbookingapi.dto.response.CheckInStatsResponse;
 import com.uit.vesbookingapi.dto.response.CheckInResponse;
+import com.uit.vesbookingapi.dto.response.CursorPageResponse;
+import com.uit.vesbookingapi.enums.ExportFormat;
 import com.uit.vesbookingapi.enums.TicketStatus;
+import com.uit.vesbookingapi.service.AdminExportService;
 import com.uit.vesbookingapi.service.AdminTicketService;
+import com.uit.vesbookingapi.service.CheckInIndexService;
+import com.uit.vesbookingapi.service.CheckInStatsService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -14,15 +24,25 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
 @RestController
 @RequestMapping("/admin/tickets")
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AdminTicketController {
     AdminTicketService adminTicketService;
+    CheckInIndexService checkInIndexService;
+    CheckInStatsService checkInStatsService;
+    AdminExportService adminExportService;
 
     /**
      * Get all tickets with optional filters (Admin, Staff, Organizer only)
@@ -45,6 +65,55 @@ public class AdminTicketController {
                 .build();
     }
 
+    /**
+     * Scroll tickets newest first with a cursor instead of a page number (Admin, Staff, Organizer only)
+     * <p>
+     * Query Parameters:
+     * - userId, eventId, status: Same filters as the paged listing
+     * - cursor: nextCursor of the previous page, omit for the first page
+     * - size: Page size, 1 to 100
+     * - includeTotal: Also count matching tickets, up to a cap
+     */
+    @GetMapping("/scroll")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public ApiResponse<CursorPageResponse<AdminTicketResponse>> scrollTickets(
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String eventId,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        return ApiResponse.<CursorPageResponse<AdminTicketResponse>>builder()
+                .result(adminTicketService.scrollTickets(userId, eventId, status, cursor, size, includeTotal))
+                .build();
+    }
+
+    /**
+     * Download every ticket of an event as one file, written while it is read (Admin, Staff, Organizer only)
+     * <p>
+     * Query Parameters:
+     * - eventId: Event to export
+     * - format: CSV or NDJSON
+     * - gzip: Gzip the file (.gz)
+     * <p>
+     * At most booking.export.max-concurrent exports run at once per node; more get 429
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public void exportTickets(
+            @RequestParam String eventId,
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        String fileName = adminExportService.exportFileName(eventId, "tickets", format, gzip);
+        adminExportService.exportTickets(eventId, format, gzip, () -> {
+            response.setContentType(gzip ? "application/gzip" : format.getContentType());
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                    ContentDisposition.attachment().filename(fileName, StandardCharsets.UTF_8).build().toString());
+            return response.getOutputStream();
+        });
+    }
+
     /**
      * Get ticket details by ID (Admin, Staff, Organizer can view any ticket)
      * Returns rich admin response with user, order, event, and seat information
@@ -73,6 +142,70 @@ public class AdminTicketController {
                 .build();
     }
 
+    /**
+     * Check in a batch of scans from a gate scanner (Admin, Staff, Organizer only)
+     * Also takes scans queued while the scanner was offline; each keeps its device timestamp
+     * <p>
+     * Request body: { "eventId": "...", "scans": [{ "qrCode": "VES...", "scannedAt": "..." }] }
+     * Response: one result per scan, in request order
+     */
+    @PostMapping("/check-in/batch")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public ApiResponse<BatchCheckInResponse> checkInBatch(
+            @Valid @RequestBody BatchCheckInRequest request) {
+        return ApiResponse.<BatchCheckInResponse>builder()
+                .result(adminTicketService.checkInBatch(request))
+                .build();
+    }
+
+    /**
+     * Load (or reload) the check-in index of an event before doors open (Admin, Staff, Organizer only)
+     * Check-ins of its tickets on this node are then validated in memory
+     */
+    @PutMapping("/check-in/index/{eventId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public ApiResponse<CheckInIndexResponse> loadCheckInIndex(@PathVariable String eventId) {
+        return ApiResponse.<CheckInIndexResponse>builder()
+                .result(checkInIndexService.load(eventId))
+                .build();
+    }
+
+    @GetMapping("/check-in/index/{eventId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public ApiResponse<CheckInIndexResponse> getCheckInIndex(@PathVariable String eventId) {
+        return ApiResponse.<CheckInIndexResponse>builder()
+                .result(checkInIndexService.getStats(eventId))
+                .build();
+    }
+
+    @DeleteMapping("/check-in/index/{eventId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public ApiResponse<Void> unloadCheckInIndex(@PathVariable String eventId) {
+        checkInIndexService.unload(eventId);
+        return ApiResponse.<Void>builder().build();
+    }
+
+    /**
+     * Live check-in counts of an event for gate dashboards (Admin, Staff, Organizer only)
+     * Checked-in and remaining tickets, per ticket type, and entries per minute
+     */
+    @GetMapping("/check-in/stats/{eventId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public ApiResponse<CheckInStatsResponse> getCheckInStats(@PathVariable String eventId) {
+        return ApiResponse.<CheckInStatsResponse>builder()
+                .result(checkInStatsService.getStats(eventId))
+                .build();
+    }
+
+    /**
+     * Server-Sent Events stream of the same counts ({@code event: check-in}), pushed as they change
+     */
+    @GetMapping(value = "/check-in/stats/{eventId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public SseEmitter streamCheckInStats(@PathVariable String eventId) {
+        return checkInStatsService.subscribe(eventId);
+    }
+
     /**
      * Look up ticket by QR code (Admin, Staff, Organizer only)
      * Used for checking ticket status before check-in
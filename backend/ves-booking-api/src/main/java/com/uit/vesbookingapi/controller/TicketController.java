@@ -8,8 +8,10 @@ import com.uit.vesbookingapi.dto.response.PurchaseResponse;
 import com.uit.vesbookingapi.dto.response.TicketDetailResponse;
 import com.uit.vesbookingapi.dto.response.TicketResponse;
 import com.uit.vesbookingapi.enums.TicketStatus;
-import com.uit.vesbookingapi.service.BookingService;
+import com.uit.vesbookingapi.service.PurchaseIdempotencyService;
+import com.uit.vesbookingapi.service.SeatHoldService;
 import com.uit.vesbookingapi.service.TicketService;
+import com.uit.vesbookingapi.service.WaitingRoomService;
 import jakarta.validation.Valid;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -27,17 +29,50 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class TicketController {
-    BookingService bookingService;
+    PurchaseIdempotencyService purchaseIdempotencyService;
     TicketService ticketService;
+    SeatHoldService seatHoldService;
+    WaitingRoomService waitingRoomService;
 
     @PostMapping("/purchase")
     @PreAuthorize("isAuthenticated()")
-    public ApiResponse<PurchaseResponse> purchaseTickets(@Valid @RequestBody PurchaseRequest request) {
+    public ApiResponse<PurchaseResponse> purchaseTickets(
+            @Valid @RequestBody PurchaseRequest request,
+            @RequestHeader(value = "Admission-Token", required = false) String admissionToken,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        // A retry of a purchase already made needs no admission, which may have expired since
         return ApiResponse.<PurchaseResponse>builder()
-                .result(bookingService.purchaseTickets(request))
+                .result(purchaseIdempotencyService.purchaseTickets(request, idempotencyKey,
+                        () -> waitingRoomService.checkAdmission(request.getEventId(), admissionToken)))
                 .build();
     }
 
+    @PostMapping("/hold")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<PurchaseResponse> holdTickets(
+            @Valid @RequestBody PurchaseRequest request,
+            @RequestHeader(value = "Admission-Token", required = false) String admissionToken) {
+        waitingRoomService.checkAdmission(request.getEventId(), admissionToken);
+        return ApiResponse.<PurchaseResponse>builder()
+                .result(seatHoldService.holdTickets(request))
+                .build();
+    }
+
+    @PostMapping("/hold/{orderId}/confirm")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<PurchaseResponse> confirmHold(@PathVariable String orderId) {
+        return ApiResponse.<PurchaseResponse>builder()
+                .result(seatHoldService.confirmHold(orderId))
+                .build();
+    }
+
+    @DeleteMapping("/hold/{orderId}")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<Void> releaseHold(@PathVariable String orderId) {
+        seatHoldService.releaseHold(orderId);
+        return ApiResponse.<Void>builder().build();
+    }
+
     @GetMapping
     @PreAuthorize("isAuthenticated()")
     public ApiResponse<Page<TicketResponse>> getUserTickets(
@@ -2,6 +2,9 @@ package com.uit.vesbookingapi.controller;
 
 import com.uit.vesbookingapi.dto.request.ApiResponse;
 import com.uit.vesbookingapi.dto.request.VenueRequest;
+import com.uit.vesbookingapi.dto.response.SeatLayoutResponse;
+import com.uit.vesbookingapi.dto.response.SeatStatusBitmapResponse;
+import com.uit.vesbookingapi.dto.response.SeatingChangesResponse;
 import com.uit.vesbookingapi.dto.response.VenueResponse;
 import com.uit.vesbookingapi.dto.response.VenueSeatingResponse;
 import com.uit.vesbookingapi.service.VenueService;
@@ -10,8 +13,13 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -20,6 +28,11 @@ import java.util.List;
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class VenueController {
+    /**
+     * Seat status bitmap, see {@link SeatStatusBitmapResponse}
+     */
+    public static final String SEAT_STATUS_BITMAP_VALUE = "application/vnd.ves.seat-status";
+
     VenueService venueService;
 
     @GetMapping
@@ -69,4 +82,72 @@ public class VenueController {
                 .result(venueService.getVenueSeating(venueId, eventId))
                 .build();
     }
+
+    /**
+     * Same seating as a 2-bit-per-seat status bitmap over the indexes of {@code /seats/layout},
+     * selected with {@code Accept: application/vnd.ves.seat-status} (add {@code application/json}
+     * at a lower q to get errors as JSON). The {@code Layout-ETag} header names the layout the
+     * indexes refer to; the ETag is the seating version, so unchanged seating answers 304.
+     */
+    @GetMapping(value = "/{venueId}/seats", produces = SEAT_STATUS_BITMAP_VALUE)
+    public ResponseEntity<byte[]> getVenueSeatStatusBitmap(
+            @PathVariable String venueId,
+            @RequestParam @NotBlank(message = "Event ID is required") String eventId,
+            WebRequest request) {
+        SeatStatusBitmapResponse bitmap = venueService.getVenueSeatStatusBitmap(venueId, eventId);
+        String etag = "\"" + bitmap.getVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(SEAT_STATUS_BITMAP_VALUE))
+                .eTag(etag)
+                .header("Seating-Version", String.valueOf(bitmap.getVersion()))
+                .header("Layout-ETag", bitmap.getLayoutETag())
+                .header("Seat-Count", String.valueOf(bitmap.getSeatCount()))
+                .body(bitmap.getStatuses());
+    }
+
+    /**
+     * Seats of a venue without status; changes only when seats are added, edited or removed
+     */
+    @GetMapping("/{venueId}/seats/layout")
+    public ResponseEntity<ApiResponse<SeatLayoutResponse>> getVenueSeatLayout(
+            @PathVariable String venueId,
+            WebRequest request) {
+        String etag = venueService.getVenueSeatLayoutETag(venueId);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.<SeatLayoutResponse>builder()
+                        .result(venueService.getVenueSeatLayout(venueId))
+                        .build());
+    }
+
+    @GetMapping("/{venueId}/seats/changes")
+    public ApiResponse<SeatingChangesResponse> getVenueSeatingChanges(
+            @PathVariable String venueId,
+            @RequestParam @NotBlank(message = "Event ID is required") String eventId,
+            @RequestParam long sinceVersion) {
+        return ApiResponse.<SeatingChangesResponse>builder()
+                .result(venueService.getVenueSeatingChanges(venueId, eventId, sinceVersion))
+                .build();
+    }
+
+    /**
+     * Server-Sent Events stream of seat changes ({@code event: seats}, {@code id} = seating version).
+     * A reconnecting client resumes from its {@code Last-Event-ID}.
+     */
+    @GetMapping(value = "/{venueId}/seats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamVenueSeating(
+            @PathVariable String venueId,
+            @RequestParam @NotBlank(message = "Event ID is required") String eventId,
+            @RequestParam(required = false) Long sinceVersion,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long since = lastEventId != null ? lastEventId : sinceVersion != null ? sinceVersion : 0;
+        return venueService.streamVenueSeating(venueId, eventId, since);
+    }
 }
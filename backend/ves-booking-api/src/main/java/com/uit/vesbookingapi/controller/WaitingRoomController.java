@@ -0,0 +1,75 @@
+package com.uit.vesbookingapi.controller;
+
+import com.uit.vesbookingapi.dto.request.ApiResponse;
+import com.uit.vesbookingapi.dto.request.WaitingRoomRequest;
+import com.uit.vesbookingapi.dto.response.WaitingRoomResponse;
+import com.uit.vesbookingapi.dto.response.WaitingRoomStatsResponse;
+import com.uit.vesbookingapi.service.WaitingRoomService;
+import jakarta.validation.Valid;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/waiting-room")
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class WaitingRoomController {
+    WaitingRoomService waitingRoomService;
+
+    /**
+     * Join the queue of an event; returns the queue token to poll the status with
+     */
+    @PostMapping("/{eventId}/join")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<WaitingRoomResponse> join(@PathVariable String eventId) {
+        return ApiResponse.<WaitingRoomResponse>builder()
+                .result(waitingRoomService.join(eventId))
+                .build();
+    }
+
+    /**
+     * Queue position, or the admission token to send as Admission-Token once admitted
+     */
+    @GetMapping("/{eventId}/status")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<WaitingRoomResponse> getStatus(
+            @PathVariable String eventId,
+            @RequestHeader("Queue-Token") String queueToken) {
+        return ApiResponse.<WaitingRoomResponse>builder()
+                .result(waitingRoomService.getStatus(eventId, queueToken))
+                .build();
+    }
+
+    /**
+     * Open the waiting room of an event, or change its admission rate (Admin only).
+     * admitPerSecond is per node: each node admits that many users per second from its own queue,
+     * so divide the rate the event can take by the number of nodes. Stats are per node too.
+     */
+    @PutMapping("/{eventId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<WaitingRoomStatsResponse> open(
+            @PathVariable String eventId,
+            @Valid @RequestBody WaitingRoomRequest request) {
+        return ApiResponse.<WaitingRoomStatsResponse>builder()
+                .result(waitingRoomService.open(eventId, request.getAdmitPerSecond()))
+                .build();
+    }
+
+    @DeleteMapping("/{eventId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<Void> close(@PathVariable String eventId) {
+        waitingRoomService.close(eventId);
+        return ApiResponse.<Void>builder().build();
+    }
+
+    @GetMapping("/{eventId}/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<WaitingRoomStatsResponse> getStats(@PathVariable String eventId) {
+        return ApiResponse.<WaitingRoomStatsResponse>builder()
+                .result(waitingRoomService.getStats(eventId))
+                .build();
+    }
+}
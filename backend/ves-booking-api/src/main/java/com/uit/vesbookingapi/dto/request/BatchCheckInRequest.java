@@ -0,0 +1,27 @@
+package com.uit.vesbookingapi.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class BatchCheckInRequest {
+    // Optional: reject tickets of other events at this gate
+    String eventId;
+
+    @NotEmpty(message = "Scans are required")
+    @Size(max = 1000, message = "At most 1000 scans per batch")
+    @Valid
+    List<CheckInScanRequest> scans;
+}
@@ -0,0 +1,23 @@
+package com.uit.vesbookingapi.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class CheckInScanRequest {
+    @NotBlank(message = "QR code is required")
+    String qrCode;
+
+    // When the device scanned the code (scans queued offline are uploaded later); defaults to now
+    LocalDateTime scannedAt;
+}
@@ -0,0 +1,17 @@
+package com.uit.vesbookingapi.dto.request;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WaitingRoomRequest {
+    @NotNull(message = "Admission rate is required")
+    @Min(value = 1, message = "Admission rate must be at least 1")
+    Integer admitPerSecond; // Users let through to purchase per second, per node
+}
@@ -0,0 +1,20 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class BatchCheckInResponse {
+    int checkedIn;
+    int rejected;
+    List<CheckInScanResponse> results; // Same order as the scans
+}
@@ -0,0 +1,18 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CheckInIndexResponse {
+    String eventId;
+    Integer tickets; // Tickets of the event when the index was loaded
+    Integer checkedIn;
+    LocalDateTime loadedAt;
+}
@@ -0,0 +1,16 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CheckInMinuteResponse {
+    LocalDateTime minute;
+    Integer entries;
+}
@@ -0,0 +1,22 @@
+package com.uit.vesbookingapi.dto.response;
+
+import com.uit.vesbookingapi.enums.CheckInResult;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = lombok.AccessLevel.PRIVATE)
+public class CheckInScanResponse {
+    String qrCode;
+    CheckInResult result;
+    String ticketId;
+    LocalDateTime checkedInAt; // This scan's check-in, or the earlier one for ALREADY_USED
+}
@@ -0,0 +1,22 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CheckInStatsResponse {
+    String eventId;
+    Integer total; // Tickets that can enter: ACTIVE on a completed order, or USED
+    Integer checkedIn;
+    Integer remaining;
+    List<TicketTypeCheckInResponse> ticketTypes;
+    List<CheckInMinuteResponse> entriesPerMinute; // Oldest first, minutes without entries left out
+    LocalDateTime updatedAt;
+}
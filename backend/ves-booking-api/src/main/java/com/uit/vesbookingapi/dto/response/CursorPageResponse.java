@@ -0,0 +1,20 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CursorPageResponse<T> {
+    List<T> content;
+    int size;
+    boolean hasNext;
+    String nextCursor; // Pass as cursor to get the next page; null on the last page
+    Long approximateTotal; // Only when asked for; exact up to the count cap
+    Boolean totalCapped; // approximateTotal hit the cap, there are more
+}
@@ -0,0 +1,18 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class RowLayoutResponse {
+    String rowName;
+    Integer firstSeatIndex;
+    List<String> seatIds;
+    List<String> seatNumbers; // Same order as seatIds
+}
@@ -0,0 +1,22 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+/**
+ * Seats of a venue without their status. Seat indexes (used by the seat status bitmap) follow
+ * the order of sections, rows and seats in this document.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SeatLayoutResponse {
+    String venueId;
+    String venueName;
+    Integer seatCount;
+    List<SectionLayoutResponse> sections;
+}
@@ -0,0 +1,22 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Status of every seat of an event, 2 bits per seat in seat index order
+ * (seat i is bits {@code 2*(i%4)..2*(i%4)+1} of byte {@code i/4}, value = {@code SeatStatus} ordinal)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SeatStatusBitmapResponse {
+    String venueId;
+    String eventId;
+    Long version;
+    String layoutETag; // ETag of the seat layout the indexes refer to
+    Integer seatCount;
+    byte[] statuses;
+}
@@ -0,0 +1,15 @@
+package com.uit.vesbookingapi.dto.response;
+
+import com.uit.vesbookingapi.enums.SeatStatus;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SeatStatusChangeResponse {
+    String seatId;
+    SeatStatus status;
+}
@@ -0,0 +1,18 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SeatingChangesResponse {
+    String eventId;
+    Long version;
+    Boolean resync; // true if the changes since the given version are no longer known; reload the full seating
+    List<SeatStatusChangeResponse> changes;
+}
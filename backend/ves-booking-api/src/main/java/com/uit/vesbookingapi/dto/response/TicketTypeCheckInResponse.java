@@ -0,0 +1,17 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TicketTypeCheckInResponse {
+    String ticketTypeId;
+    String name;
+    Integer total;
+    Integer checkedIn;
+    Integer remaining;
+}
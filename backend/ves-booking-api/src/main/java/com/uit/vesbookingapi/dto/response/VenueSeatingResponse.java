@@ -14,5 +14,6 @@ public class VenueSeatingResponse {
     String venueId;
     String venueName;
     String eventId;
+    Long version; // Pass as sinceVersion to /seats/changes to get only what changed afterwards
     List<SectionResponse> sections;
 }
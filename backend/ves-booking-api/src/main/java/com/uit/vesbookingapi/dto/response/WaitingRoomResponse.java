@@ -0,0 +1,21 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WaitingRoomResponse {
+    String eventId;
+    String queueToken; // Send as Queue-Token when polling the status
+    Long position; // Users ahead in the queue; 0 once admitted
+    Long estimatedWaitSeconds;
+    Boolean admitted;
+    String admissionToken; // Send as Admission-Token with purchase and hold requests
+    LocalDateTime admissionExpiresAt;
+}
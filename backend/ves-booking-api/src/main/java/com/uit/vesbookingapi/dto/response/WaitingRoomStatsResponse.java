@@ -0,0 +1,17 @@
+package com.uit.vesbookingapi.dto.response;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WaitingRoomStatsResponse {
+    String eventId;
+    Integer admitPerSecond;
+    Long joined;
+    Long admitted;
+    Long waiting;
+}
@@ -0,0 +1,26 @@
+package com.uit.vesbookingapi.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+// Users deleted while tokens carrying their id may still be valid, so every node stops resolving them
+@Table(name = "deleted_user", indexes = {
+        @Index(name = "idx_deleted_user_deleted_at", columnList = "deleted_at")
+})
+public class DeletedUser {
+    @Id
+    String id;
+
+    @Column(name = "deleted_at", nullable = false)
+    Date deletedAt;
+}
@@ -3,6 +3,7 @@ package com.uit.vesbookingapi.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,10 +15,15 @@ import java.util.List;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@DynamicUpdate // Admin edits must not overwrite soldCount, which is maintained by bulk updates
 @Table(indexes = {
         @Index(name = "idx_event_slug", columnList = "slug"),
         @Index(name = "idx_event_start_date", columnList = "startDate"),
-        @Index(name = "idx_event_category", columnList = "category_id")
+        @Index(name = "idx_event_category", columnList = "category_id"),
+        @Index(name = "idx_event_min_price", columnList = "minPrice"),
+        @Index(name = "idx_event_sold_count", columnList = "soldCount"),
+        @Index(name = "idx_event_created_at", columnList = "createdAt"),
+        @Index(name = "idx_event_waiting_room_rate", columnList = "waitingRoomRate")
 })
 public class Event {
     @Id
@@ -85,6 +91,12 @@ public class Event {
     @OneToMany(mappedBy = "event", cascade = CascadeType.ALL)
     List<TicketType> ticketTypes;
 
+    Integer minPrice; // Denormalized lowest ticket type price, for sorting
+
+    Long soldCount; // Tickets sold, popularity score; flushed by EventPopularityService
+
+    Integer waitingRoomRate; // Admissions per second per node while the waiting room is open, null = no waiting room
+
     @Column(nullable = false)
     LocalDateTime createdAt;
 
@@ -94,6 +106,9 @@ public class Event {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        if (soldCount == null) {
+            soldCount = 0L;
+        }
     }
 
     @PreUpdate
@@ -1,11 +1,13 @@
 package com.uit.vesbookingapi.entity;
 
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
+import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.util.Date;
+import java.util.UUID;
 
 @Getter
 @Setter
@@ -14,9 +16,22 @@ import java.util.Date;
 @AllArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+// Replaces the invalidated_token table that stored the jti as a 36 character string
+@Table(name = "revoked_token", indexes = {
+        @Index(name = "idx_revoked_token_expiry", columnList = "expiry_time"),
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at")
+})
 public class InvalidatedToken {
+    // jti as BINARY(16)
     @Id
-    String id;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(length = 16)
+    UUID id;
 
+    @Column(name = "expiry_time")
     Date expiryTime;
+
+    // When the token was revoked, so nodes only read what was added since their last sync; null on older rows
+    @Column(name = "revoked_at")
+    Date revokedAt;
 }
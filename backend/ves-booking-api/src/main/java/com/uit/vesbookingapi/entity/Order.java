@@ -17,8 +17,13 @@ import java.util.List;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
 @Table(name = "orders", indexes = {
-        @Index(name = "idx_order_user", columnList = "user_id"),
-        @Index(name = "idx_order_status", columnList = "status")
+        // Match the admin listing filters, in its (createdAt, id) order
+        @Index(name = "idx_order_user_created", columnList = "user_id, createdAt, id"),
+        @Index(name = "idx_order_event_created", columnList = "event_id, createdAt, id"),
+        @Index(name = "idx_order_status_created", columnList = "status, createdAt, id"),
+        @Index(name = "idx_order_created", columnList = "createdAt, id"),
+        // Sweep of expired holds
+        @Index(name = "idx_order_status_expires", columnList = "status, expiresAt")
 })
 public class Order {
     @Id
@@ -16,9 +16,17 @@ import java.time.LocalDateTime;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
 @Table(indexes = {
-        @Index(name = "idx_ticket_user", columnList = "user_id"),
-        @Index(name = "idx_ticket_status", columnList = "status"),
-        @Index(name = "idx_ticket_purchase_date", columnList = "purchaseDate")
+        // Match the admin listing filters, in its (purchaseDate, id) order
+        @Index(name = "idx_ticket_user_purchase", columnList = "user_id, purchaseDate, id"),
+        @Index(name = "idx_ticket_event_purchase", columnList = "event_id, purchaseDate, id"),
+        @Index(name = "idx_ticket_status_purchase", columnList = "status, purchaseDate, id"),
+        @Index(name = "idx_ticket_purchase", columnList = "purchaseDate, id"),
+        // Changes picked up by the check-in indexes of other nodes
+        @Index(name = "idx_ticket_event_cancelled", columnList = "event_id, cancelledAt"),
+        @Index(name = "idx_ticket_event_checked_in", columnList = "event_id, checkedInAt")
+}, uniqueConstraints = {
+        // Last line of defence against double booking; released seats are set to NULL
+        @UniqueConstraint(name = "uk_ticket_event_seat", columnNames = {"event_id", "seat_id"})
 })
 public class Ticket {
     @Id
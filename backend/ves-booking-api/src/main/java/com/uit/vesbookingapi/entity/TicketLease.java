@@ -0,0 +1,45 @@
+package com.uit.vesbookingapi.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ticket type quantity a running node has taken out of {@code TicketType.available} into memory
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(name = "ticket_lease", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ticket_lease_node_type", columnNames = {"node_id", "ticket_type_id"})
+}, indexes = {
+        @Index(name = "idx_ticket_lease_type", columnList = "ticket_type_id")
+})
+public class TicketLease {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    String id;
+
+    @Column(name = "node_id", nullable = false)
+    String nodeId;
+
+    @Column(name = "ticket_type_id", nullable = false)
+    String ticketTypeId;
+
+    // Never less than what the node holds in memory or has in flight
+    @Column(nullable = false)
+    Integer quantity;
+
+    // Given back to the ticket type for a node that stopped renewing; the node drops it if it comes back
+    @Column(nullable = false)
+    Integer reclaimed;
+
+    @Column(name = "renewed_at", nullable = false)
+    LocalDateTime renewedAt;
+}
@@ -36,6 +36,9 @@ public class TicketType {
     @Column(nullable = false)
     Integer available; // Available quantity
 
+    // Quantity put on sale: available plus leased to nodes plus sold; null for types created before it was kept
+    Integer quantity;
+
     Integer maxPerOrder;
 
     @ElementCollection
@@ -48,4 +51,11 @@ public class TicketType {
 
     @Version
     Long version; // Optimistic locking for concurrent ticket purchases
+
+    @PrePersist
+    protected void onCreate() {
+        if (quantity == null) {
+            quantity = available;
+        }
+    }
 }
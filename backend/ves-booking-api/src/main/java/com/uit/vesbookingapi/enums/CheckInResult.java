@@ -0,0 +1,10 @@
+package com.uit.vesbookingapi.enums;
+
+public enum CheckInResult {
+    CHECKED_IN,           // Admitted by this scan
+    ALREADY_USED,         // Checked in before (or by an earlier scan of the same batch)
+    NOT_FOUND,            // QR code does not match any ticket
+    NOT_ACTIVE,           // Cancelled or refunded
+    ORDER_NOT_COMPLETED,  // Held, not paid
+    WRONG_EVENT           // Ticket of another event
+}
@@ -1,9 +1,23 @@
 package com.uit.vesbookingapi.enums;
 
+import java.time.LocalDateTime;
+
 public enum EventStatus {
     UPCOMING,    // Event hasn't started yet
     ONGOING,     // Event is currently happening
     COMPLETED,   // Event has ended
-    CANCELLED    // Event was cancelled
-}
+    CANCELLED;   // Event was cancelled
 
+    /**
+     * Status of an event with the given dates at {@code now}
+     */
+    public static EventStatus of(LocalDateTime startDate, LocalDateTime endDate, LocalDateTime now) {
+        if (endDate != null && now.isAfter(endDate)) {
+            return COMPLETED;
+        } else if (now.isAfter(startDate) || now.isEqual(startDate)) {
+            return ONGOING;
+        } else {
+            return UPCOMING;
+        }
+    }
+}
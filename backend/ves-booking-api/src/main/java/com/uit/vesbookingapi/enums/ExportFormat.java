@@ -0,0 +1,17 @@
+package com.uit.vesbookingapi.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ExportFormat {
+    CSV("text/csv; charset=UTF-8", "csv"),    // Header row, then one row per record
+    NDJSON("application/x-ndjson", "ndjson"); // One JSON object per line
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    private final String contentType;
+    private final String extension;
+}
@@ -15,12 +15,17 @@ public enum ErrorCode {
     UNAUTHENTICATED(1006, "Unauthenticated", HttpStatus.UNAUTHORIZED),
     UNAUTHORIZED(1007, "You do not have permission", HttpStatus.FORBIDDEN),
     INVALID_DOB(1008, "Your age must be at least {min}", HttpStatus.BAD_REQUEST),
+    INVALID_CURSOR(1009, "Invalid page cursor", HttpStatus.BAD_REQUEST),
+    EXPORT_LIMIT_REACHED(1010, "Too many exports are running, try again later", HttpStatus.TOO_MANY_REQUESTS),
 
     // Event errors (2xxx)
     EVENT_NOT_FOUND(2001, "Event not found", HttpStatus.NOT_FOUND),
     EVENT_SLUG_EXISTED(2002, "Event slug already exists", HttpStatus.BAD_REQUEST),
     INVALID_EVENT_DATE(2003, "Invalid event date range", HttpStatus.BAD_REQUEST),
     EVENT_HAS_SOLD_TICKETS(2004, "Cannot delete event with sold tickets", HttpStatus.BAD_REQUEST),
+    ADMISSION_REQUIRED(2005, "Join the waiting room of this event and wait for your turn", HttpStatus.TOO_MANY_REQUESTS),
+    INVALID_QUEUE_TOKEN(2006, "Invalid waiting room token", HttpStatus.BAD_REQUEST),
+    WAITING_ROOM_NOT_OPEN(2007, "This event has no open waiting room", HttpStatus.NOT_FOUND),
 
     // Ticket errors (3xxx)
     TICKET_TYPE_NOT_FOUND(3001, "Ticket type not found", HttpStatus.NOT_FOUND),
@@ -32,6 +37,8 @@ public enum ErrorCode {
     TICKET_ALREADY_USED(3007, "Ticket has already been checked in", HttpStatus.CONFLICT),
     TICKET_NOT_ACTIVE(3008, "Ticket is not in ACTIVE status", HttpStatus.BAD_REQUEST),
     QR_CODE_NOT_FOUND(3009, "QR code does not match any ticket", HttpStatus.NOT_FOUND),
+    CHECK_IN_INDEX_NOT_LOADED(3010, "Check-in index of this event is not loaded on this node", HttpStatus.NOT_FOUND),
+    CHECK_IN_STREAM_FULL(3011, "Too many live check-in streams, poll the check-in stats instead", HttpStatus.SERVICE_UNAVAILABLE),
 
     // Seat errors (4xxx)
     SEAT_NOT_FOUND(4001, "Seat not found", HttpStatus.NOT_FOUND),
@@ -39,12 +46,15 @@ public enum ErrorCode {
     SEAT_SELECTION_REQUIRED(4003, "Seat selection is required for this ticket type", HttpStatus.BAD_REQUEST),
     SEAT_ALREADY_EXISTS(4004, "Seat already exists in this venue", HttpStatus.CONFLICT),
     SEAT_HAS_TICKETS(4005, "Cannot delete seat with existing tickets", HttpStatus.BAD_REQUEST),
+    SEAT_STREAM_FULL(4006, "Too many live seat streams, poll the seat changes instead", HttpStatus.SERVICE_UNAVAILABLE),
 
     // Order errors (5xxx)
     ORDER_NOT_FOUND(5001, "Order not found", HttpStatus.NOT_FOUND),
     ORDER_EXPIRED(5002, "Order has expired", HttpStatus.BAD_REQUEST),
     ORDER_ALREADY_COMPLETED(5003, "Order already completed", HttpStatus.BAD_REQUEST),
     ORDER_NOT_COMPLETED(5004, "Order is not completed, ticket is not valid", HttpStatus.BAD_REQUEST),
+    IDEMPOTENCY_KEY_REUSED(5005, "Idempotency-Key was already used for a different request", HttpStatus.UNPROCESSABLE_ENTITY),
+    INVALID_IDEMPOTENCY_KEY(5006, "Idempotency-Key must be 1 to 255 characters", HttpStatus.BAD_REQUEST),
 
     // Voucher errors (6xxx)
     VOUCHER_NOT_FOUND(6001, "Voucher not found", HttpStatus.NOT_FOUND),
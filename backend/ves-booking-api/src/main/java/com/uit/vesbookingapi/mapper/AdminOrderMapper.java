@@ -1,88 +1,68 @@
 package com.uit.vesbookingapi.mapper;
 
 import com.uit.vesbookingapi.dto.response.AdminOrderResponse;
-import com.uit.vesbookingapi.entity.Order;
-import com.uit.vesbookingapi.entity.Ticket;
+import com.uit.vesbookingapi.repository.OrderRepository;
+import com.uit.vesbookingapi.repository.TicketRepository;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring")
 public interface AdminOrderMapper {
 
-    @Mapping(target = "user", source = "order", qualifiedByName = "mapUserInfo")
-    @Mapping(target = "event", source = "order", qualifiedByName = "mapEventInfo")
-    @Mapping(target = "ticketType", source = "order", qualifiedByName = "mapTicketTypeInfo")
-    @Mapping(target = "tickets", source = "order.tickets", qualifiedByName = "mapTicketSummaries")
-    @Mapping(target = "voucherCode", source = "voucher.code")
+    /**
+     * Admin response from the flat projection of an order, with the order's tickets
+     */
+    @Mapping(target = "user", source = "order", qualifiedByName = "mapUserView")
+    @Mapping(target = "event", source = "order", qualifiedByName = "mapEventView")
+    @Mapping(target = "ticketType", source = "order", qualifiedByName = "mapTicketTypeView")
+    @Mapping(target = "tickets", source = "tickets")
     @Mapping(target = "zalopayTransactionId", ignore = true)
-        // Will be set manually if exists
-    AdminOrderResponse toAdminOrderResponse(Order order);
+    AdminOrderResponse toAdminOrderResponse(OrderRepository.AdminOrderView order,
+                                            List<TicketRepository.TicketSummaryView> tickets);
 
-    @Named("mapUserInfo")
-    default AdminOrderResponse.UserInfo mapUserInfo(Order order) {
-        if (order.getUser() == null) return null;
+    AdminOrderResponse.TicketSummary toTicketSummary(TicketRepository.TicketSummaryView ticket);
 
+    @Named("mapUserView")
+    default AdminOrderResponse.UserInfo mapUserView(OrderRepository.AdminOrderView order) {
         return AdminOrderResponse.UserInfo.builder()
-                .id(order.getUser().getId())
-                .username(order.getUser().getUsername())
-                .email(order.getUser().getEmail())
-                .phone(order.getUser().getPhone())
-                .firstName(order.getUser().getFirstName())
-                .lastName(order.getUser().getLastName())
-                .fullName(buildFullName(order.getUser().getFirstName(), order.getUser().getLastName()))
+                .id(order.getUserId())
+                .username(order.getUserUsername())
+                .email(order.getUserEmail())
+                .phone(order.getUserPhone())
+                .firstName(order.getUserFirstName())
+                .lastName(order.getUserLastName())
+                .fullName(buildFullName(order.getUserFirstName(), order.getUserLastName()))
                 .build();
     }
 
-    @Named("mapEventInfo")
-    default AdminOrderResponse.EventInfo mapEventInfo(Order order) {
-        if (order.getEvent() == null) return null;
-
+    @Named("mapEventView")
+    default AdminOrderResponse.EventInfo mapEventView(OrderRepository.AdminOrderView order) {
         return AdminOrderResponse.EventInfo.builder()
-                .id(order.getEvent().getId())
-                .name(order.getEvent().getName())
-                .slug(order.getEvent().getSlug())
-                .thumbnail(order.getEvent().getThumbnail())
-                .venueName(order.getEvent().getVenueName())
-                .venueAddress(order.getEvent().getVenueAddress())
-                .startDate(order.getEvent().getStartDate())
-                .endDate(order.getEvent().getEndDate())
+                .id(order.getEventId())
+                .name(order.getEventName())
+                .slug(order.getEventSlug())
+                .thumbnail(order.getEventThumbnail())
+                .venueName(order.getEventVenueName())
+                .venueAddress(order.getEventVenueAddress())
+                .startDate(order.getEventStartDate())
+                .endDate(order.getEventEndDate())
                 .build();
     }
 
-    @Named("mapTicketTypeInfo")
-    default AdminOrderResponse.TicketTypeInfo mapTicketTypeInfo(Order order) {
-        if (order.getTicketType() == null) return null;
-
+    @Named("mapTicketTypeView")
+    default AdminOrderResponse.TicketTypeInfo mapTicketTypeView(OrderRepository.AdminOrderView order) {
         return AdminOrderResponse.TicketTypeInfo.builder()
-                .id(order.getTicketType().getId())
-                .name(order.getTicketType().getName())
-                .description(order.getTicketType().getDescription())
-                .price(order.getTicketType().getPrice())
-                .currency(order.getTicketType().getCurrency())
+                .id(order.getTicketTypeId())
+                .name(order.getTicketTypeName())
+                .description(order.getTicketTypeDescription())
+                .price(order.getTicketTypePrice())
+                .currency(order.getTicketTypeCurrency())
                 .build();
     }
 
-    @Named("mapTicketSummaries")
-    default List<AdminOrderResponse.TicketSummary> mapTicketSummaries(List<Ticket> tickets) {
-        if (tickets == null) return null;
-
-        return tickets.stream()
-                .map(ticket -> AdminOrderResponse.TicketSummary.builder()
-                        .id(ticket.getId())
-                        .qrCode(ticket.getQrCode())
-                        .seatNumber(ticket.getSeat() != null ? ticket.getSeat().getSeatNumber() : null)
-                        .status(ticket.getStatus())
-                        .purchaseDate(ticket.getPurchaseDate())
-                        .checkedInAt(ticket.getCheckedInAt())
-                        .cancelledAt(ticket.getCancelledAt())
-                        .build())
-                .collect(Collectors.toList());
-    }
-
     default String buildFullName(String firstName, String lastName) {
         if (firstName == null && lastName == null) return null;
         if (firstName == null) return lastName;
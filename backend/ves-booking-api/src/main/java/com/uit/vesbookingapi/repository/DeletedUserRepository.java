@@ -0,0 +1,22 @@
+package com.uit.vesbookingapi.repository;
+
+import com.uit.vesbookingapi.entity.DeletedUser;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface DeletedUserRepository extends JpaRepository<DeletedUser, String> {
+
+    @Query("SELECT d.id FROM DeletedUser d WHERE d.deletedAt > :since")
+    List<String> findIdsDeletedAfter(@Param("since") Date since);
+
+    @Modifying
+    @Query("DELETE FROM DeletedUser d WHERE d.deletedAt < :cutoff")
+    int deleteDeletedBefore(@Param("cutoff") Date cutoff);
+}
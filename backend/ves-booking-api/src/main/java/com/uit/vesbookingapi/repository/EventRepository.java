@@ -3,10 +3,13 @@ package com.uit.vesbookingapi.repository;
 import com.uit.vesbookingapi.entity.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,5 +23,33 @@ public interface EventRepository extends JpaRepository<Event, String>, JpaSpecif
 
     @Query("SELECT COUNT(t) FROM Ticket t WHERE t.ticketType.id = :ticketTypeId AND t.status IN ('ACTIVE', 'USED')")
     Long countSoldTicketsByTicketType(@Param("ticketTypeId") String ticketTypeId);
-}
 
+    @Query("SELECT e.id FROM Event e WHERE e.venue IS NOT NULL AND COALESCE(e.endDate, e.startDate) > :now")
+    List<String> findUpcomingEventIdsWithVenue(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.soldCount = COALESCE(e.soldCount, 0) + :delta WHERE e.id = :eventId")
+    int incrementSoldCount(@Param("eventId") String eventId, @Param("delta") long delta);
+
+    @Modifying
+    @Query("UPDATE Event e SET e.minPrice = (SELECT MIN(tt.price) FROM TicketType tt WHERE tt.event = e) " +
+            "WHERE e.minPrice IS NULL")
+    int backfillMinPrice();
+
+    @Modifying
+    @Query("UPDATE Event e SET e.soldCount = (SELECT COUNT(t) FROM Ticket t WHERE t.event = e " +
+            "AND t.status IN (com.uit.vesbookingapi.enums.TicketStatus.ACTIVE, com.uit.vesbookingapi.enums.TicketStatus.USED) " +
+            "AND t.order.status = com.uit.vesbookingapi.enums.OrderStatus.COMPLETED) " +
+            "WHERE e.soldCount IS NULL")
+    int backfillSoldCount();
+
+    @Modifying
+    @Query("UPDATE Event e SET e.waitingRoomRate = :rate WHERE e.id = :eventId")
+    int updateWaitingRoomRate(@Param("eventId") String eventId, @Param("rate") Integer rate);
+
+    /**
+     * Event id and admission rate of every open waiting room
+     */
+    @Query("SELECT e.id, e.waitingRoomRate FROM Event e WHERE e.waitingRoomRate IS NOT NULL")
+    List<Object[]> findWaitingRoomRates();
+}
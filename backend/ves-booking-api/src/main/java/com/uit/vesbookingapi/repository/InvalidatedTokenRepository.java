@@ -1,9 +1,30 @@
 package com.uit.vesbookingapi.repository;
 
 import com.uit.vesbookingapi.entity.InvalidatedToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
-public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, String> {
+public interface InvalidatedTokenRepository extends JpaRepository<InvalidatedToken, UUID> {
+
+    List<InvalidatedToken> findByExpiryTimeAfter(Date time);
+
+    List<InvalidatedToken> findByRevokedAtAfter(Date time);
+
+    // One batch of rows that expired before the cutoff
+    @Query("SELECT t.id FROM InvalidatedToken t WHERE t.expiryTime < :cutoff")
+    List<UUID> findIdsExpiredBefore(@Param("cutoff") Date cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM InvalidatedToken t WHERE t.id IN :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
 }
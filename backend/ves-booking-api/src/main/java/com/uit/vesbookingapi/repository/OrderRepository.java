@@ -2,14 +2,20 @@ package com.uit.vesbookingapi.repository;
 
 import com.uit.vesbookingapi.entity.Order;
 import com.uit.vesbookingapi.enums.OrderStatus;
+import com.uit.vesbookingapi.enums.PaymentMethod;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String>, JpaSpecificationExecutor<Order> {
@@ -18,7 +24,155 @@ public interface OrderRepository extends JpaRepository<Order, String>, JpaSpecif
 
     List<Order> findByUserIdAndStatusOrderByCreatedAtDesc(String userId, OrderStatus status);
 
+    // Lock the order row until the end of the transaction
+    @Query(value = "SELECT id FROM orders WHERE id = :orderId FOR UPDATE", nativeQuery = true)
+    List<String> lockById(@Param("orderId") String orderId);
+
     // Find expired pending orders for cleanup
     @Query("SELECT o FROM Order o WHERE o.status = 'PENDING' AND o.expiresAt < :now")
     List<Order> findExpiredPendingOrders(@Param("now") LocalDateTime now);
+
+    // Holds still open past their deadline, oldest first
+    @Query("SELECT o.id FROM Order o WHERE o.status = 'PENDING' AND o.expiresAt < :before ORDER BY o.expiresAt")
+    List<String> findPendingOrderIdsExpiredBefore(@Param("before") LocalDateTime before, Limit limit);
+
+    // Deadlines of every open hold, used to rebuild the in-memory expiry wheel at startup
+    @Query("SELECT o.id, o.expiresAt FROM Order o WHERE o.status = 'PENDING'")
+    List<Object[]> findPendingOrderExpirations();
+
+    // Confirm a hold; 0 if it was already confirmed, released or has expired
+    @Modifying
+    @Query("UPDATE Order o SET o.status = com.uit.vesbookingapi.enums.OrderStatus.COMPLETED, o.completedAt = :now " +
+            "WHERE o.id = :orderId AND o.status = 'PENDING' AND o.expiresAt > :now")
+    int completeIfPending(@Param("orderId") String orderId, @Param("now") LocalDateTime now);
+
+    // Admin order listing: one row per order with its user, event, ticket type and voucher code
+    @Query(value = ADMIN_ORDER_SELECT + "WHERE " + ADMIN_ORDER_FILTER,
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE " + ADMIN_ORDER_FILTER)
+    Page<AdminOrderView> findAdminOrders(
+            @Param("userId") String userId,
+            @Param("eventId") String eventId,
+            @Param("status") OrderStatus status,
+            Pageable pageable);
+
+    // Same rows newest first, starting after the (createdAt, id) of the previous page's last row
+    @Query(ADMIN_ORDER_SELECT + "WHERE " + ADMIN_ORDER_FILTER + " AND (:afterCreatedAt IS NULL " +
+            "OR o.createdAt < :afterCreatedAt OR (o.createdAt = :afterCreatedAt AND o.id < :afterId)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<AdminOrderView> findAdminOrdersAfter(
+            @Param("userId") String userId,
+            @Param("eventId") String eventId,
+            @Param("status") OrderStatus status,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") String afterId,
+            Limit limit);
+
+    // Ids of matching orders, up to the limit; counts without scanning past it
+    @Query("SELECT o.id FROM Order o WHERE " + ADMIN_ORDER_FILTER)
+    List<String> findAdminOrderIds(
+            @Param("userId") String userId,
+            @Param("eventId") String eventId,
+            @Param("status") OrderStatus status,
+            Limit limit);
+
+    // Order export of an event, run by AdminExportService on its own connection:
+    // id, createdAt, completedAt, status, payment method, user id, username, email, phone, first name, last name,
+    // ticket type, quantity, subtotal, discount, total, currency, voucher code
+    String EXPORT_ROWS_QUERY = "SELECT o.id, o.createdAt, o.completedAt, o.status, o.paymentMethod, u.id, u.username, " +
+            "u.email, u.phone, u.firstName, u.lastName, tt.name, o.quantity, o.subtotal, o.discount, o.total, o.currency, v.code " +
+            "FROM Order o JOIN o.user u JOIN o.ticketType tt LEFT JOIN o.voucher v " +
+            "WHERE o.event.id = :eventId ORDER BY o.createdAt, o.id";
+
+    @Query(ADMIN_ORDER_SELECT + "WHERE o.id = :orderId")
+    Optional<AdminOrderView> findAdminOrderById(@Param("orderId") String orderId);
+
+    String ADMIN_ORDER_FILTER = "(:userId IS NULL OR o.user.id = :userId) AND (:eventId IS NULL OR o.event.id = :eventId) " +
+            "AND (:status IS NULL OR o.status = :status)";
+
+    String ADMIN_ORDER_SELECT = "SELECT o.id AS id, o.status AS status, o.paymentMethod AS paymentMethod, " +
+            "o.paymentUrl AS paymentUrl, o.expiresAt AS expiresAt, o.createdAt AS createdAt, o.completedAt AS completedAt, " +
+            "o.quantity AS quantity, o.subtotal AS subtotal, o.discount AS discount, o.total AS total, " +
+            "o.currency AS currency, v.code AS voucherCode, " +
+            "u.id AS userId, u.username AS userUsername, u.email AS userEmail, u.phone AS userPhone, " +
+            "u.firstName AS userFirstName, u.lastName AS userLastName, " +
+            "e.id AS eventId, e.name AS eventName, e.slug AS eventSlug, e.thumbnail AS eventThumbnail, " +
+            "e.venueName AS eventVenueName, e.venueAddress AS eventVenueAddress, " +
+            "e.startDate AS eventStartDate, e.endDate AS eventEndDate, " +
+            "tt.id AS ticketTypeId, tt.name AS ticketTypeName, tt.description AS ticketTypeDescription, " +
+            "tt.price AS ticketTypePrice, tt.currency AS ticketTypeCurrency " +
+            "FROM Order o JOIN o.user u JOIN o.event e JOIN o.ticketType tt LEFT JOIN o.voucher v ";
+
+    /**
+     * Flat admin view of an order, read without loading any entity
+     */
+    interface AdminOrderView {
+        String getId();
+
+        OrderStatus getStatus();
+
+        PaymentMethod getPaymentMethod();
+
+        String getPaymentUrl();
+
+        LocalDateTime getExpiresAt();
+
+        LocalDateTime getCreatedAt();
+
+        LocalDateTime getCompletedAt();
+
+        Integer getQuantity();
+
+        Integer getSubtotal();
+
+        Integer getDiscount();
+
+        Integer getTotal();
+
+        String getCurrency();
+
+        String getVoucherCode();
+
+        String getUserId();
+
+        String getUserUsername();
+
+        String getUserEmail();
+
+        String getUserPhone();
+
+        String getUserFirstName();
+
+        String getUserLastName();
+
+        String getEventId();
+
+        String getEventName();
+
+        String getEventSlug();
+
+        String getEventThumbnail();
+
+        String getEventVenueName();
+
+        String getEventVenueAddress();
+
+        LocalDateTime getEventStartDate();
+
+        LocalDateTime getEventEndDate();
+
+        String getTicketTypeId();
+
+        String getTicketTypeName();
+
+        String getTicketTypeDescription();
+
+        Integer getTicketTypePrice();
+
+        String getTicketTypeCurrency();
+    }
+
+    // Close a hold (EXPIRED or CANCELLED); 0 if it is no longer pending
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status WHERE o.id = :orderId AND o.status = 'PENDING'")
+    int closeIfPending(@Param("orderId") String orderId, @Param("status") OrderStatus status);
 }
@@ -0,0 +1,48 @@
+package com.uit.vesbookingapi.repository;
+
+import com.uit.vesbookingapi.entity.TicketLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TicketLeaseRepository extends JpaRepository<TicketLease, String> {
+
+    List<TicketLease> findByNodeId(String nodeId);
+
+    List<TicketLease> findByTicketTypeId(String ticketTypeId);
+
+    // 0 if the node has no lease row for the ticket type yet
+    @Modifying
+    @Query("UPDATE TicketLease l SET l.quantity = l.quantity + :delta, l.renewedAt = :now " +
+            "WHERE l.nodeId = :nodeId AND l.ticketTypeId = :ticketTypeId")
+    int addQuantity(@Param("nodeId") String nodeId, @Param("ticketTypeId") String ticketTypeId,
+                    @Param("delta") int delta, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE TicketLease l SET l.reclaimed = l.reclaimed - :dropped WHERE l.id = :id")
+    int dropReclaimed(@Param("id") String id, @Param("dropped") int dropped);
+
+    @Modifying
+    @Query("UPDATE TicketLease l SET l.renewedAt = :now WHERE l.nodeId = :nodeId")
+    int renew(@Param("nodeId") String nodeId, @Param("now") LocalDateTime now);
+
+    // Ticket types with quantity leased by nodes that stopped renewing
+    @Query("SELECT DISTINCT l.ticketTypeId FROM TicketLease l " +
+            "WHERE l.renewedAt < :staleBefore AND l.quantity > 0 AND l.nodeId <> :nodeId")
+    List<String> findTicketTypeIdsWithStaleLeases(@Param("staleBefore") LocalDateTime staleBefore,
+                                                  @Param("nodeId") String nodeId);
+
+    @Modifying
+    @Query("DELETE FROM TicketLease l WHERE l.renewedAt < :staleBefore AND l.quantity <= 0")
+    int deleteEmptyStale(@Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("DELETE FROM TicketLease l WHERE l.nodeId = :nodeId AND l.quantity <= 0 AND l.reclaimed = 0")
+    int deleteEmptyOfNode(@Param("nodeId") String nodeId);
+}
@@ -2,16 +2,18 @@ package com.uit.vesbookingapi.repository;
 
 import com.uit.vesbookingapi.entity.Ticket;
 import com.uit.vesbookingapi.enums.TicketStatus;
-import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +30,10 @@ public interface TicketRepository extends JpaRepository<Ticket, String>, JpaSpec
 
     List<Ticket> findByOrderId(String orderId);
 
+    long countByOrderIdAndStatus(String orderId, TicketStatus status);
+
+    long countByTicketTypeIdAndStatusIn(String ticketTypeId, Collection<TicketStatus> statuses);
+
     // Find tickets by user and event (only from COMPLETED orders)
     @Query("SELECT t FROM Ticket t JOIN t.order o WHERE t.user.id = :userId AND t.event.id = :eventId AND o.status = 'COMPLETED' ORDER BY t.purchaseDate DESC")
     Page<Ticket> findByUserIdAndEventIdAndOrderCompletedOrderByPurchaseDateDesc(
@@ -56,15 +62,113 @@ public interface TicketRepository extends JpaRepository<Ticket, String>, JpaSpec
             @Param("status") TicketStatus status,
             Pageable pageable);
 
+    String ADMIN_TICKET_FILTER = "(:userId IS NULL OR t.user.id = :userId) AND (:eventId IS NULL OR t.event.id = :eventId) " +
+            "AND (:status IS NULL OR t.status = :status)";
+
+    // Admin ticket listing, newest first, starting after the (purchaseDate, id) of the previous page's last row
+    @Query("SELECT t FROM Ticket t JOIN FETCH t.order JOIN FETCH t.user JOIN FETCH t.event JOIN FETCH t.ticketType " +
+            "LEFT JOIN FETCH t.seat WHERE " + ADMIN_TICKET_FILTER + " AND (:afterDate IS NULL OR t.purchaseDate < :afterDate " +
+            "OR (t.purchaseDate = :afterDate AND t.id < :afterId)) ORDER BY t.purchaseDate DESC, t.id DESC")
+    List<Ticket> findAdminTicketsAfter(
+            @Param("userId") String userId,
+            @Param("eventId") String eventId,
+            @Param("status") TicketStatus status,
+            @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") String afterId,
+            Limit limit);
+
+    // Ids of matching tickets, up to the limit; counts without scanning past it
+    @Query("SELECT t.id FROM Ticket t WHERE " + ADMIN_TICKET_FILTER)
+    List<String> findAdminTicketIds(
+            @Param("userId") String userId,
+            @Param("eventId") String eventId,
+            @Param("status") TicketStatus status,
+            Limit limit);
+
     // Find ticket by QR code
     Optional<Ticket> findByQrCode(String qrCode);
 
+    // Ticket summaries of a page of admin orders, in one query
+    @Query("SELECT t.order.id AS orderId, t.id AS id, t.qrCode AS qrCode, s.seatNumber AS seatNumber, t.status AS status, " +
+            "t.purchaseDate AS purchaseDate, t.checkedInAt AS checkedInAt, t.cancelledAt AS cancelledAt " +
+            "FROM Ticket t LEFT JOIN t.seat s WHERE t.order.id IN :orderIds")
+    List<TicketSummaryView> findSummariesByOrderIdIn(@Param("orderIds") Collection<String> orderIds);
+
+    @Query("SELECT t.qrCode FROM Ticket t WHERE t.event.id = :eventId AND t.cancelledAt > :since")
+    List<String> findQrCodesCancelledSince(@Param("eventId") String eventId, @Param("since") LocalDateTime since);
+
+    @Query("SELECT t.qrCode FROM Ticket t WHERE t.event.id = :eventId AND t.checkedInAt > :since")
+    List<String> findQrCodesCheckedInSince(@Param("eventId") String eventId, @Param("since") LocalDateTime since);
+
+    // Check-in state behind a batch of QR codes: qrCode, id, status, checkedInAt, event id, order status, ticket type id
+    @Query("SELECT t.qrCode, t.id, t.status, t.checkedInAt, t.event.id, o.status, t.ticketType.id FROM Ticket t JOIN t.order o " +
+            "WHERE t.qrCode IN :qrCodes")
+    List<Object[]> findCheckInStates(@Param("qrCodes") Collection<String> qrCodes);
+
+    // Check-in state of every ticket of an event: qrCode, id, status, order status, ticket type id
+    @Query("SELECT t.qrCode, t.id, t.status, o.status, t.ticketType.id FROM Ticket t JOIN t.order o WHERE t.event.id = :eventId")
+    List<Object[]> findCheckInStatesByEventId(@Param("eventId") String eventId);
+
+    // Attendee export of an event, run by AdminExportService on its own connection:
+    // id, qrCode, status, ticket type, price, currency, section, row, seat, order id, order status,
+    // user id, username, email, phone, first name, last name, purchaseDate, checkedInAt, cancelledAt, refund status
+    String EXPORT_ROWS_QUERY = "SELECT t.id, t.qrCode, t.status, tt.name, tt.price, tt.currency, s.sectionName, s.rowName, " +
+            "s.seatNumber, o.id, o.status, u.id, u.username, u.email, u.phone, u.firstName, u.lastName, " +
+            "t.purchaseDate, t.checkedInAt, t.cancelledAt, t.refundStatus " +
+            "FROM Ticket t JOIN t.ticketType tt JOIN t.order o JOIN t.user u LEFT JOIN t.seat s " +
+            "WHERE t.event.id = :eventId ORDER BY t.purchaseDate, t.id";
+
+    // Valid tickets of an event per ticket type and status: ticket type id, name, status, count
+    @Query("SELECT tt.id, tt.name, t.status, COUNT(t) FROM Ticket t JOIN t.ticketType tt JOIN t.order o " +
+            "WHERE t.event.id = :eventId AND (t.status = 'USED' OR (t.status = 'ACTIVE' AND o.status = 'COMPLETED')) " +
+            "GROUP BY tt.id, tt.name, t.status")
+    List<Object[]> countCheckInStatesByEventId(@Param("eventId") String eventId);
+
+    // Check-ins of an event per minute, latest minutes first: year, month, day, hour, minute, count
+    @Query("SELECT YEAR(t.checkedInAt), MONTH(t.checkedInAt), DAY(t.checkedInAt), HOUR(t.checkedInAt), MINUTE(t.checkedInAt), " +
+            "COUNT(t) FROM Ticket t WHERE t.event.id = :eventId AND t.status = 'USED' AND t.checkedInAt IS NOT NULL " +
+            "GROUP BY YEAR(t.checkedInAt), MONTH(t.checkedInAt), DAY(t.checkedInAt), HOUR(t.checkedInAt), MINUTE(t.checkedInAt) " +
+            "ORDER BY YEAR(t.checkedInAt) DESC, MONTH(t.checkedInAt) DESC, DAY(t.checkedInAt) DESC, HOUR(t.checkedInAt) DESC, " +
+            "MINUTE(t.checkedInAt) DESC")
+    List<Object[]> countCheckInsPerMinuteByEventId(@Param("eventId") String eventId, Limit limit);
+
     // Check if seats are occupied (sold or reserved) for a specific event
     @Query("SELECT t.seat.id FROM Ticket t WHERE t.event.id = :eventId AND t.seat.id IN :seatIds AND t.status IN ('ACTIVE', 'USED')")
     List<String> findOccupiedSeatIds(@Param("eventId") String eventId, @Param("seatIds") List<String> seatIds);
 
-    // Check occupied seats with pessimistic locking to prevent double booking
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT t.seat.id FROM Ticket t WHERE t.event.id = :eventId AND t.seat.id IN :seatIds AND t.status IN ('ACTIVE', 'USED')")
-    List<String> findOccupiedSeatIdsWithLock(@Param("eventId") String eventId, @Param("seatIds") List<String> seatIds);
+    // Seats held by the tickets of an order
+    @Query("SELECT t.seat.id FROM Ticket t WHERE t.order.id = :orderId AND t.seat IS NOT NULL")
+    List<String> findSeatIdsByOrderId(@Param("orderId") String orderId);
+
+    // Cancel every ticket of an order and give its seats back
+    // Cancel a ticket with a pending refund; 0 if it is no longer active
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = com.uit.vesbookingapi.enums.TicketStatus.CANCELLED, t.seat = null, " +
+            "t.cancelledAt = :now, t.cancellationReason = :reason, t.refundAmount = :refundAmount, " +
+            "t.refundStatus = com.uit.vesbookingapi.enums.RefundStatus.PENDING " +
+            "WHERE t.id = :ticketId AND t.status = com.uit.vesbookingapi.enums.TicketStatus.ACTIVE")
+    int cancelIfActive(@Param("ticketId") String ticketId, @Param("refundAmount") Integer refundAmount,
+                       @Param("reason") String reason, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Ticket t SET t.status = :status, t.seat = null, t.cancelledAt = :now WHERE t.order.id = :orderId")
+    int cancelByOrderId(@Param("orderId") String orderId, @Param("status") TicketStatus status, @Param("now") LocalDateTime now);
+
+    interface TicketSummaryView {
+        String getOrderId();
+
+        String getId();
+
+        String getQrCode();
+
+        String getSeatNumber();
+
+        TicketStatus getStatus();
+
+        LocalDateTime getPurchaseDate();
+
+        LocalDateTime getCheckedInAt();
+
+        LocalDateTime getCancelledAt();
+    }
 }
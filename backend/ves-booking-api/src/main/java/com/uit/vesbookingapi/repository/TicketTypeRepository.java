@@ -28,5 +28,13 @@ public interface TicketTypeRepository extends JpaRepository<TicketType, String>
     @Modifying
     @Query("UPDATE TicketType tt SET tt.available = tt.available + :increment WHERE tt.id = :ticketTypeId")
     int incrementAvailable(@Param("ticketTypeId") String ticketTypeId, @Param("increment") int increment);
+
+    // quantity and available, locking the row until the end of the transaction
+    @Query(value = "SELECT quantity, available FROM ticket_type WHERE id = :ticketTypeId FOR UPDATE", nativeQuery = true)
+    List<Object[]> lockStockById(@Param("ticketTypeId") String ticketTypeId);
+
+    @Modifying
+    @Query("UPDATE TicketType tt SET tt.available = tt.available - :quantity WHERE tt.id = :ticketTypeId")
+    int decrementAvailable(@Param("ticketTypeId") String ticketTypeId, @Param("quantity") int quantity);
 }
 
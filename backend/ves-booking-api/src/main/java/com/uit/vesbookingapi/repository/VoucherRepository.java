@@ -2,6 +2,7 @@ package com.uit.vesbookingapi.repository;
 
 import com.uit.vesbookingapi.entity.Voucher;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,4 +19,23 @@ public interface VoucherRepository extends JpaRepository<Voucher, String> {
     // Find public vouchers that are currently valid (not expired)
     @Query("SELECT v FROM Voucher v WHERE v.isPublic = true AND v.endDate > :now ORDER BY v.endDate ASC")
     List<Voucher> findPublicActiveVouchers(@Param("now") LocalDateTime now);
+
+    // (voucher id, event id) pairs for compiling the voucher catalog
+    @Query("SELECT v.id, e FROM Voucher v JOIN v.applicableEvents e")
+    List<Object[]> findAllApplicableEvents();
+
+    // (voucher id, category slug) pairs for compiling the voucher catalog
+    @Query("SELECT v.id, c FROM Voucher v JOIN v.applicableCategories c")
+    List<Object[]> findAllApplicableCategories();
+
+    // Use a voucher once, unless that would exceed its limit
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = v.usedCount + 1, v.version = v.version + 1 " +
+            "WHERE v.id = :voucherId AND (v.usageLimit IS NULL OR v.usedCount < v.usageLimit)")
+    int incrementUsedCount(@Param("voucherId") String voucherId);
+
+    // Give back a use of a voucher whose order did not go through
+    @Modifying
+    @Query("UPDATE Voucher v SET v.usedCount = v.usedCount - 1 WHERE v.id = :voucherId AND v.usedCount > 0")
+    int decrementUsedCount(@Param("voucherId") String voucherId);
 }
@@ -0,0 +1,163 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.entity.Event;
+import com.uit.vesbookingapi.enums.ExportFormat;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.EventRepository;
+import com.uit.vesbookingapi.repository.OrderRepository;
+import com.uit.vesbookingapi.repository.TicketRepository;
+import com.uit.vesbookingapi.utils.ExportWriter;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+/**
+ * Full order and attendee exports of an event. Rows are read through a forward-only cursor and
+ * written to the response as they arrive, so memory use does not depend on the event's size.
+ * <p>
+ * An export holds its connection for the whole download, so exports run on a small pool of their
+ * own ({@code booking.export.max-concurrent} connections, more exports are refused) and never
+ * take connections from purchases. Only that pool uses MySQL's server-side cursors
+ * ({@code useCursorFetch}); the main data source keeps client-side prepared statements.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class AdminExportService {
+    private static final int FETCH_SIZE = 1000;
+
+    // In the column order of OrderRepository.EXPORT_ROWS_QUERY
+    static final String[] ORDER_COLUMNS = {"orderId", "createdAt", "completedAt", "status", "paymentMethod",
+            "userId", "username", "email", "phone", "firstName", "lastName",
+            "ticketType", "quantity", "subtotal", "discount", "total", "currency", "voucherCode"};
+
+    // In the column order of TicketRepository.EXPORT_ROWS_QUERY
+    static final String[] TICKET_COLUMNS = {"ticketId", "qrCode", "status", "ticketType", "price", "currency",
+            "section", "row", "seat", "orderId", "orderStatus",
+            "userId", "username", "email", "phone", "firstName", "lastName",
+            "purchaseDate", "checkedInAt", "cancelledAt", "refundStatus"};
+
+    EventRepository eventRepository;
+    SessionFactory sessionFactory;
+    HikariDataSource exportDataSource;
+    Semaphore running;
+
+    public AdminExportService(
+            EventRepository eventRepository,
+            EntityManagerFactory entityManagerFactory,
+            DataSourceProperties dataSourceProperties,
+            @Value("${booking.export.max-concurrent:2}") int maxConcurrent,
+            @Value("${booking.export.cursor-fetch:true}") boolean cursorFetch) {
+        this.eventRepository = eventRepository;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.exportDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.exportDataSource.setPoolName("export");
+        this.exportDataSource.setMaximumPoolSize(maxConcurrent);
+        this.exportDataSource.setMinimumIdle(0);
+        this.exportDataSource.setReadOnly(true);
+        if (cursorFetch) {
+            this.exportDataSource.addDataSourceProperty("useCursorFetch", "true");
+        }
+        this.running = new Semaphore(maxConcurrent);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        exportDataSource.close();
+    }
+
+    /**
+     * Download file name of an export, e.g. {@code orders-summer-fest.csv.gz}.
+     * Call it before writing anything: it fails with EVENT_NOT_FOUND while an error response can still be sent.
+     */
+    public String exportFileName(String eventId, String prefix, ExportFormat format, boolean gzip) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new AppException(ErrorCode.EVENT_NOT_FOUND));
+
+        return prefix + "-" + event.getSlug() + "." + format.getExtension() + (gzip ? ".gz" : "");
+    }
+
+    /**
+     * Write every order of an event to {@code target}, oldest first (Admin only)
+     *
+     * @return number of orders written
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    public long exportOrders(String eventId, ExportFormat format, boolean gzip, ExportTarget target) throws IOException {
+        long rows = export(OrderRepository.EXPORT_ROWS_QUERY, eventId, ORDER_COLUMNS, format, gzip, target);
+        log.info("Exported {} orders of event {}", rows, eventId);
+        return rows;
+    }
+
+    /**
+     * Write every ticket of an event with its seat, order and holder to {@code target}, oldest first
+     * (Admin, Staff, Organizer only)
+     *
+     * @return number of tickets written
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public long exportTickets(String eventId, ExportFormat format, boolean gzip, ExportTarget target) throws IOException {
+        long rows = export(TicketRepository.EXPORT_ROWS_QUERY, eventId, TICKET_COLUMNS, format, gzip, target);
+        log.info("Exported {} tickets of event {}", rows, eventId);
+        return rows;
+    }
+
+    private long export(String query, String eventId, String[] columns, ExportFormat format, boolean gzip,
+                        ExportTarget target) throws IOException {
+        if (!running.tryAcquire()) {
+            throw new AppException(ErrorCode.EXPORT_LIMIT_REACHED);
+        }
+        try (Connection connection = exportDataSource.getConnection();
+             Session session = sessionFactory.withOptions().connection(connection).openSession();
+             Stream<Object[]> source = session.createQuery(query, Object[].class)
+                     .setParameter("eventId", eventId)
+                     .setFetchSize(FETCH_SIZE)
+                     .setReadOnly(true)
+                     .getResultStream()) {
+            // Opened only once the query runs, so a failure before this can still be sent as an error
+            return write(source, columns, format, gzip, target.open());
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not get an export connection", e);
+        } finally {
+            running.release();
+        }
+    }
+
+    private static long write(Stream<Object[]> source, String[] columns, ExportFormat format, boolean gzip,
+                              OutputStream out) throws IOException {
+        long rows = 0;
+        try (ExportWriter writer = ExportWriter.open(out, format, gzip, columns)) {
+            for (Iterator<Object[]> it = source.iterator(); it.hasNext(); rows++) {
+                writer.row(it.next());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Where an export is written; opened once the export has its connection
+     */
+    @FunctionalInterface
+    public interface ExportTarget {
+        OutputStream open() throws IOException;
+    }
+}
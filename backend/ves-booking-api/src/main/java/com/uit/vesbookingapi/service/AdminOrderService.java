@@ -1,37 +1,51 @@
 package com.uit.vesbookingapi.service;
 
 import com.uit.vesbookingapi.dto.response.AdminOrderResponse;
-import com.uit.vesbookingapi.entity.Order;
+import com.uit.vesbookingapi.dto.response.CursorPageResponse;
 import com.uit.vesbookingapi.enums.OrderStatus;
 import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
 import com.uit.vesbookingapi.mapper.AdminOrderMapper;
 import com.uit.vesbookingapi.repository.OrderRepository;
-import jakarta.persistence.criteria.Predicate;
+import com.uit.vesbookingapi.repository.TicketRepository;
+import com.uit.vesbookingapi.utils.KeysetCursor;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class AdminOrderService {
+    private static final int MAX_SCROLL_SIZE = 100;
+
     OrderRepository orderRepository;
+    TicketRepository ticketRepository;
     AdminOrderMapper adminOrderMapper;
 
+    @NonFinal
+    @Value("${booking.admin.count-cap:10000}")
+    int countCap;
+
     /**
      * Get all orders with optional filters (Admin only)
-     * Returns rich admin response with user, event, ticket type, and tickets information
+     * Returns rich admin response with user, event, ticket type, and tickets information.
+     * A page takes a fixed number of queries whatever its size: the projected order rows,
+     * the count, and the ticket summaries of all its orders.
      */
     @PreAuthorize("hasRole('ADMIN')")
     public Page<AdminOrderResponse> getAllOrders(
@@ -40,53 +54,95 @@ public class AdminOrderService {
             OrderStatus status,
             Pageable pageable) {
 
-        Specification<Order> spec = buildSpecification(userId, eventId, status);
-        Page<Order> orderPage = orderRepository.findAll(spec, pageable);
+        Page<OrderRepository.AdminOrderView> orderPage = orderRepository.findAdminOrders(
+                emptyToNull(userId), emptyToNull(eventId), status, pageable);
+        if (orderPage.isEmpty()) {
+            return orderPage.map(order -> adminOrderMapper.toAdminOrderResponse(order, List.of()));
+        }
 
-        return orderPage.map(order -> {
-            AdminOrderResponse response = adminOrderMapper.toAdminOrderResponse(order);
-            // Set zalopayTransactionId if exists (check for appTransId or zpTransId)
-            // Note: This field may not exist in Order entity yet, so it will be null
-            return response;
-        });
+        Map<String, List<TicketRepository.TicketSummaryView>> tickets = ticketsByOrder(orderPage.getContent());
+        // zalopayTransactionId is not stored on orders yet, so it stays null
+        return orderPage.map(order ->
+                adminOrderMapper.toAdminOrderResponse(order, tickets.getOrDefault(order.getId(), List.of())));
     }
 
     /**
-     * Get order details by ID (Admin can view any order)
-     * Returns rich admin response with all related information
+     * Orders newest first, a page at a time after a cursor (Admin only).
+     * Each page seeks straight to its first row on (createdAt, id), so deep pages cost the same as
+     * the first one, and there is no COUNT unless {@code includeTotal}; that total is counted up
+     * to {@code booking.admin.count-cap} only.
+     *
+     * @param cursor nextCursor of the previous page, null for the first page
      */
     @PreAuthorize("hasRole('ADMIN')")
-    public AdminOrderResponse getOrderDetails(String orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
+    public CursorPageResponse<AdminOrderResponse> scrollOrders(
+            String userId,
+            String eventId,
+            OrderStatus status,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = Math.clamp(size, 1, MAX_SCROLL_SIZE);
+        userId = emptyToNull(userId);
+        eventId = emptyToNull(eventId);
 
-        AdminOrderResponse response = adminOrderMapper.toAdminOrderResponse(order);
-        // Set zalopayTransactionId if exists
-        // Note: This field may not exist in Order entity yet, so it will be null
-        return response;
+        List<OrderRepository.AdminOrderView> orders = orderRepository.findAdminOrdersAfter(userId, eventId, status,
+                after != null ? after.timestamp() : null, after != null ? after.id() : null, Limit.of(pageSize + 1));
+        boolean hasNext = orders.size() > pageSize;
+        if (hasNext) {
+            orders = orders.subList(0, pageSize);
+        }
+
+        Map<String, List<TicketRepository.TicketSummaryView>> tickets = ticketsByOrder(orders);
+        List<AdminOrderResponse> content = new ArrayList<>(orders.size());
+        for (OrderRepository.AdminOrderView order : orders) {
+            content.add(adminOrderMapper.toAdminOrderResponse(order, tickets.getOrDefault(order.getId(), List.of())));
+        }
+
+        CursorPageResponse.CursorPageResponseBuilder<AdminOrderResponse> page = CursorPageResponse.<AdminOrderResponse>builder()
+                .content(content)
+                .size(pageSize)
+                .hasNext(hasNext);
+        if (hasNext) {
+            OrderRepository.AdminOrderView last = orders.getLast();
+            page.nextCursor(new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+        }
+        if (includeTotal) {
+            int counted = orderRepository.findAdminOrderIds(userId, eventId, status, Limit.of(countCap + 1)).size();
+            page.approximateTotal((long) Math.min(counted, countCap)).totalCapped(counted > countCap);
+        }
+        return page.build();
     }
 
     /**
-     * Build JPA Specification for filtering orders
+     * Get order details by ID (Admin can view any order)
+     * Returns rich admin response with all related information
      */
-    private Specification<Order> buildSpecification(String userId, String eventId, OrderStatus status) {
-        return (root, query, cb) -> {
-            List<Predicate> predicates = new ArrayList<>();
+    @PreAuthorize("hasRole('ADMIN')")
+    public AdminOrderResponse getOrderDetails(String orderId) {
+        OrderRepository.AdminOrderView order = orderRepository.findAdminOrderById(orderId)
+                .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
 
-            if (userId != null && !userId.isEmpty()) {
-                predicates.add(cb.equal(root.get("user").get("id"), userId));
-            }
+        return adminOrderMapper.toAdminOrderResponse(order, ticketRepository.findSummariesByOrderIdIn(List.of(orderId)));
+    }
 
-            if (eventId != null && !eventId.isEmpty()) {
-                predicates.add(cb.equal(root.get("event").get("id"), eventId));
-            }
+    private Map<String, List<TicketRepository.TicketSummaryView>> ticketsByOrder(List<OrderRepository.AdminOrderView> orders) {
+        if (orders.isEmpty()) {
+            return Map.of();
+        }
+        List<String> orderIds = new ArrayList<>(orders.size());
+        orders.forEach(order -> orderIds.add(order.getId()));
 
-            if (status != null) {
-                predicates.add(cb.equal(root.get("status"), status));
-            }
+        Map<String, List<TicketRepository.TicketSummaryView>> tickets = new HashMap<>();
+        for (TicketRepository.TicketSummaryView ticket : ticketRepository.findSummariesByOrderIdIn(orderIds)) {
+            tickets.computeIfAbsent(ticket.getOrderId(), id -> new ArrayList<>()).add(ticket);
+        }
+        return tickets;
+    }
 
-            return cb.and(predicates.toArray(new Predicate[0]));
-        };
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
     }
 }
 
@@ -1,37 +1,57 @@
 package com.uit.vesbookingapi.service;
 
+import com.uit.vesbookingapi.dto.request.BatchCheckInRequest;
+import com.uit.vesbookingapi.dto.request.CheckInScanRequest;
 import com.uit.vesbookingapi.dto.response.AdminTicketResponse;
+import com.uit.vesbookingapi.dto.response.BatchCheckInResponse;
 import com.uit.vesbookingapi.dto.response.CheckInResponse;
+import com.uit.vesbookingapi.dto.response.CheckInScanResponse;
+import com.uit.vesbookingapi.dto.response.CursorPageResponse;
 import com.uit.vesbookingapi.entity.Ticket;
+import com.uit.vesbookingapi.enums.CheckInResult;
 import com.uit.vesbookingapi.enums.OrderStatus;
 import com.uit.vesbookingapi.enums.TicketStatus;
 import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
 import com.uit.vesbookingapi.mapper.AdminTicketMapper;
 import com.uit.vesbookingapi.repository.TicketRepository;
+import com.uit.vesbookingapi.utils.KeysetCursor;
 import jakarta.persistence.criteria.Predicate;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 @Slf4j
 public class AdminTicketService {
+    private static final int MAX_SCROLL_SIZE = 100;
+
     TicketRepository ticketRepository;
     AdminTicketMapper adminTicketMapper;
+    JdbcTemplate jdbcTemplate;
+    CheckInIndexService checkInIndexService;
+    CheckInStatsService checkInStatsService;
+
+    @NonFinal
+    @Value("${booking.admin.count-cap:10000}")
+    int countCap;
 
     /**
      * Get all tickets with optional filters (Admin, Staff, Organizer only)
@@ -50,6 +70,48 @@ public class AdminTicketService {
         return ticketPage.map(adminTicketMapper::toAdminTicketResponse);
     }
 
+    /**
+     * Tickets newest first, a page at a time after a cursor (Admin, Staff, Organizer only).
+     * Pages seek on (purchaseDate, id) instead of skipping an offset, and only count the total
+     * when asked, up to {@code booking.admin.count-cap}.
+     *
+     * @param cursor nextCursor of the previous page, null for the first page
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public CursorPageResponse<AdminTicketResponse> scrollTickets(
+            String userId,
+            String eventId,
+            TicketStatus status,
+            String cursor,
+            int size,
+            boolean includeTotal) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        int pageSize = Math.clamp(size, 1, MAX_SCROLL_SIZE);
+        userId = userId == null || userId.isEmpty() ? null : userId;
+        eventId = eventId == null || eventId.isEmpty() ? null : eventId;
+
+        List<Ticket> tickets = ticketRepository.findAdminTicketsAfter(userId, eventId, status,
+                after != null ? after.timestamp() : null, after != null ? after.id() : null, Limit.of(pageSize + 1));
+        boolean hasNext = tickets.size() > pageSize;
+        if (hasNext) {
+            tickets = tickets.subList(0, pageSize);
+        }
+
+        CursorPageResponse.CursorPageResponseBuilder<AdminTicketResponse> page = CursorPageResponse.<AdminTicketResponse>builder()
+                .content(tickets.stream().map(adminTicketMapper::toAdminTicketResponse).toList())
+                .size(pageSize)
+                .hasNext(hasNext);
+        if (hasNext) {
+            Ticket last = tickets.getLast();
+            page.nextCursor(new KeysetCursor(last.getPurchaseDate(), last.getId()).encode());
+        }
+        if (includeTotal) {
+            int counted = ticketRepository.findAdminTicketIds(userId, eventId, status, Limit.of(countCap + 1)).size();
+            page.approximateTotal((long) Math.min(counted, countCap)).totalCapped(counted > countCap);
+        }
+        return page.build();
+    }
+
     /**
      * Get ticket details by ID (Admin, Staff, Organizer can view any ticket)
      * Returns rich admin response with all related information
@@ -64,13 +126,33 @@ public class AdminTicketService {
 
     /**
      * Check in ticket via QR code (Admin, Staff, Organizer only)
-     * Validates ticket status and order completion before check-in
+     * Validates ticket status and order completion before check-in.
+     * Tickets of events with a loaded check-in index are decided in memory and written in the
+     * background; their response has no ticket details.
      */
     @Transactional
     @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
     public CheckInResponse checkInTicket(String qrCode) {
         log.info("Processing check-in request for QR code: {}", qrCode);
 
+        CheckInIndexService.Claim claim = checkInIndexService.claim(qrCode);
+        if (claim != null) {
+            if (claim.result() == CheckInResult.ALREADY_USED) {
+                log.warn("Ticket already checked in: ticketId={}", claim.ticketId());
+                throw new AppException(ErrorCode.TICKET_ALREADY_USED);
+            }
+            LocalDateTime checkInTime = LocalDateTime.now();
+            checkInIndexService.persistLater(claim.ticketId(), checkInTime);
+            checkInStatsService.recordCheckInAfterCommit(claim.eventId(), claim.ticketTypeId(), checkInTime);
+            return CheckInResponse.builder()
+                    .ticketId(claim.ticketId())
+                    .qrCode(qrCode)
+                    .status(TicketStatus.USED)
+                    .checkedInAt(checkInTime)
+                    .message("Ticket checked in successfully")
+                    .build();
+        }
+
         // 1. Find ticket by QR code
         Ticket ticket = ticketRepository.findByQrCode(qrCode)
                 .orElseThrow(() -> {
@@ -105,6 +187,7 @@ public class AdminTicketService {
         ticket.setStatus(TicketStatus.USED);
         ticket.setCheckedInAt(checkInTime);
         ticket = ticketRepository.save(ticket);
+        checkInStatsService.recordCheckInAfterCommit(ticket.getEvent().getId(), ticket.getTicketType().getId(), checkInTime);
 
         log.info("Ticket checked in successfully: ticketId={}, checkedInAt={}",
                 ticket.getId(), checkInTime);
@@ -122,6 +205,112 @@ public class AdminTicketService {
                 .build();
     }
 
+    /**
+     * Check in a batch of gate scans (Admin, Staff, Organizer only).
+     * All tickets are resolved with one IN query and every admitted scan is written in one JDBC
+     * batch of conditional UPDATEs ({@code status = 'ACTIVE'}), so a ticket scanned at two gates
+     * is admitted once. Scans uploaded after being queued offline keep their device time; when a
+     * batch holds the same code several times the earliest scan wins.
+     */
+    @Transactional
+    @PreAuthorize("hasAnyRole('ADMIN', 'STAFF', 'ORGANIZER')")
+    public BatchCheckInResponse checkInBatch(BatchCheckInRequest request) {
+        List<CheckInScanRequest> scans = request.getScans();
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, Object[]> states = new HashMap<>();
+        Set<String> qrCodes = new HashSet<>();
+        scans.forEach(scan -> qrCodes.add(scan.getQrCode()));
+        for (Object[] state : ticketRepository.findCheckInStates(qrCodes)) {
+            states.put((String) state[0], state);
+        }
+
+        // Earliest scan of each code first; a device clock ahead of the server counts as now
+        Integer[] order = new Integer[scans.size()];
+        LocalDateTime[] scannedAt = new LocalDateTime[scans.size()];
+        for (int i = 0; i < scans.size(); i++) {
+            LocalDateTime at = scans.get(i).getScannedAt();
+            scannedAt[i] = at == null || at.isAfter(now) ? now : at;
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> scannedAt[i]));
+
+        CheckInScanResponse[] results = new CheckInScanResponse[scans.size()];
+        Map<String, Integer> admitted = new HashMap<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Integer> updatedScans = new ArrayList<>();
+        for (int i : order) {
+            String qrCode = scans.get(i).getQrCode();
+            Object[] state = states.get(qrCode);
+            CheckInScanResponse.CheckInScanResponseBuilder result = CheckInScanResponse.builder().qrCode(qrCode);
+            if (state == null) {
+                results[i] = result.result(CheckInResult.NOT_FOUND).build();
+                continue;
+            }
+
+            String ticketId = (String) state[1];
+            result.ticketId(ticketId);
+            Integer first = admitted.get(qrCode);
+            if (first != null) {
+                results[i] = result.result(CheckInResult.ALREADY_USED).checkedInAt(scannedAt[first]).build();
+            } else if (request.getEventId() != null && !request.getEventId().equals(state[4])) {
+                results[i] = result.result(CheckInResult.WRONG_EVENT).build();
+            } else if (state[5] != OrderStatus.COMPLETED) {
+                results[i] = result.result(CheckInResult.ORDER_NOT_COMPLETED).build();
+            } else if (state[2] == TicketStatus.USED) {
+                results[i] = result.result(CheckInResult.ALREADY_USED).checkedInAt((LocalDateTime) state[3]).build();
+            } else if (state[2] != TicketStatus.ACTIVE) {
+                results[i] = result.result(CheckInResult.NOT_ACTIVE).build();
+            } else if (!tryClaim(qrCode)) {
+                results[i] = result.result(CheckInResult.ALREADY_USED).build();
+            } else {
+                admitted.put(qrCode, i);
+                updates.add(new Object[]{Timestamp.valueOf(scannedAt[i]), ticketId});
+                updatedScans.add(i);
+                results[i] = result.result(CheckInResult.CHECKED_IN).checkedInAt(scannedAt[i]).build();
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE ticket SET status = 'USED', checked_in_at = ? " +
+                    "WHERE id = ? AND status = 'ACTIVE'", updates);
+            for (int u = 0; u < updated.length; u++) {
+                // Lost a race with another gate between the read and the update
+                if (updated[u] == 0) {
+                    CheckInScanResponse result = results[updatedScans.get(u)];
+                    result.setResult(CheckInResult.ALREADY_USED);
+                    result.setCheckedInAt(null);
+                }
+            }
+        }
+
+        int checkedIn = 0;
+        for (CheckInScanResponse result : results) {
+            if (result.getResult() == CheckInResult.CHECKED_IN) {
+                checkedIn++;
+                Object[] state = states.get(result.getQrCode());
+                checkInStatsService.recordCheckInAfterCommit((String) state[4], (String) state[6], result.getCheckedInAt());
+            }
+        }
+        log.info("Batch check-in: {} scans, {} checked in", scans.size(), checkedIn);
+
+        return BatchCheckInResponse.builder()
+                .checkedIn(checkedIn)
+                .rejected(scans.size() - checkedIn)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    /**
+     * Mark the ticket checked in on the check-in index (given back if the transaction rolls back)
+     *
+     * @return false if the index has it checked in already, possibly not written yet
+     */
+    private boolean tryClaim(String qrCode) {
+        CheckInIndexService.Claim claim = checkInIndexService.claim(qrCode);
+        return claim == null || claim.result() != CheckInResult.ALREADY_USED;
+    }
+
     /**
      * Get ticket by QR code (Admin, Staff, Organizer only)
      * Used for looking up ticket status before check-in
@@ -11,11 +11,9 @@ import com.uit.vesbookingapi.dto.request.LogoutRequest;
 import com.uit.vesbookingapi.dto.request.RefreshRequest;
 import com.uit.vesbookingapi.dto.response.AuthenticationResponse;
 import com.uit.vesbookingapi.dto.response.IntrospectResponse;
-import com.uit.vesbookingapi.entity.InvalidatedToken;
 import com.uit.vesbookingapi.entity.User;
 import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
-import com.uit.vesbookingapi.repository.InvalidatedTokenRepository;
 import com.uit.vesbookingapi.repository.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
@@ -43,7 +41,7 @@ import java.util.stream.Collectors;
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class AuthenticationService {
     UserRepository userRepository;
-    InvalidatedTokenRepository invalidatedTokenRepository;
+    TokenRevocationService tokenRevocationService;
 
     @NonFinal
     @Value("${jwt.signerKey}")
@@ -102,10 +100,7 @@ public class AuthenticationService {
             String jit = signToken.getJWTClaimsSet().getJWTID();
             Date expiryTime = signToken.getJWTClaimsSet().getExpirationTime();
 
-            InvalidatedToken invalidatedToken =
-                    InvalidatedToken.builder().id(jit).expiryTime(expiryTime).build();
-
-            invalidatedTokenRepository.save(invalidatedToken);
+            tokenRevocationService.revoke(jit, expiryTime);
         } catch (AppException exception) {
             log.info("Token already expired");
         }
@@ -117,10 +112,7 @@ public class AuthenticationService {
         var jit = signedJWT.getJWTClaimsSet().getJWTID();
         var expiryTime = signedJWT.getJWTClaimsSet().getExpirationTime();
 
-        InvalidatedToken invalidatedToken =
-                InvalidatedToken.builder().id(jit).expiryTime(expiryTime).build();
-
-        invalidatedTokenRepository.save(invalidatedToken);
+        tokenRevocationService.revoke(jit, expiryTime);
 
         var username = signedJWT.getJWTClaimsSet().getSubject();
 
@@ -157,6 +149,7 @@ public class AuthenticationService {
                         Instant.now().plus(VALID_DURATION, ChronoUnit.SECONDS).toEpochMilli()))
                 .jwtID(UUID.randomUUID().toString())
                 .claim("scope", buildScope(user))
+                .claim(CurrentUserService.USER_ID_CLAIM, user.getId())
                 .build();
 
         Payload payload = new Payload(jwtClaimsSet.toJSONObject());
@@ -190,7 +183,7 @@ public class AuthenticationService {
 
         if (!(verified && expiryTime.after(new Date()))) throw new AppException(ErrorCode.UNAUTHENTICATED);
 
-        if (invalidatedTokenRepository.existsById(signedJWT.getJWTClaimsSet().getJWTID()))
+        if (tokenRevocationService.isRevoked(signedJWT.getJWTClaimsSet().getJWTID()))
             throw new AppException(ErrorCode.UNAUTHENTICATED);
 
         return signedJWT;
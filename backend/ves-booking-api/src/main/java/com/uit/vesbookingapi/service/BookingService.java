@@ -4,6 +4,7 @@ import com.uit.vesbookingapi.dto.request.PurchaseRequest;
 import com.uit.vesbookingapi.dto.response.PurchaseResponse;
 import com.uit.vesbookingapi.entity.*;
 import com.uit.vesbookingapi.enums.OrderStatus;
+import com.uit.vesbookingapi.enums.SeatStatus;
 import com.uit.vesbookingapi.enums.TicketStatus;
 import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
@@ -13,10 +14,7 @@ import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -34,23 +32,42 @@ public class BookingService {
     EventRepository eventRepository;
     TicketTypeRepository ticketTypeRepository;
     SeatRepository seatRepository;
-    UserRepository userRepository;
+    CurrentUserService currentUserService;
     VoucherRepository voucherRepository;
+    VoucherCatalogService voucherCatalogService;
+    VoucherQuotaService voucherQuotaService;
     OrderMapper orderMapper;
+    SeatInventoryService seatInventoryService;
+    TicketAvailabilityService ticketAvailabilityService;
+    EventPopularityService eventPopularityService;
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional
     public PurchaseResponse purchaseTickets(PurchaseRequest request) {
         log.info("Processing ticket purchase request: eventId={}, ticketTypeId={}, quantity={}",
                 request.getEventId(), request.getTicketTypeId(), request.getQuantity());
 
+        Order order = placeOrder(request, OrderStatus.COMPLETED, LocalDateTime.now());
+
+        log.info("Ticket purchase successful: orderId={}", order.getId());
+
+        return orderMapper.toPurchaseResponse(order);
+    }
+
+    /**
+     * Claim seats and quantity and create the order with its tickets.
+     * A COMPLETED order is paid immediately; a PENDING order holds its seats until {@code expiresAt}.
+     * Must run inside a transaction.
+     */
+    public Order placeOrder(PurchaseRequest request, OrderStatus status, LocalDateTime expiresAt) {
+
         // Get current user
-        User currentUser = getCurrentUser();
+        User currentUser = currentUserService.getCurrentUserReference();
 
         // 1. Validate event exists
         Event event = eventRepository.findById(request.getEventId())
                 .orElseThrow(() -> new AppException(ErrorCode.EVENT_NOT_FOUND));
 
-        // 2. Validate and lock ticket type
+        // 2. Validate ticket type
         TicketType ticketType = ticketTypeRepository.findById(request.getTicketTypeId())
                 .orElseThrow(() -> new AppException(ErrorCode.TICKET_TYPE_NOT_FOUND));
 
@@ -59,16 +76,14 @@ public class BookingService {
             throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
         }
 
-        // 4. Check ticket availability
-        if (ticketType.getAvailable() < request.getQuantity()) {
-            throw new AppException(ErrorCode.TICKETS_UNAVAILABLE);
-        }
-
-        // 5. Check max per order limit
+        // 4. Check max per order limit
         if (ticketType.getMaxPerOrder() != null && request.getQuantity() > ticketType.getMaxPerOrder()) {
             throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
         }
 
+        // 5. Take quantity from the in-memory availability (given back on rollback)
+        ticketAvailabilityService.acquire(ticketType.getId(), request.getQuantity());
+
         // 6. Handle seat selection if required
         List<Seat> selectedSeats = new ArrayList<>();
         if (ticketType.getRequiresSeatSelection()) {
@@ -80,25 +95,18 @@ public class BookingService {
                 throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
             }
 
-            // Check seats are available with pessimistic locking to prevent double booking
-            List<String> occupiedSeats = ticketRepository.findOccupiedSeatIdsWithLock(
-                    request.getEventId(),
-                    request.getSeatIds()
-            );
+            // Claim seats in the in-memory inventory (released automatically on rollback)
+            seatInventoryService.claimSeats(request.getEventId(), request.getSeatIds(),
+                    status == OrderStatus.COMPLETED ? SeatStatus.SOLD : SeatStatus.RESERVED);
 
-            if (!occupiedSeats.isEmpty()) {
-                throw new AppException(ErrorCode.SEAT_ALREADY_TAKEN);
-            }
-
-            // Load seat entities
-            selectedSeats = seatRepository.findAllById(request.getSeatIds());
-            if (selectedSeats.size() != request.getSeatIds().size()) {
-                throw new AppException(ErrorCode.SEAT_NOT_FOUND);
-            }
+            // Seats are validated against the venue by the inventory, so references are enough
+            selectedSeats = request.getSeatIds().stream()
+                    .map(seatRepository::getReferenceById)
+                    .toList();
         }
 
         // 7. Validate voucher if provided
-        Voucher voucher = null;
+        VoucherCatalogService.VoucherRule voucher = null;
         int discount = 0;
 
         if (request.getVoucherCode() != null && !request.getVoucherCode().trim().isEmpty()) {
@@ -107,7 +115,7 @@ public class BookingService {
                     event,
                     ticketType.getPrice() * request.getQuantity()
             );
-            discount = calculateVoucherDiscount(voucher, ticketType.getPrice() * request.getQuantity());
+            discount = voucher.discountFor(ticketType.getPrice() * request.getQuantity());
         }
 
         // 8. Calculate pricing
@@ -124,25 +132,24 @@ public class BookingService {
                 .discount(discount)
                 .total(total)
                 .currency(ticketType.getCurrency())
-                .voucher(voucher)
-                .status(OrderStatus.COMPLETED)
+                .voucher(voucher != null ? voucherRepository.getReferenceById(voucher.id()) : null)
+                .status(status)
                 .paymentMethod(request.getPaymentMethod())
                 .paymentUrl(generatePaymentUrl())
-                .expiresAt(LocalDateTime.now())
-                .completedAt(LocalDateTime.now())
+                .expiresAt(expiresAt)
+                .completedAt(status == OrderStatus.COMPLETED ? LocalDateTime.now() : null)
                 .build();
 
         order = orderRepository.save(order);
         log.info("Order created: orderId={}, total={}", order.getId(), order.getTotal());
 
-        // Increment voucher usage count if voucher was applied
+        // Use the voucher (atomically, given back if the order rolls back)
         if (voucher != null) {
-            voucher.setUsedCount(voucher.getUsedCount() + 1);
-            voucherRepository.save(voucher);
-            log.info("Voucher usage incremented: code={}, usedCount={}", voucher.getCode(), voucher.getUsedCount());
+            voucherQuotaService.redeem(voucher);
+            log.info("Voucher redeemed: code={}", request.getVoucherCode());
         }
 
-        // 10. Create tickets (reserved state)
+        // 10. Create tickets (a PENDING order keeps its seats reserved until it expires)
         List<Ticket> tickets = new ArrayList<>();
         for (int i = 0; i < request.getQuantity(); i++) {
             Seat seat = ticketType.getRequiresSeatSelection() ? selectedSeats.get(i) : null;
@@ -155,96 +162,68 @@ public class BookingService {
                     .seat(seat)
                     .qrCode(generateQrCode())
                     .qrCodeImage(null) // Generate image later
-                    .status(TicketStatus.ACTIVE) // Mark as ACTIVE for completed orders
+                    .status(TicketStatus.ACTIVE) // Sold for COMPLETED orders, reserved for PENDING ones
                     .purchaseDate(LocalDateTime.now())
                     .build();
 
             tickets.add(ticket);
         }
 
-        ticketRepository.saveAll(tickets);
+        if (ticketType.getRequiresSeatSelection()) {
+            // Flushed here so a seat another node sold surfaces as SEAT_ALREADY_TAKEN
+            try {
+                ticketRepository.saveAllAndFlush(tickets);
+            } catch (RuntimeException e) {
+                throw seatInventoryService.seatConflict(event.getId(), e);
+            }
+        } else {
+            ticketRepository.saveAll(tickets);
+        }
         log.info("Created {} tickets for order {}", tickets.size(), order.getId());
 
-        // 11. Decrement available count (optimistic lock will prevent overselling)
-        ticketType.setAvailable(ticketType.getAvailable() - request.getQuantity());
-        ticketTypeRepository.save(ticketType);
-
-        log.info("Ticket purchase successful: orderId={}", order.getId());
-
-        return orderMapper.toPurchaseResponse(order);
-    }
+        if (status == OrderStatus.COMPLETED) {
+            eventPopularityService.recordSalesAfterCommit(event.getId(), request.getQuantity());
+        }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED));
+        return order;
     }
 
-    private Voucher validateAndApplyVoucher(String code, Event event, int orderAmount) {
-        Voucher voucher = voucherRepository.findByCode(code)
+    /**
+     * Check a voucher code against an order from the voucher catalog (no database access)
+     */
+    VoucherCatalogService.VoucherRule validateAndApplyVoucher(String code, Event event, int orderAmount) {
+        VoucherCatalogService.VoucherRule voucher = voucherCatalogService.find(code)
                 .orElseThrow(() -> new AppException(ErrorCode.VOUCHER_NOT_FOUND));
 
-        LocalDateTime now = LocalDateTime.now();
-
-        // Check voucher validity period
-        if (now.isBefore(voucher.getStartDate()) || now.isAfter(voucher.getEndDate())) {
+        // Check voucher validity period and discount
+        if (!voucher.isActive(System.currentTimeMillis()) || voucher.invalidDiscount() != null) {
             throw new AppException(ErrorCode.VOUCHER_INVALID);
         }
 
-        // Check usage limit
-        if (voucher.getUsageLimit() != null && voucher.getUsedCount() >= voucher.getUsageLimit()) {
+        // Check usage limit (enforced atomically when the voucher is redeemed)
+        if (voucherQuotaService.isUsedUp(voucher)) {
             throw new AppException(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
         }
 
         // Check minimum order amount
-        if (voucher.getMinOrderAmount() != null && orderAmount < voucher.getMinOrderAmount()) {
+        if (!voucher.meetsMinOrder(orderAmount)) {
             throw new AppException(ErrorCode.VOUCHER_MIN_ORDER_NOT_MET);
         }
 
         // Check if voucher is applicable to this event/category
-        if (voucher.getApplicableEvents() != null && !voucher.getApplicableEvents().isEmpty()) {
-            boolean isApplicable = voucher.getApplicableEvents().contains(event.getId());
-            if (!isApplicable) {
-                throw new AppException(ErrorCode.VOUCHER_NOT_APPLICABLE);
-            }
-        }
-
-        if (voucher.getApplicableCategories() != null && !voucher.getApplicableCategories().isEmpty()) {
-            boolean isApplicable = voucher.getApplicableCategories().contains(event.getCategory().getSlug());
-            if (!isApplicable) {
-                throw new AppException(ErrorCode.VOUCHER_NOT_APPLICABLE);
-            }
+        String categorySlug = event.getCategory() != null ? event.getCategory().getSlug() : null;
+        if (!voucher.appliesTo(event.getId(), categorySlug)) {
+            throw new AppException(ErrorCode.VOUCHER_NOT_APPLICABLE);
         }
 
         return voucher;
     }
 
-    private int calculateVoucherDiscount(Voucher voucher, int orderAmount) {
-        int discount = 0;
-
-        switch (voucher.getDiscountType()) {
-            case PERCENTAGE:
-                discount = (int) (orderAmount * voucher.getDiscountValue() / 100.0);
-                break;
-            case FIXED_AMOUNT:
-                discount = voucher.getDiscountValue();
-                break;
-        }
-
-        // Apply max discount cap if exists
-        if (voucher.getMaxDiscount() != null && discount > voucher.getMaxDiscount()) {
-            discount = voucher.getMaxDiscount();
-        }
-
-        return Math.min(discount, orderAmount); // Discount cannot exceed order amount
-    }
-
-    private String generatePaymentUrl() {
+    String generatePaymentUrl() {
         return "http://ves-booking.io.vn/payments/order/" + UUID.randomUUID();
     }
 
-    private String generateQrCode() {
+    String generateQrCode() {
         return "VES" + UUID.randomUUID().toString().replace("-", "").substring(0, 12).toUpperCase();
     }
 }
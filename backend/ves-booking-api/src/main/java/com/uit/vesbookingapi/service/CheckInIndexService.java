@@ -0,0 +1,319 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.CheckInIndexResponse;
+import com.uit.vesbookingapi.enums.CheckInResult;
+import com.uit.vesbookingapi.enums.OrderStatus;
+import com.uit.vesbookingapi.enums.TicketStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Per-event check-in index for the rush at the gates.
+ * Loading an event (before doors open) reads all its tickets once into QR code -> slot, with the
+ * ticket id and a state per slot; a scan is then a hash lookup and a compare-and-set ACTIVE -> USED,
+ * so a second scan of the same ticket is rejected without touching the database. Admitted scans
+ * are written to the ticket rows in JDBC batches every {@code booking.check-in.flush-ms}.
+ * <p>
+ * The index only decides for tickets that were ACTIVE (completed order) or USED when it was loaded;
+ * tickets bought later, and anything that was pending or cancelled, are left to the database.
+ * Indexes are per node. Every {@code booking.check-in.sync-ms} each index re-reads the tickets of
+ * its event cancelled or checked in since its last sync, so a refund or a scan made on another node
+ * reaches it within that interval; the database stays the authority (a write that finds the ticket
+ * no longer ACTIVE is logged).
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class CheckInIndexService {
+    private static final int STALE = 0;
+    private static final int ACTIVE = 1;
+    private static final int USED = 2;
+
+    // Re-read with the changes since the last sync, for commits that were late or clocks that are off
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private static final String CHECK_IN_SQL =
+            "UPDATE ticket SET status = 'USED', checked_in_at = ? WHERE id = ? AND status = 'ACTIVE'";
+
+    TicketRepository ticketRepository;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+    TransactionTemplate readOnlyTransaction;
+    int flushBatchSize;
+
+    Map<String, EventIndex> indexes = new ConcurrentHashMap<>();
+    Queue<PendingCheckIn> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    public CheckInIndexService(
+            TicketRepository ticketRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.check-in.flush-batch-size:1000}") int flushBatchSize) {
+        this.ticketRepository = ticketRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    /**
+     * Load (or reload) the index of an event; check-ins already made here are kept
+     */
+    public CheckInIndexResponse load(String eventId) {
+        // Reload from rows that include the check-ins this node still has to write
+        flush();
+        LocalDateTime readAt = LocalDateTime.now();
+        List<Object[]> rows = readOnlyTransaction.execute(status -> ticketRepository.findCheckInStatesByEventId(eventId));
+        EventIndex index = new EventIndex(eventId, rows, readAt);
+
+        EventIndex previous = indexes.put(eventId, index);
+        if (previous != null) {
+            previous.slots.forEach((qrCode, slot) -> {
+                if (previous.states.get(slot) == USED) {
+                    index.markUsed(qrCode);
+                }
+            });
+        }
+        log.info("Check-in index of event {} loaded: {} tickets", eventId, index.ticketIds.length);
+        return stats(index);
+    }
+
+    public void unload(String eventId) {
+        indexes.remove(eventId);
+        log.info("Check-in index of event {} unloaded", eventId);
+    }
+
+    public CheckInIndexResponse getStats(String eventId) {
+        EventIndex index = indexes.get(eventId);
+        if (index == null) {
+            throw new AppException(ErrorCode.CHECK_IN_INDEX_NOT_LOADED);
+        }
+        return stats(index);
+    }
+
+    /**
+     * Claim a scan against the loaded indexes. A CHECKED_IN claim is given back if the current
+     * transaction rolls back; the caller persists it, or calls {@link #persistLater}.
+     *
+     * @return CHECKED_IN or ALREADY_USED, null if no index decides this QR code
+     */
+    public Claim claim(String qrCode) {
+        for (EventIndex index : indexes.values()) {
+            Integer slot = index.slots.get(qrCode);
+            if (slot == null) {
+                continue;
+            }
+            if (index.states.compareAndSet(slot, ACTIVE, USED)) {
+                if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                index.states.compareAndSet(slot, USED, ACTIVE);
+                            }
+                        }
+                    });
+                }
+                return index.claim(slot, CheckInResult.CHECKED_IN);
+            }
+            if (index.states.get(slot) == USED) {
+                return index.claim(slot, CheckInResult.ALREADY_USED);
+            }
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Write a claimed check-in with the first flush after the current transaction commits
+     */
+    public void persistLater(String ticketId, LocalDateTime checkedInAt) {
+        PendingCheckIn pending = new PendingCheckIn(ticketId, checkedInAt);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingWrites.add(pending);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingWrites.add(pending);
+            }
+        });
+    }
+
+    /**
+     * Leave a ticket that is about to change (e.g. be cancelled) to the database
+     *
+     * @return false if the ticket was already checked in here
+     */
+    public boolean release(String qrCode) {
+        for (EventIndex index : indexes.values()) {
+            Integer slot = index.slots.get(qrCode);
+            if (slot != null) {
+                index.states.compareAndSet(slot, ACTIVE, STALE);
+                return index.states.get(slot) != USED;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Apply tickets cancelled or checked in since the last sync, on any node, to the loaded indexes
+     */
+    @Scheduled(fixedDelayString = "${booking.check-in.sync-ms:1000}")
+    public void sync() {
+        for (EventIndex index : indexes.values()) {
+            try {
+                LocalDateTime readAt = LocalDateTime.now();
+                LocalDateTime since = index.syncedUntil.minus(SYNC_OVERLAP);
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    ticketRepository.findQrCodesCancelledSince(index.eventId, since).forEach(index::markCancelled);
+                    ticketRepository.findQrCodesCheckedInSince(index.eventId, since).forEach(index::markUsed);
+                });
+                index.syncedUntil = readAt;
+            } catch (RuntimeException e) {
+                log.warn("Could not sync the check-in index of event {}", index.eventId, e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${booking.check-in.flush-ms:500}")
+    public void flush() {
+        // Only what is queued now; failed batches go back to the queue for the next flush
+        int queued = pendingWrites.size();
+        List<PendingCheckIn> batch = new ArrayList<>(Math.min(flushBatchSize, queued));
+        PendingCheckIn pending;
+        while (queued-- > 0 && (pending = pendingWrites.poll()) != null) {
+            batch.add(pending);
+            if (batch.size() == flushBatchSize) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<PendingCheckIn> batch) {
+        List<Object[]> args = new ArrayList<>(batch.size());
+        for (PendingCheckIn pending : batch) {
+            args.add(new Object[]{Timestamp.valueOf(pending.checkedInAt()), pending.ticketId()});
+        }
+        try {
+            int[] updated = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(CHECK_IN_SQL, args));
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    log.warn("Check-in of ticket {} not written, the ticket is no longer active", batch.get(i).ticketId());
+                }
+            }
+            log.debug("Wrote {} check-ins", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not write {} check-ins, keeping them in memory", batch.size(), e);
+            pendingWrites.addAll(batch);
+        }
+    }
+
+    private CheckInIndexResponse stats(EventIndex index) {
+        int checkedIn = 0;
+        for (int slot = 0; slot < index.ticketIds.length; slot++) {
+            if (index.states.get(slot) == USED) {
+                checkedIn++;
+            }
+        }
+        return CheckInIndexResponse.builder()
+                .eventId(index.eventId)
+                .tickets(index.ticketIds.length)
+                .checkedIn(checkedIn)
+                .loadedAt(index.loadedAt)
+                .build();
+    }
+
+    /**
+     * Outcome of a scan decided by an index
+     */
+    public record Claim(String eventId, String ticketId, String ticketTypeId, CheckInResult result) {
+    }
+
+    private record PendingCheckIn(String ticketId, LocalDateTime checkedInAt) {
+    }
+
+    private static final class EventIndex {
+        final String eventId;
+        final LocalDateTime loadedAt;
+        // Read-only once built
+        final Map<String, Integer> slots;
+        final String[] ticketIds;
+        final String[] ticketTypeIds;
+        final AtomicIntegerArray states;
+        // Changes before this are in the index; only touched by load and sync
+        volatile LocalDateTime syncedUntil;
+
+        EventIndex(String eventId, List<Object[]> rows, LocalDateTime readAt) {
+            this.eventId = eventId;
+            this.loadedAt = readAt;
+            this.syncedUntil = readAt;
+            this.slots = new HashMap<>(rows.size() * 4 / 3 + 1);
+            this.ticketIds = new String[rows.size()];
+            this.ticketTypeIds = new String[rows.size()];
+            this.states = new AtomicIntegerArray(rows.size());
+            for (int slot = 0; slot < rows.size(); slot++) {
+                Object[] row = rows.get(slot);
+                slots.put((String) row[0], slot);
+                ticketIds[slot] = (String) row[1];
+                ticketTypeIds[slot] = (String) row[4];
+                if (row[2] == TicketStatus.USED) {
+                    states.set(slot, USED);
+                } else if (row[2] == TicketStatus.ACTIVE && row[3] == OrderStatus.COMPLETED) {
+                    states.set(slot, ACTIVE);
+                }
+            }
+        }
+
+        Claim claim(int slot, CheckInResult result) {
+            return new Claim(eventId, ticketIds[slot], ticketTypeIds[slot], result);
+        }
+
+        void markUsed(String qrCode) {
+            Integer slot = slots.get(qrCode);
+            if (slot != null) {
+                states.set(slot, USED);
+            }
+        }
+
+        // A ticket checked in here before it was cancelled elsewhere stays USED
+        void markCancelled(String qrCode) {
+            Integer slot = slots.get(qrCode);
+            if (slot != null) {
+                states.compareAndSet(slot, ACTIVE, STALE);
+            }
+        }
+    }
+}
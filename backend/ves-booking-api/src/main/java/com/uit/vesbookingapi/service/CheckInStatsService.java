@@ -0,0 +1,299 @@
+package com.uit.vesbookingapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uit.vesbookingapi.dto.response.CheckInMinuteResponse;
+import com.uit.vesbookingapi.dto.response.CheckInStatsResponse;
+import com.uit.vesbookingapi.dto.response.TicketTypeCheckInResponse;
+import com.uit.vesbookingapi.enums.TicketStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.TicketRepository;
+import com.uit.vesbookingapi.utils.SseFanOut;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live check-in counts of events, for gate dashboards.
+ * An event is tracked from the first time its stats are asked for: totals per ticket type and a
+ * per-minute entry histogram (the last {@code booking.check-in.histogram-minutes} minutes with
+ * entries) are read with two GROUP BY queries, then every check-in on this node
+ * bumps them in memory. Tracked events are re-read from the database every
+ * {@code booking.check-in.stats-refresh-ms} (which picks up purchases, cancellations and other
+ * nodes' check-ins) and dropped once nobody has looked at them for {@code stats-idle-ms}.
+ * <p>
+ * Stream subscribers get a full snapshot ({@code event: check-in}) at most every
+ * {@code booking.check-in.stats-push-ms}, only when something changed, through {@link SseFanOut};
+ * a dashboard still busy receiving the previous snapshot only gets the latest one after it.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class CheckInStatsService {
+    private static final String EVENT_NAME = "check-in";
+
+    TicketRepository ticketRepository;
+    CheckInIndexService checkInIndexService;
+    ObjectMapper objectMapper;
+    TransactionTemplate readOnlyTransaction;
+    Map<String, EventStats> events = new ConcurrentHashMap<>();
+    SseFanOut fanOut;
+    int maxMinutes;
+    long idleMillis;
+
+    public CheckInStatsService(
+            TicketRepository ticketRepository,
+            CheckInIndexService checkInIndexService,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.check-in.max-stream-subscribers:1000}") int maxSubscribers,
+            @Value("${booking.check-in.histogram-minutes:1440}") int maxMinutes,
+            @Value("${booking.check-in.stats-idle-ms:600000}") long idleMillis,
+            @Value("${booking.check-in.stream-timeout-ms:1800000}") long timeoutMs) {
+        this.ticketRepository = ticketRepository;
+        this.checkInIndexService = checkInIndexService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // One queued snapshot per dashboard: a newer one replaces it
+        this.fanOut = new SseFanOut("check-in stream", maxSubscribers, 1, SseFanOut.WhenFull.DROP_OLDEST, timeoutMs);
+        this.maxMinutes = maxMinutes;
+        this.idleMillis = idleMillis;
+    }
+
+    public CheckInStatsResponse getStats(String eventId) {
+        return snapshot(track(eventId));
+    }
+
+    /**
+     * Open a stream of the check-in stats of an event, starting with the current snapshot
+     */
+    public SseEmitter subscribe(String eventId) {
+        SseFanOut.Subscriber subscriber = fanOut.subscribe(eventId);
+        if (subscriber == null) {
+            throw new AppException(ErrorCode.CHECK_IN_STREAM_FULL);
+        }
+
+        try {
+            subscriber.send(encode(snapshot(track(eventId))));
+            subscriber.start(Long.MIN_VALUE);
+        } catch (IOException | RuntimeException e) {
+            subscriber.cancel();
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Could not start check-in stream", e);
+        }
+        return subscriber.emitter();
+    }
+
+    /**
+     * Count a check-in once the current transaction commits; ignored for events nobody is watching
+     */
+    public void recordCheckInAfterCommit(String eventId, String ticketTypeId, LocalDateTime checkedInAt) {
+        if (!events.containsKey(eventId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordCheckIn(eventId, ticketTypeId, checkedInAt);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordCheckIn(eventId, ticketTypeId, checkedInAt);
+            }
+        });
+    }
+
+    /**
+     * Send a snapshot of every changed event to its subscribers
+     */
+    @Scheduled(fixedDelayString = "${booking.check-in.stats-push-ms:1000}")
+    public void push() {
+        for (String eventId : fanOut.topics()) {
+            EventStats stats = events.get(eventId);
+            if (stats != null && stats.changed.compareAndSet(true, false)) {
+                fanOut.publish(eventId, encode(snapshot(stats)));
+            }
+        }
+    }
+
+    /**
+     * Re-read tracked events from the database, and stop tracking the ones nobody looks at
+     */
+    @Scheduled(fixedDelayString = "${booking.check-in.stats-refresh-ms:30000}",
+            initialDelayString = "${booking.check-in.stats-refresh-ms:30000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        for (EventStats stats : events.values()) {
+            if (!fanOut.hasSubscribers(stats.eventId) && now - stats.lastViewed > idleMillis) {
+                events.remove(stats.eventId, stats);
+                continue;
+            }
+            try {
+                EventStats reloaded = load(stats.eventId);
+                reloaded.lastViewed = stats.lastViewed;
+                events.replace(stats.eventId, stats, reloaded);
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh check-in stats of event {}, keeping the current ones", stats.eventId, e);
+            }
+        }
+    }
+
+    /**
+     * Comment frame to idle subscribers, so dead connections are noticed and proxies keep idle streams open
+     */
+    @Scheduled(fixedDelayString = "${booking.check-in.heartbeat-ms:15000}")
+    public void heartbeat() {
+        fanOut.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    private EventStats track(String eventId) {
+        EventStats stats = events.get(eventId);
+        if (stats == null) {
+            // Loaded outside the map so a slow query does not block other events
+            EventStats loaded = load(eventId);
+            stats = Objects.requireNonNullElse(events.putIfAbsent(eventId, loaded), loaded);
+        }
+        stats.lastViewed = System.currentTimeMillis();
+        return stats;
+    }
+
+    private EventStats load(String eventId) {
+        // Count the check-ins this node has not written yet
+        checkInIndexService.flush();
+        return readOnlyTransaction.execute(status -> {
+            EventStats stats = new EventStats(eventId);
+            for (Object[] row : ticketRepository.countCheckInStatesByEventId(eventId)) {
+                TicketTypeStats type = stats.ticketTypes.computeIfAbsent((String) row[0], id -> new TicketTypeStats((String) row[1]));
+                int count = ((Long) row[3]).intValue();
+                type.total.addAndGet(count);
+                if (row[2] == TicketStatus.USED) {
+                    type.checkedIn.addAndGet(count);
+                }
+            }
+            for (Object[] row : ticketRepository.countCheckInsPerMinuteByEventId(eventId, Limit.of(maxMinutes))) {
+                LocalDateTime minute = LocalDateTime.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(),
+                        ((Number) row[2]).intValue(), ((Number) row[3]).intValue(), ((Number) row[4]).intValue());
+                stats.entriesPerMinute.put(minute, new AtomicInteger(((Number) row[5]).intValue()));
+            }
+            return stats;
+        });
+    }
+
+    private void recordCheckIn(String eventId, String ticketTypeId, LocalDateTime checkedInAt) {
+        EventStats stats = events.get(eventId);
+        if (stats == null) {
+            return;
+        }
+        TicketTypeStats type = stats.ticketTypes.get(ticketTypeId);
+        if (type == null) {
+            // Bought after the stats were read; counted by the next refresh
+            return;
+        }
+        type.checkedIn.incrementAndGet();
+        stats.recordEntry(checkedInAt, maxMinutes);
+        stats.changed.set(true);
+    }
+
+    private CheckInStatsResponse snapshot(EventStats stats) {
+        int total = 0;
+        int checkedIn = 0;
+        List<TicketTypeCheckInResponse> ticketTypes = new ArrayList<>(stats.ticketTypes.size());
+        for (Map.Entry<String, TicketTypeStats> entry : stats.ticketTypes.entrySet()) {
+            TicketTypeStats type = entry.getValue();
+            int typeTotal = type.total.get();
+            int typeCheckedIn = type.checkedIn.get();
+            total += typeTotal;
+            checkedIn += typeCheckedIn;
+            ticketTypes.add(TicketTypeCheckInResponse.builder()
+                    .ticketTypeId(entry.getKey())
+                    .name(type.name)
+                    .total(typeTotal)
+                    .checkedIn(typeCheckedIn)
+                    .remaining(Math.max(0, typeTotal - typeCheckedIn))
+                    .build());
+        }
+        ticketTypes.sort(Comparator.comparing(TicketTypeCheckInResponse::getName, Comparator.nullsLast(Comparator.naturalOrder())));
+
+        List<CheckInMinuteResponse> entriesPerMinute = new ArrayList<>(stats.entriesPerMinute.size());
+        stats.entriesPerMinute.forEach((minute, entries) -> entriesPerMinute.add(CheckInMinuteResponse.builder()
+                .minute(minute)
+                .entries(entries.get())
+                .build()));
+
+        return CheckInStatsResponse.builder()
+                .eventId(stats.eventId)
+                .total(total)
+                .checkedIn(checkedIn)
+                .remaining(Math.max(0, total - checkedIn))
+                .ticketTypes(ticketTypes)
+                .entriesPerMinute(entriesPerMinute)
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private SseFanOut.Frame encode(CheckInStatsResponse stats) {
+        try {
+            return SseFanOut.Frame.of(0, "event:" + EVENT_NAME + "\ndata:" + objectMapper.writeValueAsString(stats) + "\n\n");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize check-in stats", e);
+        }
+    }
+
+    private static final class EventStats {
+        final String eventId;
+        final Map<String, TicketTypeStats> ticketTypes = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<LocalDateTime, AtomicInteger> entriesPerMinute = new ConcurrentSkipListMap<>();
+        final AtomicBoolean changed = new AtomicBoolean(true);
+        volatile long lastViewed = System.currentTimeMillis();
+
+        EventStats(String eventId) {
+            this.eventId = eventId;
+        }
+
+        void recordEntry(LocalDateTime checkedInAt, int maxMinutes) {
+            entriesPerMinute.computeIfAbsent(checkedInAt.truncatedTo(ChronoUnit.MINUTES), minute -> new AtomicInteger())
+                    .incrementAndGet();
+            while (entriesPerMinute.size() > maxMinutes) {
+                entriesPerMinute.pollFirstEntry();
+            }
+        }
+    }
+
+    private static final class TicketTypeStats {
+        final String name;
+        final AtomicInteger total = new AtomicInteger();
+        final AtomicInteger checkedIn = new AtomicInteger();
+
+        TicketTypeStats(String name) {
+            this.name = name;
+        }
+    }
+}
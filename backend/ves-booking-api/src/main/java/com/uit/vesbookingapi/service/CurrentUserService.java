@@ -0,0 +1,180 @@
+package com.uit.vesbookingapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uit.vesbookingapi.entity.DeletedUser;
+import com.uit.vesbookingapi.entity.User;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.DeletedUserRepository;
+import com.uit.vesbookingapi.repository.UserRepository;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.Date;
+
+/**
+ * Resolves the authenticated user without a database round trip.
+ * Tokens carry the user id in the {@value #USER_ID_CLAIM} claim; for tokens issued before
+ * that claim existed the id is looked up by username once and kept in a bounded LRU
+ * (and memoized for the rest of the request). Deleted users are remembered for the
+ * lifetime of a token so their still valid tokens no longer resolve; deletions are recorded in
+ * {@code deleted_user} and synced every {@code booking.auth.revocation-sync-ms}, so other nodes
+ * answer USER_NOT_EXISTED too instead of failing on the missing row.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class CurrentUserService {
+    public static final String USER_ID_CLAIM = "userId";
+    private static final String REQUEST_ATTRIBUTE = CurrentUserService.class.getName() + ".userId";
+
+    UserRepository userRepository;
+    DeletedUserRepository deletedUserRepository;
+    TransactionTemplate transactionTemplate;
+    Cache<String, String> userIdByUsername;
+    Cache<String, Boolean> deletedUserIds;
+    long validDuration;
+
+    public CurrentUserService(
+            UserRepository userRepository,
+            DeletedUserRepository deletedUserRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.auth.principal-cache-size:10000}") long principalCacheSize,
+            @Value("${jwt.valid-duration}") long validDuration) {
+        this.userRepository = userRepository;
+        this.deletedUserRepository = deletedUserRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validDuration = validDuration;
+        this.userIdByUsername = Caffeine.newBuilder()
+                .maximumSize(principalCacheSize)
+                .build();
+        this.deletedUserIds = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(validDuration))
+                .build();
+    }
+
+    /**
+     * Id of the authenticated user
+     *
+     * @throws AppException UNAUTHENTICATED if nobody is logged in, USER_NOT_EXISTED if the user is gone
+     */
+    public String getCurrentUserId() {
+        String userId = findCurrentUserId();
+        if (userId == null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            throw new AppException(isAuthenticated(authentication) ? ErrorCode.USER_NOT_EXISTED : ErrorCode.UNAUTHENTICATED);
+        }
+        return userId;
+    }
+
+    /**
+     * Id of the authenticated user, null for anonymous requests (public endpoints)
+     */
+    public String findCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!isAuthenticated(authentication)) {
+            return null;
+        }
+
+        String userId = resolve(authentication);
+        return userId != null && deletedUserIds.getIfPresent(userId) == null ? userId : null;
+    }
+
+    /**
+     * Lazy reference to the authenticated user, for setting associations without loading the row
+     */
+    public User getCurrentUserReference() {
+        return userRepository.getReferenceById(getCurrentUserId());
+    }
+
+    /**
+     * Forget what is cached for a user (username changed or user deleted)
+     */
+    public void evict(String username) {
+        if (username != null) {
+            userIdByUsername.invalidate(username);
+        }
+    }
+
+    /**
+     * Stop resolving a deleted user, even from tokens that carry its id; other nodes follow after the next sync
+     */
+    public void userDeleted(String userId, String username) {
+        deletedUserRepository.save(DeletedUser.builder().id(userId).deletedAt(new Date()).build());
+        deletedUserIds.put(userId, Boolean.TRUE);
+        evict(username);
+    }
+
+    /**
+     * Pick up users deleted on other nodes, and drop the records no token can outlive any more
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${booking.auth.revocation-sync-ms:30000}",
+            initialDelayString = "${booking.auth.revocation-sync-ms:30000}")
+    public void syncDeletedUsers() {
+        Date cutoff = new Date(System.currentTimeMillis() - validDuration * 1000);
+        try {
+            for (String userId : deletedUserRepository.findIdsDeletedAfter(cutoff)) {
+                if (deletedUserIds.asMap().putIfAbsent(userId, Boolean.TRUE) == null) {
+                    userIdByUsername.asMap().values().removeIf(userId::equals);
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> deletedUserRepository.deleteDeletedBefore(cutoff));
+        } catch (RuntimeException e) {
+            log.warn("Could not sync deleted users", e);
+        }
+    }
+
+    private String resolve(Authentication authentication) {
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication) {
+            String userId = jwtAuthentication.getToken().getClaimAsString(USER_ID_CLAIM);
+            if (userId != null) {
+                return userId;
+            }
+        }
+
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes != null) {
+            Object memoized = requestAttributes.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (memoized instanceof String userId) {
+                return userId;
+            }
+        }
+
+        String username = authentication.getName();
+        String userId = userIdByUsername.getIfPresent(username);
+        if (userId == null) {
+            userId = userRepository.findByUsername(username).map(User::getId).orElse(null);
+            if (userId != null) {
+                userIdByUsername.put(username, userId);
+            }
+        }
+
+        if (userId != null && requestAttributes != null) {
+            requestAttributes.setAttribute(REQUEST_ATTRIBUTE, userId, RequestAttributes.SCOPE_REQUEST);
+        }
+        return userId;
+    }
+
+    private boolean isAuthenticated(Authentication authentication) {
+        return authentication != null
+                && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+}
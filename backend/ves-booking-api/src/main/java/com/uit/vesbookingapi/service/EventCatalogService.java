@@ -0,0 +1,369 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.EventResponse;
+import com.uit.vesbookingapi.dto.response.PageResponse;
+import com.uit.vesbookingapi.entity.Event;
+import com.uit.vesbookingapi.entity.TicketType;
+import com.uit.vesbookingapi.enums.EventStatus;
+import com.uit.vesbookingapi.mapper.EventMapper;
+import com.uit.vesbookingapi.repository.EventRepository;
+import com.uit.vesbookingapi.repository.TicketTypeRepository;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory read model behind the public event listing.
+ * Every event is kept as an immutable card holding its precomputed response (prices, venue,
+ * category, city) and its filter keys, in one list per sort order, so a
+ * listing is a scan over at most {@code booking.catalog.max-events} cards with no query at all.
+ * Status and available tickets are computed when serving: availability is the database value
+ * seen at build time corrected by what this node has leased or returned since, so purchases
+ * never invalidate a card. Admin changes replace the card after commit and the whole model
+ * is rebuilt every {@code booking.catalog.refresh-ms} to pick up changes made on other nodes.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class EventCatalogService {
+    // Same orders as EventService#applySorting, including MySQL's nulls-first ascending
+    private static final Comparator<EventCard> BY_START_DATE =
+            Comparator.comparing(EventCard::startDate).thenComparing(EventCard::id);
+    private static final Comparator<EventCard> BY_OLDEST =
+            Comparator.comparing(EventCard::createdAt).thenComparing(EventCard::id);
+    private static final Comparator<EventCard> BY_MIN_PRICE =
+            Comparator.comparing(EventCard::minPrice, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(EventCard::id);
+    private static final Comparator<EventCard> BY_SOLD_COUNT =
+            Comparator.comparing(EventCard::soldCount, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(EventCard::id);
+
+    EventRepository eventRepository;
+    TicketTypeRepository ticketTypeRepository;
+    EventMapper eventMapper;
+    TicketAvailabilityService ticketAvailabilityService;
+    PlatformTransactionManager transactionManager;
+
+    // Serializes rebuilds and single-event updates so an older snapshot never replaces a newer one
+    ReentrantLock updateLock = new ReentrantLock();
+
+    // null until the first build, or while there are too many events to keep in memory
+    @NonFinal
+    volatile Catalog catalog;
+
+    @NonFinal
+    @Value("${booking.catalog.max-events:5000}")
+    int maxEvents;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Reload every event and ticket type in one read-only transaction
+     */
+    @Scheduled(fixedDelayString = "${booking.catalog.refresh-ms:60000}",
+            initialDelayString = "${booking.catalog.refresh-ms:60000}")
+    public void rebuild() {
+        updateLock.lock();
+        try {
+            catalog = readOnlyTransaction().execute(status -> {
+                long count = eventRepository.count();
+                if (count > maxEvents) {
+                    log.warn("{} events exceed the catalog limit of {}, listing from the database", count, maxEvents);
+                    return null;
+                }
+
+                Map<String, Long> deltas = ticketAvailabilityService.databaseDeltas();
+                List<Event> events = eventRepository.findAll();
+                Map<String, List<TicketType>> ticketTypesByEvent = ticketTypeRepository.findAll().stream()
+                        .collect(Collectors.groupingBy(ticketType -> ticketType.getEvent().getId()));
+
+                Map<String, EventCard> cards = new HashMap<>();
+                for (Event event : events) {
+                    cards.put(event.getId(), toCard(event, ticketTypesByEvent.getOrDefault(event.getId(), List.of()), deltas));
+                }
+                return Catalog.of(cards);
+            });
+            log.debug("Event catalog rebuilt: {} events", catalog != null ? catalog.cards().size() : 0);
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the event catalog, keeping the previous one", e);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    /**
+     * Reload the card of an event once the current transaction commits
+     */
+    public void refreshEventAfterCommit(String eventId) {
+        runAfterCommit(() -> refreshEvent(eventId));
+    }
+
+    /**
+     * Drop the card of a deleted event once the current transaction commits
+     */
+    public void removeEventAfterCommit(String eventId) {
+        runAfterCommit(() -> update(cards -> cards.remove(eventId)));
+    }
+
+    /**
+     * Listing page served from the read model, with the same filter semantics as {@code EventSpecification}.
+     * {@code matchedIds} are the results of a keyword search, best match first (null without a keyword);
+     * they are listed in that order unless {@code sortBy} is given.
+     *
+     * @return null if the read model cannot answer (not built yet, too many events, or an explicit
+     * pageable sort), in which case the caller queries the database
+     */
+    public PageResponse<EventResponse> findEvents(
+            String categoryId,
+            String cityId,
+            Boolean trending,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            List<String> matchedIds,
+            String sortBy,
+            Pageable pageable,
+            Set<String> favoriteEventIds) {
+        Catalog current = catalog;
+        if (current == null || pageable.isUnpaged()) {
+            return null;
+        }
+
+        List<EventCard> sorted;
+        if (sortBy == null || sortBy.isEmpty()) {
+            if (pageable.getSort().isSorted()) {
+                return null;
+            }
+            sorted = matchedIds != null
+                    ? matchedIds.stream().map(current.cards()::get).filter(Objects::nonNull).toList()
+                    : current.byNewest();
+        } else if (matchedIds != null) {
+            Set<String> matched = new HashSet<>(matchedIds);
+            sorted = sortedBy(current, sortBy).stream().filter(card -> matched.contains(card.id())).toList();
+        } else {
+            sorted = sortedBy(current, sortBy);
+        }
+
+        long offset = pageable.getOffset();
+        int total = 0;
+        List<EventCard> pageCards = new ArrayList<>(pageable.getPageSize());
+        for (EventCard card : sorted) {
+            if (card.matches(categoryId, cityId, trending, startDate, endDate)) {
+                if (total >= offset && pageCards.size() < pageable.getPageSize()) {
+                    pageCards.add(card);
+                }
+                total++;
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<EventResponse> content = pageCards.stream()
+                .map(card -> card.template().toBuilder()
+                        .status(EventStatus.of(card.startDate(), card.endDate(), now))
+                        .availableTickets(availableTickets(card))
+                        .isFavorite(favoriteEventIds.contains(card.id()))
+                        .build())
+                .toList();
+
+        Page<EventResponse> page = new PageImpl<>(content, pageable, total);
+        return PageResponse.<EventResponse>builder()
+                .content(content)
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .first(page.isFirst())
+                .last(page.isLast())
+                .build();
+    }
+
+    private List<EventCard> sortedBy(Catalog current, String sortBy) {
+        return switch (sortBy.toLowerCase()) {
+            case "date" -> current.byStartDate();
+            case "popularity" -> current.byPopularity();
+            case "price_low" -> current.byPriceLow();
+            case "price_high" -> current.byPriceHigh();
+            default -> current.byNewest();
+        };
+    }
+
+    private void refreshEvent(String eventId) {
+        try {
+            EventCard card = readOnlyTransaction().execute(status -> {
+                Map<String, Long> deltas = ticketAvailabilityService.databaseDeltas();
+                return eventRepository.findById(eventId)
+                        .map(event -> toCard(event, ticketTypeRepository.findByEventId(eventId), deltas))
+                        .orElse(null);
+            });
+            update(cards -> {
+                if (card != null) {
+                    cards.put(eventId, card);
+                } else {
+                    cards.remove(eventId);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh event {} in the catalog, dropping it until the next rebuild", eventId, e);
+            update(cards -> cards.remove(eventId));
+        }
+    }
+
+    /**
+     * Copy-on-write change of the current model; a no-op while there is none
+     */
+    private void update(Consumer<Map<String, EventCard>> change) {
+        updateLock.lock();
+        try {
+            Catalog current = catalog;
+            if (current == null) {
+                return;
+            }
+            Map<String, EventCard> cards = new HashMap<>(current.cards());
+            change.accept(cards);
+            catalog = cards.size() > maxEvents ? null : Catalog.of(cards);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private int availableTickets(EventCard card) {
+        int available = 0;
+        for (TicketTypeStock stock : card.ticketTypes()) {
+            long databaseAvailable = stock.databaseAvailable()
+                    + ticketAvailabilityService.databaseDelta(stock.id()) - stock.databaseDelta();
+            available += (int) Math.max(0, databaseAvailable) + ticketAvailabilityService.leasedAvailable(stock.id());
+        }
+        return available;
+    }
+
+    private EventCard toCard(Event event, List<TicketType> ticketTypes, Map<String, Long> deltas) {
+        EventResponse template = eventMapper.toEventResponse(event);
+        template.setVenueId(event.getVenue() != null ? event.getVenue().getId() : null);
+        template.setImages(event.getImages() != null ? List.copyOf(event.getImages()) : null);
+        template.setTags(event.getTags() != null ? List.copyOf(event.getTags()) : null);
+        template.setMinPrice(ticketTypes.stream().map(TicketType::getPrice).min(Integer::compareTo).orElse(null));
+        template.setMaxPrice(ticketTypes.stream().map(TicketType::getPrice).max(Integer::compareTo).orElse(null));
+
+        List<TicketTypeStock> stock = ticketTypes.stream()
+                .map(ticketType -> new TicketTypeStock(
+                        ticketType.getId(),
+                        ticketType.getAvailable() != null ? ticketType.getAvailable() : 0,
+                        deltas.getOrDefault(ticketType.getId(), 0L)))
+                .toList();
+
+        return new EventCard(
+                event.getId(),
+                template,
+                event.getCategory().getId(),
+                event.getCity().getId(),
+                event.getIsTrending(),
+                event.getStartDate(),
+                event.getEndDate(),
+                event.getCreatedAt(),
+                template.getMinPrice(),
+                event.getSoldCount(),
+                stock);
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Catalog(
+            Map<String, EventCard> cards,
+            List<EventCard> byStartDate,
+            List<EventCard> byNewest,
+            List<EventCard> byPriceLow,
+            List<EventCard> byPriceHigh,
+            List<EventCard> byPopularity) {
+
+        static Catalog of(Map<String, EventCard> cards) {
+            List<EventCard> byPriceLow = sort(cards, BY_MIN_PRICE);
+            return new Catalog(
+                    Map.copyOf(cards),
+                    sort(cards, BY_START_DATE),
+                    sort(cards, BY_OLDEST.reversed()),
+                    byPriceLow,
+                    byPriceLow.reversed(),
+                    sort(cards, BY_SOLD_COUNT.reversed()));
+        }
+
+        private static List<EventCard> sort(Map<String, EventCard> cards, Comparator<EventCard> order) {
+            return cards.values().stream().sorted(order).toList();
+        }
+    }
+
+    private record EventCard(
+            String id,
+            EventResponse template,
+            String categoryId,
+            String cityId,
+            Boolean trending,
+            LocalDateTime startDate,
+            LocalDateTime endDate,
+            LocalDateTime createdAt,
+            Integer minPrice,
+            Long soldCount,
+            List<TicketTypeStock> ticketTypes) {
+
+        boolean matches(String categoryId, String cityId, Boolean trending,
+                        LocalDateTime from, LocalDateTime to) {
+            if (categoryId != null && !categoryId.isEmpty() && !categoryId.equals(this.categoryId)) {
+                return false;
+            }
+            if (cityId != null && !cityId.isEmpty() && !cityId.equals(this.cityId)) {
+                return false;
+            }
+            if (trending != null && !trending.equals(this.trending)) {
+                return false;
+            }
+            return (from == null || !startDate.isBefore(from)) && (to == null || !startDate.isAfter(to));
+        }
+    }
+
+    /**
+     * {@code TicketType.available} and this node's database delta when the card was built
+     */
+    private record TicketTypeStock(String id, int databaseAvailable, long databaseDelta) {
+    }
+}
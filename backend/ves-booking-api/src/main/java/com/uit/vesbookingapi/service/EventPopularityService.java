@@ -0,0 +1,97 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.repository.EventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains {@code Event.soldCount}, the popularity score the listing sorts by.
+ * Sales are counted in memory and added to the event rows in one transaction every
+ * {@code booking.popularity.flush-ms}, so a purchase never writes the (hot) event row itself.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class EventPopularityService {
+    EventRepository eventRepository;
+    PlatformTransactionManager transactionManager;
+
+    Map<String, LongAdder> pendingSales = new ConcurrentHashMap<>();
+
+    /**
+     * Fill the sort columns of events created before they existed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            int prices = eventRepository.backfillMinPrice();
+            int sales = eventRepository.backfillSoldCount();
+            log.debug("Backfilled min price of {} and sold count of {} events", prices, sales);
+        });
+    }
+
+    /**
+     * Count {@code quantity} tickets as sold (negative for cancellations) once the current transaction commits
+     */
+    public void recordSalesAfterCommit(String eventId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            recordSales(eventId, quantity);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recordSales(eventId, quantity);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${booking.popularity.flush-ms:10000}")
+    public void flush() {
+        Map<String, Long> sales = new HashMap<>();
+        pendingSales.forEach((eventId, adder) -> {
+            long quantity = adder.sumThenReset();
+            if (quantity != 0) {
+                sales.put(eventId, quantity);
+            }
+        });
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    sales.forEach(eventRepository::incrementSoldCount));
+            log.debug("Flushed sales of {} events", sales.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not flush event sales, keeping them in memory", e);
+            sales.forEach((eventId, quantity) -> recordSales(eventId, quantity));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void recordSales(String eventId, long quantity) {
+        pendingSales.computeIfAbsent(eventId, id -> new LongAdder()).add(quantity);
+    }
+}
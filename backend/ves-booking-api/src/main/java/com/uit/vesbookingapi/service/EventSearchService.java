@@ -0,0 +1,235 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.entity.Event;
+import com.uit.vesbookingapi.repository.EventRepository;
+import com.uit.vesbookingapi.utils.InvertedIndex;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keyword search over events (name, description, tags, venue and city) backed by an
+ * {@link InvertedIndex}. The index also keeps the listing filter keys of every event, so a
+ * search resolves straight to a ranked, filtered list of event ids without touching the database.
+ * It is built at startup, updated after every event create/update/delete on this node and
+ * rebuilt every {@code booking.search.refresh-ms} to pick up changes made on other nodes.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class EventSearchService {
+    private static final float NAME_WEIGHT = 4;
+    private static final float TAG_WEIGHT = 3;
+    private static final float PLACE_WEIGHT = 2;
+    private static final float DESCRIPTION_WEIGHT = 1;
+    private static final int BUILD_PAGE_SIZE = 1000;
+
+    EventRepository eventRepository;
+    PlatformTransactionManager transactionManager;
+
+    ReentrantLock rebuildLock = new ReentrantLock();
+    // Events changed while a rebuild runs, re-read once the new index is in place
+    Set<String> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    // null until the first build
+    @NonFinal
+    volatile SearchIndex searchIndex;
+
+    @NonFinal
+    volatile boolean rebuilding;
+
+    @NonFinal
+    @Value("${booking.search.max-results:1000}")
+    int maxResults;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Ids of the events matching every word of {@code query} and the given filters, best match first
+     *
+     * @return null when the index cannot answer in full and the caller should query the database:
+     * before the first build, for queries without indexable words (punctuation only), and when
+     * more than {@code booking.search.max-results} events match, so totals and later pages stay right
+     */
+    public List<String> search(String query, String categoryId, String cityId, Boolean trending,
+                               LocalDateTime startDate, LocalDateTime endDate) {
+        SearchIndex current = searchIndex;
+        if (current == null || InvertedIndex.tokenize(query).isEmpty()) {
+            return null;
+        }
+
+        Map<String, Float> scores = current.index().search(query);
+        List<Map.Entry<String, Float>> matches = new ArrayList<>(scores.size());
+        for (Map.Entry<String, Float> entry : scores.entrySet()) {
+            FilterKeys keys = current.filterKeys().get(entry.getKey());
+            if (keys != null && keys.matches(categoryId, cityId, trending, startDate, endDate)) {
+                matches.add(entry);
+            }
+        }
+        if (matches.size() > maxResults) {
+            return null;
+        }
+
+        return matches.stream()
+                .sorted(Map.Entry.<String, Float>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Re-index an event once the current transaction commits
+     */
+    public void indexEventAfterCommit(String eventId) {
+        runAfterCommit(() -> reindex(eventId));
+    }
+
+    /**
+     * Drop a deleted event from the index once the current transaction commits
+     */
+    public void removeEventAfterCommit(String eventId) {
+        runAfterCommit(() -> reindex(eventId));
+    }
+
+    /**
+     * Build a new index page by page and swap it in
+     */
+    @Scheduled(fixedDelayString = "${booking.search.refresh-ms:300000}",
+            initialDelayString = "${booking.search.refresh-ms:300000}")
+    public void rebuild() {
+        if (!rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            rebuilding = true;
+            changedDuringRebuild.clear();
+
+            SearchIndex built = new SearchIndex(new InvertedIndex(), new ConcurrentHashMap<>());
+            TransactionTemplate transactionTemplate = readOnlyTransaction();
+            int pageNumber = 0;
+            boolean hasNext = true;
+            while (hasNext) {
+                PageRequest pageRequest = PageRequest.of(pageNumber++, BUILD_PAGE_SIZE, Sort.by("id"));
+                hasNext = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    Page<Event> page = eventRepository.findAll(pageRequest);
+                    page.forEach(built::put);
+                    return page.hasNext();
+                }));
+            }
+
+            searchIndex = built;
+            rebuilding = false;
+            changedDuringRebuild.forEach(this::reindex);
+            log.debug("Search index rebuilt: {} events", built.index().size());
+        } catch (RuntimeException e) {
+            rebuilding = false;
+            log.warn("Could not rebuild the search index, keeping the previous one", e);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void reindex(String eventId) {
+        if (rebuilding) {
+            changedDuringRebuild.add(eventId);
+        }
+        SearchIndex current = searchIndex;
+        if (current == null) {
+            return;
+        }
+
+        try {
+            readOnlyTransaction().executeWithoutResult(status ->
+                    eventRepository.findById(eventId).ifPresentOrElse(current::put, () -> current.remove(eventId)));
+        } catch (RuntimeException e) {
+            log.warn("Could not re-index event {}, dropping it until the next rebuild", eventId, e);
+            current.remove(eventId);
+        }
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setReadOnly(true);
+        return transactionTemplate;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record SearchIndex(InvertedIndex index, Map<String, FilterKeys> filterKeys) {
+
+        void put(Event event) {
+            Map<String, Float> termWeights = new HashMap<>();
+            InvertedIndex.addText(termWeights, event.getName(), NAME_WEIGHT);
+            if (event.getTags() != null) {
+                event.getTags().forEach(tag -> InvertedIndex.addText(termWeights, tag, TAG_WEIGHT));
+            }
+            InvertedIndex.addText(termWeights, event.getVenue() != null ? event.getVenue().getName() : event.getVenueName(), PLACE_WEIGHT);
+            InvertedIndex.addText(termWeights, event.getVenueAddress(), PLACE_WEIGHT);
+            InvertedIndex.addText(termWeights, event.getCity().getName(), PLACE_WEIGHT);
+            InvertedIndex.addText(termWeights, event.getDescription(), DESCRIPTION_WEIGHT);
+
+            filterKeys.put(event.getId(), new FilterKeys(
+                    event.getCategory().getId(), event.getCity().getId(), event.getIsTrending(), event.getStartDate()));
+            index.put(event.getId(), termWeights);
+        }
+
+        void remove(String eventId) {
+            index.remove(eventId);
+            filterKeys.remove(eventId);
+        }
+    }
+
+    /**
+     * Same semantics as the corresponding {@code EventSpecification} filters
+     */
+    private record FilterKeys(String categoryId, String cityId, Boolean trending, LocalDateTime startDate) {
+
+        boolean matches(String categoryId, String cityId, Boolean trending, LocalDateTime from, LocalDateTime to) {
+            if (categoryId != null && !categoryId.isEmpty() && !categoryId.equals(this.categoryId)) {
+                return false;
+            }
+            if (cityId != null && !cityId.isEmpty() && !cityId.equals(this.cityId)) {
+                return false;
+            }
+            if (trending != null && !trending.equals(this.trending)) {
+                return false;
+            }
+            return (from == null || !startDate.isBefore(from)) && (to == null || !startDate.isAfter(to));
+        }
+    }
+}
@@ -18,11 +18,11 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,9 +41,13 @@ public class EventService {
     CityRepository cityRepository;
     VenueRepository venueRepository;
     FavoriteRepository favoriteRepository;
-    UserRepository userRepository;
+    CurrentUserService currentUserService;
     EventMapper eventMapper;
     TicketTypeMapper ticketTypeMapper;
+    SeatInventoryService seatInventoryService;
+    TicketAvailabilityService ticketAvailabilityService;
+    EventCatalogService eventCatalogService;
+    EventSearchService eventSearchService;
 
     public PageResponse<EventResponse> getEvents(
             String categoryId,
@@ -55,29 +59,52 @@ public class EventService {
             String sortBy,
             Pageable pageable) {
 
-        // Build specification
-        Specification<Event> spec = EventSpecification.combine(
-                EventSpecification.hasCategory(categoryId),
-                EventSpecification.hasCity(cityId),
-                EventSpecification.isTrending(trending),
-                EventSpecification.inDateRange(startDate, endDate),
-                EventSpecification.searchByKeyword(search)
-        );
-
-        // Apply sorting
-        Pageable sortedPageable = applySorting(pageable, sortBy);
-
-        // Query with pagination
-        Page<Event> eventPage = eventRepository.findAll(spec, sortedPageable);
-
         // Get current user ID if authenticated
-        String currentUserId = getCurrentUserId();
+        String currentUserId = currentUserService.findCurrentUserId();
 
         // Get favorite event IDs for current user
         Set<String> favoriteEventIds = currentUserId != null
                 ? new HashSet<>(favoriteRepository.findEventIdsByUserId(currentUserId))
                 : Collections.emptySet();
 
+        // Resolve a keyword to ranked event ids (other filters applied) from the search index
+        boolean hasKeyword = search != null && !search.isBlank();
+        List<String> matchedIds = hasKeyword
+                ? eventSearchService.search(search, categoryId, cityId, trending, startDate, endDate)
+                : null;
+
+        // Serve from the in-memory read model when it can answer
+        if (!hasKeyword || matchedIds != null) {
+            PageResponse<EventResponse> cached = eventCatalogService.findEvents(
+                    categoryId, cityId, trending, startDate, endDate, matchedIds, sortBy, pageable, favoriteEventIds);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Page<Event> eventPage;
+        if (matchedIds != null && (sortBy == null || sortBy.isEmpty()) && pageable.getSort().isUnsorted()) {
+            // Page through the ranked ids, loading only the events shown
+            eventPage = findRankedPage(matchedIds, pageable);
+        } else {
+            // Build specification
+            Specification<Event> spec = EventSpecification.combine(
+                    EventSpecification.hasCategory(categoryId),
+                    EventSpecification.hasCity(cityId),
+                    EventSpecification.isTrending(trending),
+                    EventSpecification.inDateRange(startDate, endDate),
+                    matchedIds != null
+                            ? EventSpecification.hasIdIn(matchedIds)
+                            : EventSpecification.searchByKeyword(search)
+            );
+
+            // Apply sorting
+            Pageable sortedPageable = applySorting(pageable, sortBy);
+
+            // Query with pagination
+            eventPage = eventRepository.findAll(spec, sortedPageable);
+        }
+
         // Batch load ticket types for all events (N+1 query fix)
         List<String> eventIds = eventPage.getContent().stream()
                 .map(Event::getId)
@@ -116,7 +143,7 @@ public class EventService {
         event.setTicketTypes(ticketTypes);
 
         // Get current user ID if authenticated
-        String currentUserId = getCurrentUserId();
+        String currentUserId = currentUserService.findCurrentUserId();
         boolean isFavorite = currentUserId != null
                 && favoriteRepository.existsByUserIdAndEventId(currentUserId, eventId);
 
@@ -127,7 +154,7 @@ public class EventService {
 
         // Map ticket types
         List<TicketTypeResponse> ticketTypeResponses = ticketTypes.stream()
-                .map(ticketTypeMapper::toTicketTypeResponse)
+                .map(this::toTicketTypeResponse)
                 .collect(Collectors.toList());
         response.setTicketTypes(ticketTypeResponses);
 
@@ -144,7 +171,7 @@ public class EventService {
 
         List<TicketType> ticketTypes = ticketTypeRepository.findByEventId(eventId);
         return ticketTypes.stream()
-                .map(ticketTypeMapper::toTicketTypeResponse)
+                .map(this::toTicketTypeResponse)
                 .collect(Collectors.toList());
     }
 
@@ -197,9 +224,12 @@ public class EventService {
                     .collect(Collectors.toList());
             ticketTypeRepository.saveAll(ticketTypes);
             savedEvent.setTicketTypes(ticketTypes);
+            savedEvent.setMinPrice(findMinPrice(ticketTypes));
         }
 
         event = savedEvent;
+        eventCatalogService.refreshEventAfterCommit(event.getId());
+        eventSearchService.indexEventAfterCommit(event.getId());
 
         EventDetailResponse response = eventMapper.toEventDetailResponse(event);
 
@@ -264,6 +294,7 @@ public class EventService {
             }
         }
         ticketTypeRepository.deleteAll(event.getTicketTypes());
+        event.getTicketTypes().forEach(ticketType -> ticketAvailabilityService.evict(ticketType.getId()));
         final Event finalEvent = event;
         if (request.getTicketTypes() != null && !request.getTicketTypes().isEmpty()) {
             List<TicketType> ticketTypes = request.getTicketTypes().stream()
@@ -278,9 +309,15 @@ public class EventService {
         } else {
             event.setTicketTypes(Collections.emptyList());
         }
+        event.setMinPrice(findMinPrice(event.getTicketTypes()));
 
         event = eventRepository.save(event);
 
+        // Venue may have changed
+        seatInventoryService.rebuildEvent(eventId);
+        eventCatalogService.refreshEventAfterCommit(eventId);
+        eventSearchService.indexEventAfterCommit(eventId);
+
         EventDetailResponse response = eventMapper.toEventDetailResponse(event);
 
         // Set venue to null (VenueSeatingResponse requires VenueService call, can be added later if needed)
@@ -313,6 +350,23 @@ public class EventService {
         }
 
         eventRepository.deleteById(eventId);
+        seatInventoryService.rebuildEvent(eventId);
+        eventCatalogService.removeEventAfterCommit(eventId);
+        eventSearchService.removeEventAfterCommit(eventId);
+    }
+
+    private Page<Event> findRankedPage(List<String> rankedIds, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), rankedIds.size());
+        List<String> pageIds = rankedIds.subList(from, Math.min(from + pageable.getPageSize(), rankedIds.size()));
+
+        Map<String, Event> eventsById = eventRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Event::getId, event -> event));
+        List<Event> events = pageIds.stream()
+                .map(eventsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return new PageImpl<>(events, pageable, rankedIds.size());
     }
 
     private Pageable applySorting(Pageable pageable, String sortBy) {
@@ -320,27 +374,27 @@ public class EventService {
             return pageable;
         }
 
+        // Every sort key is an indexed column on event. The id breaks ties in the same
+        // direction, which InnoDB appends to secondary indexes, so pages stay stable without a filesort.
         Sort sort;
         switch (sortBy.toLowerCase()) {
             case "date":
-                sort = Sort.by(Sort.Direction.ASC, "startDate");
+                sort = Sort.by(Sort.Direction.ASC, "startDate", "id");
                 break;
             case "popularity":
-                // For popularity, we'll sort by createdAt as a proxy (can be enhanced with actual sales data)
-                sort = Sort.by(Sort.Direction.DESC, "createdAt");
+                sort = Sort.by(Sort.Direction.DESC, "soldCount", "id");
                 break;
             case "price_low":
-                // Price sorting requires custom query, for now use createdAt
-                sort = Sort.by(Sort.Direction.ASC, "createdAt");
+                sort = Sort.by(Sort.Direction.ASC, "minPrice", "id");
                 break;
             case "price_high":
-                sort = Sort.by(Sort.Direction.DESC, "createdAt");
+                sort = Sort.by(Sort.Direction.DESC, "minPrice", "id");
                 break;
             case "newest":
-                sort = Sort.by(Sort.Direction.DESC, "createdAt");
+                sort = Sort.by(Sort.Direction.DESC, "createdAt", "id");
                 break;
             default:
-                sort = Sort.by(Sort.Direction.DESC, "createdAt");
+                sort = Sort.by(Sort.Direction.DESC, "createdAt", "id");
         }
 
         return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
@@ -368,7 +422,7 @@ public class EventService {
                 .orElse(null);
 
         Integer availableTickets = ticketTypes.stream()
-                .map(TicketType::getAvailable)
+                .map(ticketType -> ticketAvailabilityService.effectiveAvailable(ticketType.getId(), ticketType.getAvailable()))
                 .reduce(0, Integer::sum);
 
         response.setMinPrice(minPrice);
@@ -391,36 +445,30 @@ public class EventService {
         Integer minPrice = ticketTypeRepository.findMinPriceByEventId(event.getId());
         Integer maxPrice = ticketTypeRepository.findMaxPriceByEventId(event.getId());
         Integer availableTickets = ticketTypeRepository.sumAvailableTicketsByEventId(event.getId());
+        int leasedTickets = event.getTicketTypes() == null ? 0 : event.getTicketTypes().stream()
+                .mapToInt(ticketType -> ticketAvailabilityService.leasedAvailable(ticketType.getId()))
+                .sum();
 
         response.setMinPrice(minPrice);
         response.setMaxPrice(maxPrice);
-        response.setAvailableTickets(availableTickets != null ? availableTickets : 0);
+        response.setAvailableTickets((availableTickets != null ? availableTickets : 0) + leasedTickets);
         response.setIsFavorite(isFavorite);
     }
 
-    private EventStatus calculateEventStatus(Event event) {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startDate = event.getStartDate();
-        LocalDateTime endDate = event.getEndDate();
-
-        if (endDate != null && now.isAfter(endDate)) {
-            return EventStatus.COMPLETED;
-        } else if (now.isAfter(startDate) || now.isEqual(startDate)) {
-            return EventStatus.ONGOING;
-        } else {
-            return EventStatus.UPCOMING;
-        }
+    private TicketTypeResponse toTicketTypeResponse(TicketType ticketType) {
+        TicketTypeResponse response = ticketTypeMapper.toTicketTypeResponse(ticketType);
+        response.setAvailable(ticketAvailabilityService.effectiveAvailable(ticketType.getId(), ticketType.getAvailable()));
+        return response;
     }
 
-    private String getCurrentUserId() {
-        var context = SecurityContextHolder.getContext();
-        if (context == null || context.getAuthentication() == null || !context.getAuthentication().isAuthenticated()) {
-            return null;
-        }
-        String username = context.getAuthentication().getName();
-        return userRepository.findByUsername(username)
-                .map(User::getId)
+    private Integer findMinPrice(List<TicketType> ticketTypes) {
+        return ticketTypes.stream()
+                .map(TicketType::getPrice)
+                .min(Integer::compareTo)
                 .orElse(null);
     }
-}
 
+    private EventStatus calculateEventStatus(Event event) {
+        return EventStatus.of(event.getStartDate(), event.getEndDate(), LocalDateTime.now());
+    }
+}
@@ -18,9 +18,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,13 +29,14 @@ public class FavoriteService {
     FavoriteRepository favoriteRepository;
     EventRepository eventRepository;
     UserRepository userRepository;
+    CurrentUserService currentUserService;
     EventMapper eventMapper;
 
     /**
      * Get user's favorite events
      */
     public PageResponse<EventResponse> getUserFavorites(Pageable pageable) {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
 
         Page<Favorite> favorites = favoriteRepository.findByUserIdWithEvent(userId, pageable);
 
@@ -64,7 +62,7 @@ public class FavoriteService {
      */
     @Transactional
     public void addFavorite(String eventId) {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
 
         // Verify event exists
         Event event = eventRepository.findById(eventId)
@@ -93,28 +91,11 @@ public class FavoriteService {
      */
     @Transactional
     public void removeFavorite(String eventId) {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
 
         Favorite favorite = favoriteRepository.findByUserIdAndEventId(userId, eventId)
                 .orElseThrow(() -> new AppException(ErrorCode.FAVORITE_NOT_FOUND));
 
         favoriteRepository.delete(favorite);
     }
-
-    /**
-     * Get current authenticated user ID
-     */
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null
-                || !authentication.isAuthenticated()
-                || authentication instanceof AnonymousAuthenticationToken) {
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
-        }
-        // authentication.getName() returns username, not user ID
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED))
-                .getId();
-    }
 }
@@ -10,15 +10,11 @@ import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
 import com.uit.vesbookingapi.mapper.NotificationMapper;
 import com.uit.vesbookingapi.repository.NotificationRepository;
-import com.uit.vesbookingapi.repository.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,13 +26,13 @@ import java.util.Map;
 public class NotificationService {
     NotificationRepository notificationRepository;
     NotificationMapper notificationMapper;
-    UserRepository userRepository;
+    CurrentUserService currentUserService;
 
     /**
      * Get user's notifications with optional filter
      */
     public PageResponse<NotificationResponse> getUserNotifications(Boolean unreadOnly, Pageable pageable) {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
 
         Page<Notification> notifications;
         if (Boolean.TRUE.equals(unreadOnly)) {
@@ -63,7 +59,7 @@ public class NotificationService {
      */
     @Transactional
     public void markAsRead(String notificationId) {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
 
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new AppException(ErrorCode.NOTIFICATION_NOT_FOUND));
@@ -82,7 +78,7 @@ public class NotificationService {
      */
     @Transactional
     public void markAllAsRead() {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
         notificationRepository.markAllAsReadByUserId(userId);
     }
 
@@ -90,7 +86,7 @@ public class NotificationService {
      * Get unread notification count
      */
     public long getUnreadCount() {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
         return notificationRepository.countByUserIdAndIsRead(userId, false);
     }
 
@@ -177,21 +173,4 @@ public class NotificationService {
 
         notificationRepository.save(notification);
     }
-
-    /**
-     * Get current authenticated user ID
-     */
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null
-                || !authentication.isAuthenticated()
-                || authentication instanceof AnonymousAuthenticationToken) {
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
-        }
-        // authentication.getName() returns username, not user ID
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED))
-                .getId();
-    }
 }
@@ -0,0 +1,453 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.request.PurchaseRequest;
+import com.uit.vesbookingapi.dto.response.PurchaseResponse;
+import com.uit.vesbookingapi.entity.Event;
+import com.uit.vesbookingapi.entity.TicketType;
+import com.uit.vesbookingapi.enums.OrderStatus;
+import com.uit.vesbookingapi.enums.TicketStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.EventRepository;
+import com.uit.vesbookingapi.repository.TicketTypeRepository;
+import com.uit.vesbookingapi.utils.BackgroundExecutors;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Group commit of direct ticket purchases.
+ * Purchases of the same event are queued on a per-event lane; a lane worker takes what arrives
+ * within {@code booking.purchase.batch-window-ms} (up to {@code booking.purchase.max-batch-size}),
+ * validates the batch in one read, takes quantity and seats from the in-memory inventory for each
+ * purchase in arrival order, and writes all orders, tickets and voucher usage as multi-row
+ * statements in a single transaction. Every caller still gets its own order or its own error:
+ * purchases that fail validation or inventory are rejected individually, and if the batch write
+ * fails the remaining purchases are committed one by one. A lane is dropped once its queue drains,
+ * so only events with purchases in flight keep one.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class PurchaseGroupCommitService {
+    private static final int ROWS_PER_STATEMENT = 500;
+    private static final String ORDER_COLUMNS = "(id, user_id, event_id, ticket_type_id, quantity, subtotal, discount, " +
+            "total, currency, voucher_id, status, payment_method, payment_url, expires_at, created_at, completed_at)";
+    private static final String TICKET_COLUMNS = "(id, order_id, user_id, event_id, ticket_type_id, seat_id, qr_code, " +
+            "status, purchase_date)";
+
+    BookingService bookingService;
+    CurrentUserService currentUserService;
+    EventRepository eventRepository;
+    TicketTypeRepository ticketTypeRepository;
+    TicketAvailabilityService ticketAvailabilityService;
+    SeatInventoryService seatInventoryService;
+    EventPopularityService eventPopularityService;
+    VoucherQuotaService voucherQuotaService;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate readOnlyTransaction;
+    TransactionTemplate writeTransaction;
+    Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    ExecutorService workers;
+    boolean enabled;
+    int maxBatchSize;
+    long batchWindowNanos;
+
+    public PurchaseGroupCommitService(
+            BookingService bookingService,
+            CurrentUserService currentUserService,
+            EventRepository eventRepository,
+            TicketTypeRepository ticketTypeRepository,
+            TicketAvailabilityService ticketAvailabilityService,
+            SeatInventoryService seatInventoryService,
+            EventPopularityService eventPopularityService,
+            VoucherQuotaService voucherQuotaService,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.purchase.group-commit:true}") boolean enabled,
+            @Value("${booking.purchase.max-batch-size:100}") int maxBatchSize,
+            @Value("${booking.purchase.batch-window-ms:2}") long batchWindowMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.bookingService = bookingService;
+        this.currentUserService = currentUserService;
+        this.eventRepository = eventRepository;
+        this.ticketTypeRepository = ticketTypeRepository;
+        this.ticketAvailabilityService = ticketAvailabilityService;
+        this.seatInventoryService = seatInventoryService;
+        this.eventPopularityService = eventPopularityService;
+        this.voucherQuotaService = voucherQuotaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMs);
+        this.workers = BackgroundExecutors.newExecutor("purchase-lane", virtualThreads);
+    }
+
+    /**
+     * Buy tickets; waits until the batch the purchase joined is committed
+     */
+    public PurchaseResponse purchaseTickets(PurchaseRequest request) {
+        if (!enabled) {
+            return bookingService.purchaseTickets(request);
+        }
+        log.info("Processing ticket purchase request: eventId={}, ticketTypeId={}, quantity={}",
+                request.getEventId(), request.getTicketTypeId(), request.getQuantity());
+
+        // The security context stays on the request thread
+        PendingPurchase purchase = new PendingPurchase(request, currentUserService.getCurrentUserId(), new CompletableFuture<>());
+        submit(request.getEventId(), purchase);
+        try {
+            PurchaseResponse response = purchase.result().join();
+            log.info("Ticket purchase successful: orderId={}", response.getOrderId());
+            return response;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queue a purchase on its event's lane; queueing happens inside the map update, so a lane is
+     * never dropped while it holds a purchase
+     */
+    private void submit(String eventId, PendingPurchase purchase) {
+        Lane lane = lanes.compute(eventId, (id, existing) -> {
+            Lane target = existing != null ? existing : new Lane(id);
+            target.queue.add(purchase);
+            return target;
+        });
+        lane.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void process(String eventId, List<PendingPurchase> batch) {
+        List<PreparedOrder> prepared;
+        try {
+            prepared = readOnlyTransaction.execute(status -> prepare(eventId, batch));
+        } catch (RuntimeException e) {
+            batch.forEach(purchase -> purchase.result().completeExceptionally(e));
+            return;
+        }
+
+        List<PreparedOrder> reserved = reserve(eventId, prepared);
+        if (reserved.isEmpty()) {
+            return;
+        }
+
+        // Only the writes are retried: once a batch is committed its orders must never go down the
+        // one-by-one path, which would insert them again and give back what they sold
+        try {
+            writeTransaction.executeWithoutResult(status -> insert(reserved));
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} purchases of event {} failed, committing them one by one",
+                    reserved.size(), eventId, e);
+            commitOneByOne(eventId, reserved);
+            return;
+        }
+        reserved.forEach(order -> committed(eventId, order));
+        log.debug("Committed {} purchases of event {} in one transaction", reserved.size(), eventId);
+    }
+
+    private void commitOneByOne(String eventId, List<PreparedOrder> reserved) {
+        for (PreparedOrder order : reserved) {
+            try {
+                writeTransaction.executeWithoutResult(status -> insert(List.of(order)));
+            } catch (RuntimeException e) {
+                unreserve(eventId, order);
+                order.purchase().result().completeExceptionally(seatInventoryService.seatConflict(eventId, e));
+                continue;
+            }
+            committed(eventId, order);
+        }
+    }
+
+    /**
+     * Same checks as {@link BookingService#placeOrder}, against one read of the event and its ticket types
+     */
+    private List<PreparedOrder> prepare(String eventId, List<PendingPurchase> batch) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new AppException(ErrorCode.EVENT_NOT_FOUND));
+        Map<String, Optional<TicketType>> ticketTypes = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<PreparedOrder> prepared = new ArrayList<>(batch.size());
+        for (PendingPurchase purchase : batch) {
+            PurchaseRequest request = purchase.request();
+            try {
+                TicketType ticketType = ticketTypes.computeIfAbsent(request.getTicketTypeId(), ticketTypeRepository::findById)
+                        .orElseThrow(() -> new AppException(ErrorCode.TICKET_TYPE_NOT_FOUND));
+                if (!ticketType.getEvent().getId().equals(eventId)) {
+                    throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
+                }
+                if (ticketType.getMaxPerOrder() != null && request.getQuantity() > ticketType.getMaxPerOrder()) {
+                    throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
+                }
+
+                List<String> seatIds = List.of();
+                if (ticketType.getRequiresSeatSelection()) {
+                    if (request.getSeatIds() == null || request.getSeatIds().isEmpty()) {
+                        throw new AppException(ErrorCode.SEAT_SELECTION_REQUIRED);
+                    }
+                    if (request.getSeatIds().size() != request.getQuantity()) {
+                        throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
+                    }
+                    seatIds = List.copyOf(request.getSeatIds());
+                }
+
+                int subtotal = ticketType.getPrice() * request.getQuantity();
+                VoucherCatalogService.VoucherRule voucher = null;
+                int discount = 0;
+                if (request.getVoucherCode() != null && !request.getVoucherCode().trim().isEmpty()) {
+                    voucher = bookingService.validateAndApplyVoucher(request.getVoucherCode(), event, subtotal);
+                    discount = voucher.discountFor(subtotal);
+                }
+
+                prepared.add(new PreparedOrder(purchase, UUID.randomUUID().toString(), ticketType.getId(),
+                        ticketType.getCurrency(), seatIds, subtotal, discount,
+                        voucher != null ? voucher.id() : null,
+                        voucher != null ? voucher.usageLimit() : null,
+                        voucher != null ? voucher.usedCount() : 0,
+                        bookingService.generatePaymentUrl(), now));
+            } catch (AppException e) {
+                purchase.result().completeExceptionally(e);
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * Take quantity, seats and voucher uses for each purchase in arrival order; a purchase that
+     * cannot get all of them gets none and is rejected
+     */
+    private List<PreparedOrder> reserve(String eventId, List<PreparedOrder> prepared) {
+        List<PreparedOrder> reserved = new ArrayList<>(prepared.size());
+        for (PreparedOrder order : prepared) {
+            int quantity = order.purchase().request().getQuantity();
+            try {
+                // No transaction is active, so these are not undone automatically
+                if (order.voucherId() != null) {
+                    voucherQuotaService.reserve(order.voucherId(), order.voucherUsageLimit(), order.voucherUsedCount());
+                }
+                try {
+                    ticketAvailabilityService.acquire(order.ticketTypeId(), quantity);
+                    if (!order.seatIds().isEmpty()) {
+                        try {
+                            seatInventoryService.reserveSeats(eventId, order.seatIds());
+                        } catch (RuntimeException e) {
+                            ticketAvailabilityService.release(order.ticketTypeId(), quantity);
+                            throw e;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    if (order.voucherId() != null) {
+                        voucherQuotaService.unreserve(order.voucherId());
+                    }
+                    throw e;
+                }
+                reserved.add(order);
+            } catch (RuntimeException e) {
+                order.purchase().result().completeExceptionally(e);
+            }
+        }
+        return reserved;
+    }
+
+    private void unreserve(String eventId, PreparedOrder order) {
+        ticketAvailabilityService.release(order.ticketTypeId(), order.purchase().request().getQuantity());
+        if (order.voucherId() != null) {
+            voucherQuotaService.unreserve(order.voucherId());
+        }
+        if (!order.seatIds().isEmpty()) {
+            seatInventoryService.releaseSeats(eventId, order.seatIds());
+        }
+    }
+
+    /**
+     * Side effects of a committed order; a failure here is logged and affects neither this order's
+     * response nor the other orders of the batch
+     */
+    private void committed(String eventId, PreparedOrder order) {
+        int quantity = order.purchase().request().getQuantity();
+        ticketAvailabilityService.confirm(order.ticketTypeId(), quantity);
+        try {
+            if (!order.seatIds().isEmpty()) {
+                seatInventoryService.markSeatsSoldAfterCommit(eventId, order.seatIds());
+            }
+            eventPopularityService.recordSalesAfterCommit(eventId, quantity);
+        } catch (RuntimeException e) {
+            log.error("After-commit updates of order {} failed", order.orderId(), e);
+        }
+        order.purchase().result().complete(PurchaseResponse.builder()
+                .orderId(order.orderId())
+                .status(OrderStatus.COMPLETED)
+                .paymentUrl(order.paymentUrl())
+                .total(order.total())
+                .expiresAt(order.createdAt())
+                .build());
+    }
+
+    private void insert(List<PreparedOrder> orders) {
+        List<Object[]> orderRows = new ArrayList<>(orders.size());
+        List<Object[]> ticketRows = new ArrayList<>();
+        Map<String, Integer> voucherUses = new HashMap<>();
+        for (PreparedOrder order : orders) {
+            PurchaseRequest request = order.purchase().request();
+            String eventId = request.getEventId();
+            String paymentMethod = request.getPaymentMethod() != null ? request.getPaymentMethod().name() : null;
+            orderRows.add(new Object[]{order.orderId(), order.purchase().userId(), eventId, order.ticketTypeId(),
+                    request.getQuantity(), order.subtotal(), order.discount(), order.total(), order.currency(),
+                    order.voucherId(), OrderStatus.COMPLETED.name(), paymentMethod, order.paymentUrl(),
+                    order.createdAt(), order.createdAt(), order.createdAt()});
+
+            for (int i = 0; i < request.getQuantity(); i++) {
+                ticketRows.add(new Object[]{UUID.randomUUID().toString(), order.orderId(), order.purchase().userId(),
+                        eventId, order.ticketTypeId(), order.seatIds().isEmpty() ? null : order.seatIds().get(i),
+                        bookingService.generateQrCode(), TicketStatus.ACTIVE.name(), order.createdAt()});
+            }
+            if (order.voucherId() != null) {
+                voucherUses.merge(order.voucherId(), 1, Integer::sum);
+            }
+        }
+
+        insertRows("orders", ORDER_COLUMNS, orderRows);
+        insertRows("ticket", TICKET_COLUMNS, ticketRows);
+        voucherUses.forEach((voucherId, uses) -> {
+            int updated = jdbcTemplate.update("UPDATE voucher SET used_count = used_count + ?, version = version + 1 " +
+                    "WHERE id = ? AND (usage_limit IS NULL OR used_count + ? <= usage_limit)", uses, voucherId, uses);
+            if (updated == 0) {
+                voucherQuotaService.exhausted(voucherId);
+                throw new AppException(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+            }
+        });
+    }
+
+    /**
+     * One multi-row INSERT per {@link #ROWS_PER_STATEMENT} rows
+     */
+    private void insertRows(String table, String columns, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int columnCount = rows.get(0).length;
+        String valueGroup = "(" + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+            String sql = "INSERT INTO " + table + " " + columns + " VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), valueGroup));
+            Object[] args = new Object[chunk.size() * columnCount];
+            for (int i = 0; i < chunk.size(); i++) {
+                System.arraycopy(chunk.get(i), 0, args, i * columnCount, columnCount);
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+    /**
+     * Queue and worker of one event; at most one batch of an event is in flight on this node
+     */
+    private final class Lane {
+        final String eventId;
+        final BlockingQueue<PendingPurchase> queue = new LinkedBlockingQueue<>();
+        final AtomicBoolean running = new AtomicBoolean();
+
+        Lane(String eventId) {
+            this.eventId = eventId;
+        }
+
+        void start() {
+            if (running.compareAndSet(false, true)) {
+                try {
+                    workers.execute(this::run);
+                } catch (RejectedExecutionException e) {
+                    running.set(false);
+                    PendingPurchase purchase;
+                    while ((purchase = queue.poll()) != null) {
+                        purchase.result().completeExceptionally(e);
+                    }
+                }
+            }
+        }
+
+        void run() {
+            try {
+                List<PendingPurchase> batch;
+                while (!(batch = nextBatch()).isEmpty()) {
+                    try {
+                        process(eventId, batch);
+                    } catch (RuntimeException e) {
+                        log.error("Purchase batch of event {} failed", eventId, e);
+                        batch.forEach(purchase -> purchase.result().completeExceptionally(e));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.set(false);
+            }
+            // Drained: drop the lane unless a purchase was queued after the last poll
+            lanes.computeIfPresent(eventId, (id, lane) -> lane == this && queue.isEmpty() ? null : lane);
+            if (!queue.isEmpty()) {
+                start();
+            }
+        }
+
+        /**
+         * The first waiting purchase plus whatever arrives within the batch window
+         */
+        List<PendingPurchase> nextBatch() throws InterruptedException {
+            List<PendingPurchase> batch = new ArrayList<>();
+            PendingPurchase first = queue.poll();
+            if (first == null) {
+                return batch;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + batchWindowNanos;
+            while (batch.size() < maxBatchSize) {
+                queue.drainTo(batch, maxBatchSize - batch.size());
+                long remaining = deadline - System.nanoTime();
+                if (batch.size() >= maxBatchSize || remaining <= 0) {
+                    break;
+                }
+                PendingPurchase next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+            return batch;
+        }
+    }
+
+    private record PendingPurchase(PurchaseRequest request, String userId, CompletableFuture<PurchaseResponse> result) {
+    }
+
+    private record PreparedOrder(PendingPurchase purchase, String orderId, String ticketTypeId, String currency,
+                                 List<String> seatIds, int subtotal, int discount, String voucherId,
+                                 Integer voucherUsageLimit, int voucherUsedCount, String paymentUrl,
+                                 LocalDateTime createdAt) {
+
+        int total() {
+            return subtotal - discount;
+        }
+    }
+}
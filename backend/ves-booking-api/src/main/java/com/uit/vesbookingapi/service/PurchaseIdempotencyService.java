@@ -0,0 +1,110 @@
+package com.uit.vesbookingapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uit.vesbookingapi.dto.request.PurchaseRequest;
+import com.uit.vesbookingapi.dto.response.PurchaseResponse;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Idempotency-Key support for purchases.
+ * Keys are scoped to the user and kept in a bounded in-memory store together with the request
+ * and the (in-flight or completed) result: a retry of a completed purchase gets the same response
+ * without touching the database, a concurrent duplicate waits for the first attempt instead of
+ * racing it. Preconditions such as waiting-room admission are checked only when a new attempt
+ * starts, so a late retry still gets its response. Failed attempts are forgotten, they changed
+ * nothing and may be retried.
+ * <p>
+ * The store is per node; retries reach the same purchase as long as they reach the same node.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class PurchaseIdempotencyService {
+    public static final int MAX_KEY_LENGTH = 255;
+
+    PurchaseGroupCommitService purchaseGroupCommitService;
+    CurrentUserService currentUserService;
+    Cache<String, Attempt> attempts;
+
+    public PurchaseIdempotencyService(
+            PurchaseGroupCommitService purchaseGroupCommitService,
+            CurrentUserService currentUserService,
+            @Value("${booking.idempotency.max-keys:100000}") long maxKeys,
+            @Value("${booking.idempotency.ttl-minutes:1440}") long ttlMinutes) {
+        this.purchaseGroupCommitService = purchaseGroupCommitService;
+        this.currentUserService = currentUserService;
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .build();
+    }
+
+    /**
+     * Purchase once per idempotency key; without a key every call purchases
+     */
+    public PurchaseResponse purchaseTickets(PurchaseRequest request, String idempotencyKey) {
+        return purchaseTickets(request, idempotencyKey, () -> {
+        });
+    }
+
+    /**
+     * Purchase once per idempotency key, running {@code precondition} before a new attempt only;
+     * a replayed or in-flight key is answered without it
+     */
+    public PurchaseResponse purchaseTickets(PurchaseRequest request, String idempotencyKey, Runnable precondition) {
+        if (idempotencyKey == null) {
+            precondition.run();
+            return purchaseGroupCommitService.purchaseTickets(request);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AppException(ErrorCode.INVALID_IDEMPOTENCY_KEY);
+        }
+
+        String key = currentUserService.getCurrentUserId() + ":" + idempotencyKey;
+        Attempt attempt = new Attempt(request, new CompletableFuture<>());
+        Attempt first = attempts.asMap().putIfAbsent(key, attempt);
+        if (first != null) {
+            if (!first.request().equals(request)) {
+                throw new AppException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+            }
+            log.info("Replaying purchase for idempotency key {}", idempotencyKey);
+            return await(first.result());
+        }
+
+        try {
+            precondition.run();
+            PurchaseResponse response = purchaseGroupCommitService.purchaseTickets(request);
+            attempt.result().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            attempts.asMap().remove(key, attempt);
+            attempt.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private PurchaseResponse await(CompletableFuture<PurchaseResponse> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Attempt(PurchaseRequest request, CompletableFuture<PurchaseResponse> result) {
+    }
+}
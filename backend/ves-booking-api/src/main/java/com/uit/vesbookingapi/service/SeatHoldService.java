@@ -0,0 +1,267 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.constant.EventConstants;
+import com.uit.vesbookingapi.dto.request.PurchaseRequest;
+import com.uit.vesbookingapi.dto.response.PurchaseResponse;
+import com.uit.vesbookingapi.entity.Order;
+import com.uit.vesbookingapi.enums.OrderStatus;
+import com.uit.vesbookingapi.enums.TicketStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.mapper.OrderMapper;
+import com.uit.vesbookingapi.repository.OrderRepository;
+import com.uit.vesbookingapi.repository.TicketRepository;
+import com.uit.vesbookingapi.utils.HierarchicalTimingWheel;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hold-then-confirm flow.
+ * A hold is a PENDING order whose ACTIVE tickets keep their seats RESERVED until {@code expiresAt}.
+ * Deadlines are kept in an in-memory {@link HierarchicalTimingWheel} ticked every second, so
+ * expiring holds does not scan the orders table; the wheel is rebuilt from pending orders at startup.
+ * A hold is only on the wheel of the node that created it, so every {@code booking.hold.sweep-ms}
+ * the holds still pending {@code sweep-grace-ms} past their deadline are also expired from the
+ * database, covering nodes that stopped or never got the commit callback.
+ * Every state change of a hold is a conditional update on the order status, so a confirm racing
+ * with the expiry (or with another node) has exactly one winner.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class SeatHoldService {
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    BookingService bookingService;
+    OrderRepository orderRepository;
+    TicketRepository ticketRepository;
+    VoucherQuotaService voucherQuotaService;
+    OrderMapper orderMapper;
+    SeatInventoryService seatInventoryService;
+    TicketAvailabilityService ticketAvailabilityService;
+    EventPopularityService eventPopularityService;
+    CurrentUserService currentUserService;
+    PlatformTransactionManager transactionManager;
+
+    HierarchicalTimingWheel<String> expiryWheel =
+            new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_SIZE, System.currentTimeMillis());
+    Map<String, HierarchicalTimingWheel.Timeout<String>> timeouts = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${booking.hold.sweep-grace-ms:30000}")
+    long sweepGraceMillis;
+
+    @NonFinal
+    @Value("${booking.hold.sweep-batch-size:500}")
+    int sweepBatchSize;
+
+    /**
+     * Reserve seats and quantity for {@link EventConstants#SEAT_RESERVATION_TIMEOUT_MINUTES} minutes
+     */
+    @Transactional
+    public PurchaseResponse holdTickets(PurchaseRequest request) {
+        log.info("Processing ticket hold request: eventId={}, ticketTypeId={}, quantity={}",
+                request.getEventId(), request.getTicketTypeId(), request.getQuantity());
+
+        LocalDateTime expiresAt = LocalDateTime.now().plusMinutes(EventConstants.SEAT_RESERVATION_TIMEOUT_MINUTES);
+        Order order = bookingService.placeOrder(request, OrderStatus.PENDING, expiresAt);
+
+        // Only start the clock once the hold is visible to others
+        String orderId = order.getId();
+        runAfterCommit(() -> scheduleExpiry(orderId, expiresAt));
+
+        log.info("Tickets held: orderId={}, expiresAt={}", orderId, expiresAt);
+        return orderMapper.toPurchaseResponse(order);
+    }
+
+    /**
+     * Turn a hold of the current user into a completed order
+     */
+    @Transactional
+    public PurchaseResponse confirmHold(String orderId) {
+        Order order = getOwnOrder(orderId);
+
+        if (order.getStatus() == OrderStatus.COMPLETED) {
+            throw new AppException(ErrorCode.ORDER_ALREADY_COMPLETED);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (orderRepository.completeIfPending(orderId, now) == 0) {
+            throw new AppException(ErrorCode.ORDER_EXPIRED);
+        }
+        runAfterCommit(() -> cancelExpiry(orderId));
+        eventPopularityService.recordSalesAfterCommit(order.getEvent().getId(), order.getQuantity());
+        seatInventoryService.markSeatsSoldAfterCommit(order.getEvent().getId(), ticketRepository.findSeatIdsByOrderId(orderId));
+
+        log.info("Hold confirmed: orderId={}", orderId);
+        PurchaseResponse response = orderMapper.toPurchaseResponse(order);
+        response.setStatus(OrderStatus.COMPLETED);
+        return response;
+    }
+
+    /**
+     * Give up a hold of the current user before it expires
+     */
+    @Transactional
+    public void releaseHold(String orderId) {
+        Order order = getOwnOrder(orderId);
+
+        if (order.getStatus() == OrderStatus.COMPLETED) {
+            throw new AppException(ErrorCode.ORDER_ALREADY_COMPLETED);
+        }
+        if (!closeHold(order, OrderStatus.CANCELLED)) {
+            throw new AppException(ErrorCode.ORDER_EXPIRED);
+        }
+        runAfterCommit(() -> cancelExpiry(orderId));
+
+        log.info("Hold released: orderId={}", orderId);
+    }
+
+    /**
+     * Rebuild the expiry wheel from the holds still pending in the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadPendingHolds() {
+        List<Object[]> pending = orderRepository.findPendingOrderExpirations();
+        for (Object[] row : pending) {
+            LocalDateTime expiresAt = (LocalDateTime) row[1];
+            scheduleExpiry((String) row[0], expiresAt != null ? expiresAt : LocalDateTime.now());
+        }
+        log.info("Scheduled expiry of {} pending holds", pending.size());
+    }
+
+    /**
+     * Advance the wheel and expire every hold whose deadline has passed
+     */
+    @Scheduled(fixedRate = TICK_MILLIS)
+    public void expireHolds() {
+        List<String> expired = expiryWheel.advance(System.currentTimeMillis());
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        for (String orderId : expired) {
+            timeouts.remove(orderId);
+            try {
+                expire(orderId);
+            } catch (RuntimeException e) {
+                log.warn("Could not expire hold {}, retrying later", orderId, e);
+                timeouts.put(orderId, expiryWheel.schedule(orderId, System.currentTimeMillis() + RETRY_DELAY_MILLIS));
+            }
+        }
+    }
+
+    /**
+     * Expire holds left pending past their deadline whatever node created them
+     */
+    @Scheduled(fixedDelayString = "${booking.hold.sweep-ms:60000}", initialDelayString = "${booking.hold.sweep-ms:60000}")
+    public void sweepExpiredHolds() {
+        LocalDateTime overdue = LocalDateTime.now().minus(sweepGraceMillis, ChronoUnit.MILLIS);
+        List<String> orderIds;
+        try {
+            orderIds = orderRepository.findPendingOrderIdsExpiredBefore(overdue, Limit.of(sweepBatchSize));
+        } catch (RuntimeException e) {
+            log.warn("Could not look up expired holds", e);
+            return;
+        }
+        for (String orderId : orderIds) {
+            try {
+                expire(orderId);
+                cancelExpiry(orderId);
+            } catch (RuntimeException e) {
+                log.warn("Could not expire hold {}, retrying on the next sweep", orderId, e);
+            }
+        }
+    }
+
+    private void expire(String orderId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                orderRepository.findById(orderId).ifPresent(order -> {
+                    if (closeHold(order, OrderStatus.EXPIRED)) {
+                        log.info("Hold expired: orderId={}", orderId);
+                    }
+                }));
+    }
+
+    /**
+     * Move a pending order to {@code status}, cancel its tickets and give seats, quantity and
+     * voucher use back. Must run inside a transaction.
+     *
+     * @return false if the order was no longer pending
+     */
+    private boolean closeHold(Order order, OrderStatus status) {
+        if (orderRepository.closeIfPending(order.getId(), status) == 0) {
+            return false;
+        }
+
+        List<String> seatIds = ticketRepository.findSeatIdsByOrderId(order.getId());
+        ticketRepository.cancelByOrderId(order.getId(), TicketStatus.CANCELLED, LocalDateTime.now());
+
+        if (order.getVoucher() != null) {
+            voucherQuotaService.release(order.getVoucher().getId());
+        }
+
+        seatInventoryService.releaseSeatsAfterCommit(order.getEvent().getId(), seatIds);
+        ticketAvailabilityService.releaseCancelled(order.getTicketType().getId(), order.getQuantity());
+        return true;
+    }
+
+    private void scheduleExpiry(String orderId, LocalDateTime expiresAt) {
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        timeouts.put(orderId, expiryWheel.schedule(orderId, deadline));
+    }
+
+    private void cancelExpiry(String orderId) {
+        HierarchicalTimingWheel.Timeout<String> timeout = timeouts.remove(orderId);
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private Order getOwnOrder(String orderId) {
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new AppException(ErrorCode.ORDER_NOT_FOUND));
+
+        if (!order.getUser().getId().equals(currentUserService.getCurrentUserId())) {
+            throw new AppException(ErrorCode.UNAUTHORIZED);
+        }
+        return order;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,448 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.entity.Event;
+import com.uit.vesbookingapi.entity.Seat;
+import com.uit.vesbookingapi.enums.SeatStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.EventRepository;
+import com.uit.vesbookingapi.repository.SeatRepository;
+import com.uit.vesbookingapi.utils.AtomicBitSet;
+import com.uit.vesbookingapi.utils.BackgroundExecutors;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process seat inventory per event.
+ * Each event keeps a bit per venue seat; buyers claim seats with CAS instead of
+ * locking ticket rows, so concurrent purchases for the same event never wait on each other.
+ * The inventory is built from sold and reserved seats at startup (or on first use)
+ * and the ticket insert of the purchase transaction is the write-through to the database.
+ * <p>
+ * The {@code uk_ticket_event_seat} constraint catches a seat this node saw as free but another
+ * node sold; the event's inventory is then rebuilt from the database, as it is after venue or
+ * seat changes. A rebuild keeps the claims of transactions still in flight.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class SeatInventoryService {
+    private static final String SEAT_CONSTRAINT = "uk_ticket_event_seat";
+
+    EventRepository eventRepository;
+    SeatRepository seatRepository;
+    SeatingSnapshotService seatingSnapshotService;
+
+    Map<String, EventSeatInventory> inventories = new ConcurrentHashMap<>();
+    Set<String> queuedRebuilds = ConcurrentHashMap.newKeySet();
+    // Rebuilds read the database, so they never run on a thread that may hold a connection
+    ExecutorService rebuilds;
+
+    public SeatInventoryService(
+            EventRepository eventRepository,
+            SeatRepository seatRepository,
+            SeatingSnapshotService seatingSnapshotService,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.eventRepository = eventRepository;
+        this.seatRepository = seatRepository;
+        this.seatingSnapshotService = seatingSnapshotService;
+        this.rebuilds = BackgroundExecutors.newExecutor("seat-rebuild", virtualThreads);
+    }
+
+    /**
+     * Load inventories of upcoming events with a venue so the first buyers do not pay the load cost
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<String> eventIds = eventRepository.findUpcomingEventIdsWithVenue(LocalDateTime.now());
+        for (String eventId : eventIds) {
+            try {
+                getInventory(eventId);
+            } catch (RuntimeException e) {
+                log.warn("Could not load seat inventory for event {}", eventId, e);
+            }
+        }
+        log.info("Seat inventory loaded for {} events", eventIds.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilds.shutdown();
+    }
+
+    /**
+     * Atomically claim seats for an event: either every seat is claimed or none is.
+     * When called inside a transaction the claim is released again if the transaction rolls back;
+     * once it commits the seating snapshot shows the seats as {@code seatStatus}.
+     */
+    public void claimSeats(String eventId, List<String> seatIds, SeatStatus seatStatus) {
+        EventSeatInventory inventory = getInventory(eventId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            inventory.claim(seatIds, false);
+            seatingSnapshotService.seatsChanged(eventId, seatIds, seatStatus);
+            return;
+        }
+        List<String> claimed = List.copyOf(seatIds);
+        inventory.claim(claimed, true);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                inventory.completed(claimed, committed);
+                if (committed) {
+                    seatingSnapshotService.seatsChanged(eventId, claimed, seatStatus);
+                } else {
+                    log.debug("Released {} seats of event {} after rollback", claimed.size(), eventId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Claim seats without tying the claim to a transaction or showing it in the seating map;
+     * the caller either shows them as sold with {@link #markSeatsSoldAfterCommit} or gives them
+     * back with {@link #releaseSeats}
+     */
+    public void reserveSeats(String eventId, List<String> seatIds) {
+        getInventory(eventId).claim(List.copyOf(seatIds), true);
+    }
+
+    /**
+     * Show reserved seats as sold once the current transaction commits (a confirmed hold)
+     */
+    public void markSeatsSoldAfterCommit(String eventId, Collection<String> seatIds) {
+        List<String> sold = List.copyOf(seatIds);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markSeatsSold(eventId, sold);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                markSeatsSold(eventId, sold);
+            }
+        });
+    }
+
+    /**
+     * Return seats to the inventory (e.g. after a cancellation)
+     */
+    public void releaseSeats(String eventId, Collection<String> seatIds) {
+        // Before the bits are cleared, so a new claim of the same seats is always recorded after this
+        seatingSnapshotService.seatsChanged(eventId, seatIds, SeatStatus.AVAILABLE);
+
+        EventSeatInventory inventory = inventories.get(eventId);
+        if (inventory != null) {
+            inventory.release(seatIds);
+        }
+    }
+
+    /**
+     * Return seats to the inventory once the current transaction commits
+     */
+    public void releaseSeatsAfterCommit(String eventId, Collection<String> seatIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            releaseSeats(eventId, seatIds);
+            return;
+        }
+        List<String> released = List.copyOf(seatIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                releaseSeats(eventId, released);
+            }
+        });
+    }
+
+    /**
+     * Turn a ticket insert that hit the seat constraint into {@code SEAT_ALREADY_TAKEN} and
+     * rebuild the event's inventory, which saw the seat as free; other failures are returned as is.
+     * Outside a transaction call it after giving the seats back.
+     */
+    public RuntimeException seatConflict(String eventId, RuntimeException exception) {
+        if (!(exception instanceof DataIntegrityViolationException) || exception.getMessage() == null
+                || !exception.getMessage().toLowerCase(Locale.ROOT).contains(SEAT_CONSTRAINT)) {
+            return exception;
+        }
+        log.warn("Seat inventory of event {} was out of date, rebuilding it", eventId);
+        // Once the failed claim has been given back, so the rebuild does not carry it over
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    queueRebuild(eventId);
+                }
+            });
+        } else {
+            queueRebuild(eventId);
+        }
+        return new AppException(ErrorCode.SEAT_ALREADY_TAKEN);
+    }
+
+    /**
+     * Rebuild the inventory of an event once the current transaction commits (e.g. venue changed);
+     * it is dropped if the event no longer exists
+     */
+    public void rebuildEvent(String eventId) {
+        runAfterCommit(() -> {
+            seatingSnapshotService.evictEvent(eventId);
+            queueRebuild(eventId);
+        });
+    }
+
+    /**
+     * Rebuild the inventories of every event held at a venue once the current transaction commits
+     * (e.g. seat layout changed)
+     */
+    public void rebuildVenue(String venueId) {
+        runAfterCommit(() -> {
+            seatingSnapshotService.evictVenue(venueId);
+            inventories.forEach((eventId, inventory) -> {
+                if (venueId.equals(inventory.layout.venueId)) {
+                    queueRebuild(eventId);
+                }
+            });
+        });
+    }
+
+    private void markSeatsSold(String eventId, List<String> seatIds) {
+        EventSeatInventory inventory = inventories.get(eventId);
+        if (inventory != null) {
+            inventory.completed(seatIds, true);
+        }
+        seatingSnapshotService.seatsChanged(eventId, seatIds, SeatStatus.SOLD);
+    }
+
+    private void queueRebuild(String eventId) {
+        if (inventories.containsKey(eventId) && queuedRebuilds.add(eventId)) {
+            rebuilds.execute(() -> {
+                // Removed first: a conflict found while the database is read queues another rebuild
+                queuedRebuilds.remove(eventId);
+                rebuild(eventId);
+            });
+        }
+    }
+
+    private void rebuild(String eventId) {
+        EventSeatInventory inventory = inventories.get(eventId);
+        if (inventory == null) {
+            return;
+        }
+
+        inventory.rebuildLock.lock();
+        try {
+            inventory.touched = new ConcurrentHashMap<>();
+            inventory.replace(loadLayout(eventId));
+            log.debug("Rebuilt seat inventory of event {}", eventId);
+        } catch (AppException e) {
+            // The event was deleted
+            inventories.remove(eventId, inventory);
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild seat inventory of event {}", eventId, e);
+        } finally {
+            inventory.touched = null;
+            inventory.rebuildLock.unlock();
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private EventSeatInventory getInventory(String eventId) {
+        EventSeatInventory inventory = inventories.get(eventId);
+        if (inventory != null) {
+            return inventory;
+        }
+
+        EventSeatInventory loaded = new EventSeatInventory(loadLayout(eventId));
+        EventSeatInventory existing = inventories.putIfAbsent(eventId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private SeatLayout loadLayout(String eventId) {
+        Event event = eventRepository.findById(eventId)
+                .orElseThrow(() -> new AppException(ErrorCode.EVENT_NOT_FOUND));
+
+        if (event.getVenue() == null) {
+            return new SeatLayout(null, Collections.emptyList());
+        }
+
+        List<Seat> seats = seatRepository.findByVenueId(event.getVenue().getId());
+        SeatLayout layout = new SeatLayout(event.getVenue().getId(), seats);
+
+        Set<String> occupied = new HashSet<>(seatRepository.findSoldSeatIdsByEvent(eventId));
+        occupied.addAll(seatRepository.findReservedSeatIdsByEvent(eventId, LocalDateTime.now()));
+        for (String seatId : occupied) {
+            layout.set(seatId, true);
+        }
+
+        log.debug("Loaded seat inventory for event {}: {} seats, {} occupied", eventId, seats.size(), occupied.size());
+        return layout;
+    }
+
+    private static final class EventSeatInventory {
+        // Read lock: claims and releases; write lock: swapping in a rebuilt layout
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        final ReentrantLock rebuildLock = new ReentrantLock();
+        // Claimed by transactions that have not completed yet, so not in the database
+        final Set<String> pending = ConcurrentHashMap.newKeySet();
+        volatile SeatLayout layout;
+        // Seats sold (true) or released (false) while a rebuild reads the database, null otherwise
+        volatile Map<String, Boolean> touched;
+
+        EventSeatInventory(SeatLayout layout) {
+            this.layout = layout;
+        }
+
+        void claim(List<String> seatIds, boolean pendingUntilCompleted) {
+            lock.readLock().lock();
+            try {
+                if (!layout.claimAll(layout.indexesOf(seatIds))) {
+                    throw new AppException(ErrorCode.SEAT_ALREADY_TAKEN);
+                }
+                if (pendingUntilCompleted) {
+                    pending.addAll(seatIds);
+                } else {
+                    touch(seatIds, true);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void completed(Collection<String> seatIds, boolean committed) {
+            lock.readLock().lock();
+            try {
+                pending.removeAll(seatIds);
+                if (committed) {
+                    touch(seatIds, true);
+                } else {
+                    seatIds.forEach(seatId -> layout.set(seatId, false));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void release(Collection<String> seatIds) {
+            lock.readLock().lock();
+            try {
+                pending.removeAll(seatIds);
+                seatIds.forEach(seatId -> layout.set(seatId, false));
+                touch(seatIds, false);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        /**
+         * Swap in a layout read from the database, with what changed during the read and the
+         * claims still in flight applied on top
+         */
+        void replace(SeatLayout rebuilt) {
+            lock.writeLock().lock();
+            try {
+                Map<String, Boolean> changed = touched;
+                if (changed != null) {
+                    changed.forEach(rebuilt::set);
+                }
+                pending.forEach(seatId -> rebuilt.set(seatId, true));
+                layout = rebuilt;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void touch(Collection<String> seatIds, boolean sold) {
+            Map<String, Boolean> changed = touched;
+            if (changed != null) {
+                seatIds.forEach(seatId -> changed.put(seatId, sold));
+            }
+        }
+    }
+
+    private static final class SeatLayout {
+        final String venueId;
+        final Map<String, Integer> indexBySeatId;
+        final AtomicBitSet claimed;
+
+        SeatLayout(String venueId, List<Seat> seats) {
+            this.venueId = venueId;
+            Map<String, Integer> indexes = new HashMap<>(seats.size() * 2);
+            for (int i = 0; i < seats.size(); i++) {
+                indexes.put(seats.get(i).getId(), i);
+            }
+            this.indexBySeatId = Collections.unmodifiableMap(indexes);
+            this.claimed = new AtomicBitSet(seats.size());
+        }
+
+        int[] indexesOf(List<String> seatIds) {
+            int[] indexes = new int[seatIds.size()];
+            Set<Integer> seen = new HashSet<>();
+            for (int i = 0; i < seatIds.size(); i++) {
+                Integer index = indexBySeatId.get(seatIds.get(i));
+                if (index == null) {
+                    throw new AppException(ErrorCode.SEAT_NOT_FOUND);
+                }
+                if (!seen.add(index)) {
+                    throw new AppException(ErrorCode.INVALID_TICKET_QUANTITY);
+                }
+                indexes[i] = index;
+            }
+            return indexes;
+        }
+
+        boolean claimAll(int[] indexes) {
+            for (int i = 0; i < indexes.length; i++) {
+                if (!claimed.trySet(indexes[i])) {
+                    for (int j = 0; j < i; j++) {
+                        claimed.tryClear(indexes[j]);
+                    }
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Seats not in this layout are ignored
+        void set(String seatId, boolean taken) {
+            Integer index = indexBySeatId.get(seatId);
+            if (index == null) {
+                return;
+            }
+            if (taken) {
+                claimed.trySet(index);
+            } else {
+                claimed.tryClear(index);
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ public class SeatService {
     SeatRepository seatRepository;
     VenueRepository venueRepository;
     TicketRepository ticketRepository;
+    SeatInventoryService seatInventoryService;
 
     public List<SeatResponse> getSeatsByVenue(String venueId) {
         Venue venue = venueRepository.findById(venueId)
@@ -70,6 +71,7 @@ public class SeatService {
                 .build();
 
         seat = seatRepository.save(seat);
+        seatInventoryService.rebuildVenue(venueId);
         log.info("Created seat {} in venue {}", seat.getId(), venueId);
         return toSeatResponse(seat);
     }
@@ -115,6 +117,7 @@ public class SeatService {
         }
 
         seatRepository.deleteById(seatId);
+        seatInventoryService.rebuildVenue(seat.getVenue().getId());
         log.info("Deleted seat {}", seatId);
     }
 
@@ -144,6 +147,7 @@ public class SeatService {
                 .collect(Collectors.toList());
 
         List<Seat> savedSeats = seatRepository.saveAll(seatsToCreate);
+        seatInventoryService.rebuildVenue(venueId);
         log.info("Created {} seats in venue {}", savedSeats.size(), venueId);
         return savedSeats.stream()
                 .map(this::toSeatResponse)
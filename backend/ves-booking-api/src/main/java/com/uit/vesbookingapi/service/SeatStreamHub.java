@@ -0,0 +1,110 @@
+package com.uit.vesbookingapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.uit.vesbookingapi.dto.response.SeatingChangesResponse;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.utils.SseFanOut;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of seat status changes to Server-Sent Events subscribers, per event.
+ * A change is serialized once into a complete SSE frame ({@code id} = seating version,
+ * {@code event: seats}, {@code data} = {@link SeatingChangesResponse}) and the same bytes are
+ * queued for every subscriber of the event through {@link SseFanOut}. A client whose queue is
+ * full is disconnected, and reconnects with {@code Last-Event-ID} to catch up.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+public class SeatStreamHub {
+    private static final String EVENT_NAME = "seats";
+
+    ObjectMapper objectMapper;
+    SseFanOut fanOut;
+
+    public SeatStreamHub(
+            ObjectMapper objectMapper,
+            @Value("${booking.seat-stream.max-subscribers:20000}") int maxSubscribers,
+            @Value("${booking.seat-stream.queue-size:32}") int queueSize,
+            @Value("${booking.seat-stream.timeout-ms:1800000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.fanOut = new SseFanOut("seat stream", maxSubscribers, queueSize, SseFanOut.WhenFull.DISCONNECT, timeoutMs);
+    }
+
+    /**
+     * Open a stream of the seat changes of an event. {@code catchUp} is called after the
+     * subscriber is registered and its result is sent first, so no change falls between the
+     * two; live changes already covered by its version are skipped.
+     */
+    public SseEmitter subscribe(String eventId, Supplier<SeatingChangesResponse> catchUp) {
+        SseFanOut.Subscriber subscriber = fanOut.subscribe(eventId);
+        if (subscriber == null) {
+            throw new AppException(ErrorCode.SEAT_STREAM_FULL);
+        }
+
+        try {
+            SeatingChangesResponse changes = catchUp.get();
+            subscriber.send(encode(changes));
+            subscriber.start(changes.getVersion());
+        } catch (IOException | RuntimeException e) {
+            subscriber.cancel();
+            if (e instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Could not start seat stream", e);
+        }
+        return subscriber.emitter();
+    }
+
+    /**
+     * Queue a change for every subscriber of its event
+     */
+    public void publish(SeatingChangesResponse changes) {
+        if (fanOut.hasSubscribers(changes.getEventId())) {
+            fanOut.publish(changes.getEventId(), encode(changes));
+        }
+    }
+
+    /**
+     * Disconnect every subscriber of an event, e.g. when its seating map changed shape
+     */
+    public void closeEvent(String eventId) {
+        fanOut.closeTopic(eventId);
+    }
+
+    public int subscriberCount() {
+        return fanOut.subscriberCount();
+    }
+
+    /**
+     * Comment frame to idle subscribers, so dead connections are noticed and proxies keep idle streams open
+     */
+    @Scheduled(fixedDelayString = "${booking.seat-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        fanOut.heartbeat();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fanOut.shutdown();
+    }
+
+    private SseFanOut.Frame encode(SeatingChangesResponse changes) {
+        try {
+            return SseFanOut.Frame.of(changes.getVersion(), "id:" + changes.getVersion() + "\nevent:" + EVENT_NAME
+                    + "\ndata:" + objectMapper.writeValueAsString(changes) + "\n\n");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize seat changes", e);
+        }
+    }
+}
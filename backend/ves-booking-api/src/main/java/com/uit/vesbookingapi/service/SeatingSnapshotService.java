@@ -0,0 +1,550 @@
+package com.uit.vesbookingapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.uit.vesbookingapi.dto.response.*;
+import com.uit.vesbookingapi.entity.Event;
+import com.uit.vesbookingapi.entity.Seat;
+import com.uit.vesbookingapi.entity.TicketType;
+import com.uit.vesbookingapi.entity.Venue;
+import com.uit.vesbookingapi.enums.SeatStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.EventRepository;
+import com.uit.vesbookingapi.repository.SeatRepository;
+import com.uit.vesbookingapi.repository.TicketTypeRepository;
+import com.uit.vesbookingapi.repository.VenueRepository;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versioned in-memory seating map per event.
+ * The seat layout and per-seat status are loaded once; after that purchases, holds, hold
+ * expiries and cancellations patch the status (via {@link SeatInventoryService}) and bump the
+ * version, keeping the last {@code booking.seating.change-log-size} changes so clients can poll
+ * for what changed since the version they have instead of reloading the whole map.
+ * The full response tree and the status bitmap are built at most once per version. Every change
+ * is also pushed to the live seat streams of the event through {@link SeatStreamHub}.
+ * Changes made on other nodes are picked up by re-reading the status of every held event every
+ * {@code booking.seating.refresh-ms} and applying the differences the same way.
+ * <p>
+ * The layout of a venue (seats in section/row order, which is also the seat index order) is
+ * cached separately with an ETag, so clients can keep it and fetch only the 2-bit status bitmap.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class SeatingSnapshotService {
+    private static final SeatStatus[] STATUSES = SeatStatus.values();
+
+    EventRepository eventRepository;
+    TicketTypeRepository ticketTypeRepository;
+    SeatRepository seatRepository;
+    VenueRepository venueRepository;
+    SeatStreamHub seatStreamHub;
+    TransactionTemplate readOnlyTransaction;
+    Cache<String, EventSeating> snapshots;
+    Cache<String, VenueLayout> layouts;
+    int changeLogSize;
+
+    // Versions are unique across events; seeding from the clock keeps versions handed out by a
+    // restarted node (or another node) from falling into the range of an older snapshot
+    AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public SeatingSnapshotService(
+            EventRepository eventRepository,
+            TicketTypeRepository ticketTypeRepository,
+            SeatRepository seatRepository,
+            VenueRepository venueRepository,
+            SeatStreamHub seatStreamHub,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.seating.max-snapshots:500}") long maxSnapshots,
+            @Value("${booking.seating.change-log-size:10000}") int changeLogSize) {
+        this.eventRepository = eventRepository;
+        this.ticketTypeRepository = ticketTypeRepository;
+        this.seatRepository = seatRepository;
+        this.venueRepository = venueRepository;
+        this.seatStreamHub = seatStreamHub;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSnapshots)
+                .expireAfterAccess(Duration.ofHours(1))
+                // Streams only get changes while the snapshot is held; reconnecting clients catch up or resync
+                .<String, EventSeating>removalListener((eventId, seating, cause) -> {
+                    if (cause != RemovalCause.REPLACED) {
+                        seatStreamHub.closeEvent(eventId);
+                    }
+                })
+                .build();
+        this.layouts = Caffeine.newBuilder()
+                .maximumSize(maxSnapshots)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+        this.changeLogSize = changeLogSize;
+    }
+
+    /**
+     * Seating map of an event held at {@code venueId}, with the version it reflects
+     */
+    public VenueSeatingResponse getSeating(String venueId, String eventId) {
+        return getSnapshot(venueId, eventId).toResponse();
+    }
+
+    /**
+     * Seat status of an event as a bitmap over the seat indexes of its layout
+     */
+    public SeatStatusBitmapResponse getStatusBitmap(String venueId, String eventId) {
+        return getSnapshot(venueId, eventId).toBitmap();
+    }
+
+    /**
+     * Seats of a venue, without status
+     */
+    public SeatLayoutResponse getLayout(String venueId) {
+        return getVenueLayout(venueId).response;
+    }
+
+    public String getLayoutETag(String venueId) {
+        return getVenueLayout(venueId).etag;
+    }
+
+    /**
+     * Latest status of every seat changed after {@code sinceVersion}
+     */
+    public SeatingChangesResponse getChanges(String venueId, String eventId, long sinceVersion) {
+        return getSnapshot(venueId, eventId).changesSince(sinceVersion);
+    }
+
+    /**
+     * Record a committed status change of seats and push it to the event's seat streams.
+     * Waits for a snapshot of the event that is being loaded, so a change committed during
+     * the load is not lost; changes of one event are published in version order.
+     */
+    public void seatsChanged(String eventId, Collection<String> seatIds, SeatStatus status) {
+        if (seatIds.isEmpty()) {
+            return;
+        }
+        EventSeating seating = heldSnapshot(eventId);
+        if (seating != null) {
+            synchronized (seating.publishLock) {
+                publish(seating.apply(seatIds, status, versions));
+            }
+        }
+    }
+
+    /**
+     * Re-read the seat status of every held event and apply what changed on other nodes.
+     * Seats this node changed while a status was being read keep their newer local status.
+     */
+    @Scheduled(fixedDelayString = "${booking.seating.refresh-ms:30000}",
+            initialDelayString = "${booking.seating.refresh-ms:30000}")
+    public void refresh() {
+        for (EventSeating seating : List.copyOf(snapshots.asMap().values())) {
+            if (seating.layout.seatIds.length == 0) {
+                continue;
+            }
+            try {
+                long readAfter = seating.currentVersion();
+                byte[] loaded = readOnlyTransaction.execute(status -> loadStatuses(seating.eventId, seating.layout));
+                synchronized (seating.publishLock) {
+                    if (snapshots.asMap().get(seating.eventId) == seating) {
+                        publish(seating.applyLoaded(loaded, readAfter, versions));
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not refresh the seating snapshot of event {}", seating.eventId, e);
+            }
+        }
+    }
+
+    public void evictEvent(String eventId) {
+        snapshots.invalidate(eventId);
+    }
+
+    public void evictVenue(String venueId) {
+        layouts.invalidate(venueId);
+        snapshots.asMap().values().removeIf(seating -> venueId.equals(seating.layout.venueId));
+    }
+
+    /**
+     * Snapshot of an event if one is held, waiting for one that is being loaded
+     */
+    private EventSeating heldSnapshot(String eventId) {
+        EventSeating[] held = new EventSeating[1];
+        snapshots.asMap().computeIfPresent(eventId, (id, seating) -> held[0] = seating);
+        return held[0];
+    }
+
+    // Outside the cache's compute, which would block other events of the same hash bin while encoding
+    private void publish(SeatingChangesResponse changes) {
+        if (!changes.getChanges().isEmpty()) {
+            seatStreamHub.publish(changes);
+        }
+    }
+
+    private EventSeating getSnapshot(String venueId, String eventId) {
+        EventSeating seating = snapshots.get(eventId, this::load);
+        if (!venueId.equals(seating.layout.venueId)) {
+            throw new AppException(ErrorCode.VENUE_NOT_FOUND);
+        }
+        return seating;
+    }
+
+    private VenueLayout getVenueLayout(String venueId) {
+        return layouts.get(venueId, id -> readOnlyTransaction.execute(status -> {
+            Venue venue = venueRepository.findById(id)
+                    .orElseThrow(() -> new AppException(ErrorCode.VENUE_NOT_FOUND));
+            return new VenueLayout(venue.getId(), venue.getName(), seatRepository.findByVenueId(id));
+        }));
+    }
+
+    private EventSeating load(String eventId) {
+        return readOnlyTransaction.execute(status -> {
+            Event event = eventRepository.findById(eventId)
+                    .orElseThrow(() -> new AppException(ErrorCode.EVENT_NOT_FOUND));
+            if (event.getVenue() == null) {
+                return new EventSeating(eventId, new VenueLayout(null, null, List.of()), new byte[0],
+                        versions.incrementAndGet(), changeLogSize);
+            }
+
+            // Events with standing tickets only have no seating map
+            Venue venue = event.getVenue();
+            boolean seated = ticketTypeRepository.findByEventId(eventId).stream()
+                    .anyMatch(TicketType::getRequiresSeatSelection);
+            VenueLayout layout = seated
+                    ? getVenueLayout(venue.getId())
+                    : new VenueLayout(venue.getId(), venue.getName(), List.of());
+
+            EventSeating seating = new EventSeating(eventId, layout, loadStatuses(eventId, layout),
+                    versions.incrementAndGet(), changeLogSize);
+            log.debug("Loaded seating snapshot of event {}: {} seats", eventId, layout.seatIds.length);
+            return seating;
+        });
+    }
+
+    /**
+     * Status of every seat in the layout, indexed like it
+     */
+    private byte[] loadStatuses(String eventId, VenueLayout layout) {
+        byte[] statuses = new byte[layout.seatIds.length];
+        layout.setStatus(statuses, seatRepository.findReservedSeatIdsByEvent(eventId, LocalDateTime.now()), SeatStatus.RESERVED);
+        layout.setStatus(statuses, seatRepository.findSoldSeatIdsByEvent(eventId), SeatStatus.SOLD);
+        return statuses;
+    }
+
+    /**
+     * Seats of a venue grouped by section, then row (in first-seen order); a seat's index is its
+     * position in that order, so every row is a contiguous index range
+     */
+    private static final class VenueLayout {
+        final String venueId;
+        final String venueName;
+        final String[] seatIds;
+        final String[] seatNumbers;
+        final Map<String, Integer> indexBySeatId;
+        final List<Section> sections = new ArrayList<>();
+        final SeatLayoutResponse response;
+        final String etag;
+
+        VenueLayout(String venueId, String venueName, List<Seat> seats) {
+            this.venueId = venueId;
+            this.venueName = venueName;
+
+            Map<String, Map<String, List<Seat>>> grouped = new LinkedHashMap<>();
+            for (Seat seat : seats) {
+                grouped.computeIfAbsent(seat.getSectionName(), k -> new LinkedHashMap<>())
+                        .computeIfAbsent(seat.getRowName(), k -> new ArrayList<>())
+                        .add(seat);
+            }
+
+            int size = seats.size();
+            this.seatIds = new String[size];
+            this.seatNumbers = new String[size];
+            this.indexBySeatId = new HashMap<>(size * 2);
+            List<SectionLayoutResponse> sectionResponses = new ArrayList<>(grouped.size());
+            int index = 0;
+            for (Map.Entry<String, Map<String, List<Seat>>> section : grouped.entrySet()) {
+                List<Row> rows = new ArrayList<>(section.getValue().size());
+                List<RowLayoutResponse> rowResponses = new ArrayList<>(section.getValue().size());
+                for (Map.Entry<String, List<Seat>> row : section.getValue().entrySet()) {
+                    int from = index;
+                    for (Seat seat : row.getValue()) {
+                        seatIds[index] = seat.getId();
+                        seatNumbers[index] = seat.getSeatNumber();
+                        indexBySeatId.put(seat.getId(), index);
+                        index++;
+                    }
+                    rows.add(new Row(row.getKey(), from, index));
+                    rowResponses.add(RowLayoutResponse.builder()
+                            .rowName(row.getKey())
+                            .firstSeatIndex(from)
+                            .seatIds(Arrays.asList(seatIds).subList(from, index))
+                            .seatNumbers(Arrays.asList(seatNumbers).subList(from, index))
+                            .build());
+                }
+                sections.add(new Section(section.getKey(), rows));
+                sectionResponses.add(SectionLayoutResponse.builder()
+                        .sectionName(section.getKey())
+                        .rows(rowResponses)
+                        .build());
+            }
+
+            this.response = SeatLayoutResponse.builder()
+                    .venueId(venueId)
+                    .venueName(venueName)
+                    .seatCount(size)
+                    .sections(sectionResponses)
+                    .build();
+            this.etag = computeETag();
+        }
+
+        void setStatus(byte[] statuses, Collection<String> seatIds, SeatStatus status) {
+            for (String seatId : seatIds) {
+                Integer index = indexBySeatId.get(seatId);
+                if (index != null) {
+                    statuses[index] = (byte) status.ordinal();
+                }
+            }
+        }
+
+        private String computeETag() {
+            StringBuilder content = new StringBuilder().append(venueId).append('\n').append(venueName);
+            for (Section section : sections) {
+                content.append('\n').append(section.name());
+                for (Row row : section.rows()) {
+                    content.append('\n').append(row.name());
+                    for (int i = row.from(); i < row.to(); i++) {
+                        content.append('\n').append(seatIds[i]).append('\t').append(seatNumbers[i]);
+                    }
+                }
+            }
+            return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+        }
+    }
+
+    private record Section(String name, List<Row> rows) {
+    }
+
+    // Seat indexes [from, to)
+    private record Row(String name, int from, int to) {
+    }
+
+    private static final class EventSeating {
+        final String eventId;
+        final VenueLayout layout;
+        final int changeLogSize;
+        // Held from applying a change until it is published, so changes reach the streams in version order
+        final Object publishLock = new Object();
+
+        // Guarded by this
+        final byte[] statuses;
+        final ArrayDeque<Change> changeLog = new ArrayDeque<>();
+        long version;
+        long oldestKnownVersion;
+
+        volatile VenueSeatingResponse cachedResponse;
+        volatile SeatStatusBitmapResponse cachedBitmap;
+
+        EventSeating(String eventId, VenueLayout layout, byte[] statuses, long version, int changeLogSize) {
+            this.eventId = eventId;
+            this.layout = layout;
+            this.changeLogSize = changeLogSize;
+            this.version = version;
+            this.oldestKnownVersion = version;
+            this.statuses = statuses;
+        }
+
+        synchronized long currentVersion() {
+            return version;
+        }
+
+        /**
+         * @return the seats whose status actually changed, with the resulting version
+         */
+        synchronized SeatingChangesResponse apply(Collection<String> changedSeatIds, SeatStatus status, AtomicLong versions) {
+            byte value = (byte) status.ordinal();
+            List<SeatStatusChangeResponse> applied = new ArrayList<>(changedSeatIds.size());
+            for (String seatId : changedSeatIds) {
+                Integer index = layout.indexBySeatId.get(seatId);
+                if (index == null || statuses[index] == value) {
+                    continue;
+                }
+                record(index, value, versions);
+                applied.add(SeatStatusChangeResponse.builder().seatId(seatId).status(status).build());
+            }
+            return SeatingChangesResponse.builder()
+                    .eventId(eventId)
+                    .version(version)
+                    .resync(false)
+                    .changes(applied)
+                    .build();
+        }
+
+        /**
+         * Apply a status read from the database once version {@code readAfter} was current,
+         * skipping seats that changed here since then
+         */
+        synchronized SeatingChangesResponse applyLoaded(byte[] loaded, long readAfter, AtomicLong versions) {
+            List<SeatStatusChangeResponse> applied = new ArrayList<>();
+            // Otherwise the changes made during the read are no longer known; the next refresh applies it
+            if (readAfter >= oldestKnownVersion) {
+                Set<Integer> changedSince = new HashSet<>();
+                Iterator<Change> changes = changeLog.descendingIterator();
+                while (changes.hasNext()) {
+                    Change change = changes.next();
+                    if (change.version() <= readAfter) {
+                        break;
+                    }
+                    changedSince.add(change.seatIndex());
+                }
+                for (int index = 0; index < statuses.length; index++) {
+                    if (statuses[index] != loaded[index] && !changedSince.contains(index)) {
+                        record(index, loaded[index], versions);
+                        applied.add(SeatStatusChangeResponse.builder()
+                                .seatId(layout.seatIds[index])
+                                .status(STATUSES[loaded[index]])
+                                .build());
+                    }
+                }
+            }
+            return SeatingChangesResponse.builder()
+                    .eventId(eventId)
+                    .version(version)
+                    .resync(false)
+                    .changes(applied)
+                    .build();
+        }
+
+        // Caller holds this
+        private void record(int index, byte value, AtomicLong versions) {
+            statuses[index] = value;
+            version = versions.incrementAndGet();
+            changeLog.addLast(new Change(version, index, value));
+            if (changeLog.size() > changeLogSize) {
+                oldestKnownVersion = changeLog.removeFirst().version();
+            }
+        }
+
+        VenueSeatingResponse toResponse() {
+            VenueSeatingResponse cached = cachedResponse;
+            byte[] statusCopy;
+            long currentVersion;
+            synchronized (this) {
+                if (cached != null && cached.getVersion() == version) {
+                    return cached;
+                }
+                statusCopy = statuses.clone();
+                currentVersion = version;
+            }
+
+            List<SectionResponse> sections = new ArrayList<>(layout.sections.size());
+            for (Section section : layout.sections) {
+                List<RowResponse> rowResponses = new ArrayList<>(section.rows().size());
+                for (Row row : section.rows()) {
+                    List<SeatResponse> seats = new ArrayList<>(row.to() - row.from());
+                    for (int index = row.from(); index < row.to(); index++) {
+                        seats.add(SeatResponse.builder()
+                                .id(layout.seatIds[index])
+                                .sectionName(section.name())
+                                .rowName(row.name())
+                                .seatNumber(layout.seatNumbers[index])
+                                .status(STATUSES[statusCopy[index]])
+                                .build());
+                    }
+                    rowResponses.add(RowResponse.builder().rowName(row.name()).seats(seats).build());
+                }
+                sections.add(SectionResponse.builder().sectionName(section.name()).rows(rowResponses).build());
+            }
+
+            VenueSeatingResponse response = VenueSeatingResponse.builder()
+                    .venueId(layout.venueId)
+                    .venueName(layout.venueName)
+                    .eventId(eventId)
+                    .version(currentVersion)
+                    .sections(sections)
+                    .build();
+            cachedResponse = response;
+            return response;
+        }
+
+        SeatStatusBitmapResponse toBitmap() {
+            SeatStatusBitmapResponse cached = cachedBitmap;
+            byte[] bitmap = new byte[(statuses.length + 3) / 4];
+            long currentVersion;
+            synchronized (this) {
+                if (cached != null && cached.getVersion() == version) {
+                    return cached;
+                }
+                for (int i = 0; i < statuses.length; i++) {
+                    bitmap[i >> 2] |= (byte) (statuses[i] << ((i & 3) << 1));
+                }
+                currentVersion = version;
+            }
+
+            SeatStatusBitmapResponse response = SeatStatusBitmapResponse.builder()
+                    .venueId(layout.venueId)
+                    .eventId(eventId)
+                    .version(currentVersion)
+                    .layoutETag(layout.etag)
+                    .seatCount(statuses.length)
+                    .statuses(bitmap)
+                    .build();
+            cachedBitmap = response;
+            return response;
+        }
+
+        synchronized SeatingChangesResponse changesSince(long sinceVersion) {
+            if (sinceVersion < oldestKnownVersion || sinceVersion > version) {
+                return SeatingChangesResponse.builder()
+                        .eventId(eventId)
+                        .version(version)
+                        .resync(true)
+                        .changes(List.of())
+                        .build();
+            }
+
+            // Latest status per seat, in the order the seats last changed
+            Map<Integer, Byte> latest = new LinkedHashMap<>();
+            Iterator<Change> changes = changeLog.descendingIterator();
+            while (changes.hasNext()) {
+                Change change = changes.next();
+                if (change.version() <= sinceVersion) {
+                    break;
+                }
+                latest.putIfAbsent(change.seatIndex(), change.status());
+            }
+
+            List<SeatStatusChangeResponse> responses = new ArrayList<>(latest.size());
+            latest.forEach((index, status) -> responses.add(SeatStatusChangeResponse.builder()
+                    .seatId(layout.seatIds[index])
+                    .status(STATUSES[status])
+                    .build()));
+            Collections.reverse(responses);
+
+            return SeatingChangesResponse.builder()
+                    .eventId(eventId)
+                    .version(version)
+                    .resync(false)
+                    .changes(responses)
+                    .build();
+        }
+    }
+
+    private record Change(long version, int seatIndex, byte status) {
+    }
+}
@@ -0,0 +1,520 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.entity.TicketLease;
+import com.uit.vesbookingapi.enums.TicketStatus;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.TicketLeaseRepository;
+import com.uit.vesbookingapi.repository.TicketRepository;
+import com.uit.vesbookingapi.repository.TicketTypeRepository;
+import com.uit.vesbookingapi.utils.StripedCounter;
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory ticket type availability.
+ * Each node leases a block of quantity from {@code TicketType.available} and hands it out to
+ * buyers from a {@link StripedCounter}, so most sales do not touch the ticket type row at all.
+ * A purchase that finds the lease empty takes the next block on its own connection, under a lock
+ * of the ticket type row, so refilling never needs a second connection while buyers wait.
+ * <p>
+ * What a node has leased is recorded in {@code TicketLease} in the same transaction, and kept
+ * close to what it really holds by {@link #reconcile()}. Rows of a node that stopped renewing
+ * them are given back by {@link #reclaimStranded()}, bounded by what the ticket counts leave
+ * unaccounted for, so a crashed node does not strand its lease.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class TicketAvailabilityService {
+    private static final List<TicketStatus> SOLD = List.of(TicketStatus.ACTIVE, TicketStatus.USED);
+
+    TicketTypeRepository ticketTypeRepository;
+    TicketLeaseRepository ticketLeaseRepository;
+    TicketRepository ticketRepository;
+    PlatformTransactionManager transactionManager;
+
+    String nodeId = UUID.randomUUID().toString();
+    Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${booking.availability.lease-size:20}")
+    int leaseSize;
+
+    @NonFinal
+    @Value("${booking.availability.idle-return-ms:30000}")
+    long idleReturnMillis;
+
+    @NonFinal
+    @Value("${booking.availability.node-timeout-ms:300000}")
+    long nodeTimeoutMillis;
+
+    /**
+     * Take quantity of a ticket type for the current purchase.
+     * Inside a transaction the quantity is given back if it rolls back. Outside one, the caller
+     * must end with {@link #confirm} once the sale is committed or {@link #release} if it is not.
+     */
+    public void acquire(String ticketTypeId, int quantity) {
+        Lease lease = lease(ticketTypeId);
+        lease.lastUsed = System.currentTimeMillis();
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+
+        if (!lease.tryTake(quantity)) {
+            if (inTransaction) {
+                leaseInTransaction(ticketTypeId, lease, quantity);
+                return;
+            }
+            refillAndTake(ticketTypeId, lease, quantity);
+        }
+
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        lease.sold(quantity);
+                    } else {
+                        lease.giveBack(quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Quantity taken by {@link #acquire} outside a transaction has been sold
+     */
+    public void confirm(String ticketTypeId, int quantity) {
+        lease(ticketTypeId).sold(quantity);
+    }
+
+    /**
+     * Give back quantity taken by {@link #acquire} outside a transaction that was not sold
+     */
+    public void release(String ticketTypeId, int quantity) {
+        // Returned to the database by the reconciler once the lease is idle
+        lease(ticketTypeId).giveBack(quantity);
+    }
+
+    /**
+     * Give the quantity of cancelled tickets back to {@code TicketType.available} in the current
+     * transaction, so it is committed together with the cancellation
+     */
+    public void releaseCancelled(String ticketTypeId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> releaseCancelled(ticketTypeId, quantity));
+            return;
+        }
+        ticketTypeRepository.incrementAvailable(ticketTypeId, quantity);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lease(ticketTypeId).databaseDelta.addAndGet(quantity);
+            }
+        });
+    }
+
+    /**
+     * Quantity this node holds in its lease, on top of {@code TicketType.available}
+     */
+    public int leasedAvailable(String ticketTypeId) {
+        Lease lease = leases.get(ticketTypeId);
+        return lease != null ? (int) lease.counter.sum() : 0;
+    }
+
+    /**
+     * Net change this node has made to {@code TicketType.available} since startup
+     * (negative for leased quantity, positive for returned quantity). Lets a cached copy of
+     * the database value be corrected without reading it again.
+     */
+    public long databaseDelta(String ticketTypeId) {
+        Lease lease = leases.get(ticketTypeId);
+        return lease != null ? lease.databaseDelta.get() : 0;
+    }
+
+    /**
+     * {@link #databaseDelta} of every ticket type this node has touched. Take it before reading
+     * {@code available} values that will be corrected later, so a lease in between is not counted twice.
+     */
+    public Map<String, Long> databaseDeltas() {
+        Map<String, Long> deltas = new HashMap<>();
+        leases.forEach((ticketTypeId, lease) -> deltas.put(ticketTypeId, lease.databaseDelta.get()));
+        return deltas;
+    }
+
+    /**
+     * Available quantity as seen by clients: database value plus the local lease
+     */
+    public int effectiveAvailable(String ticketTypeId, Integer databaseAvailable) {
+        return (databaseAvailable != null ? databaseAvailable : 0) + leasedAvailable(ticketTypeId);
+    }
+
+    /**
+     * Forget the lease of a ticket type that has been deleted
+     */
+    public void evict(String ticketTypeId) {
+        leases.remove(ticketTypeId);
+    }
+
+    /**
+     * Return idle leases to the database, bring this node's lease rows down to what it still
+     * holds, drop quantity that was reclaimed while this node was not renewing, and renew its rows
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.reconcile-interval-ms:5000}")
+    public void reconcile() {
+        dropReclaimed();
+        long idleBefore = System.currentTimeMillis() - idleReturnMillis;
+        flush(settle(lease -> lease.lastUsed < idleBefore));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                ticketLeaseRepository.renew(nodeId, LocalDateTime.now()));
+    }
+
+    /**
+     * Give quantity leased by nodes that stopped renewing back to {@code TicketType.available}
+     */
+    @Scheduled(fixedDelayString = "${booking.availability.stranded-check-ms:60000}")
+    public void reclaimStranded() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusNanos(nodeTimeoutMillis * 1_000_000);
+        for (String ticketTypeId : ticketLeaseRepository.findTicketTypeIdsWithStaleLeases(staleBefore, nodeId)) {
+            try {
+                Integer reclaimed = new TransactionTemplate(transactionManager).execute(status ->
+                        reclaimStranded(ticketTypeId, staleBefore));
+                if (reclaimed != null && reclaimed > 0) {
+                    lease(ticketTypeId).databaseDelta.addAndGet(reclaimed);
+                    log.warn("Gave {} units of ticket type {} leased by stopped nodes back", reclaimed, ticketTypeId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not reclaim stranded leases of ticket type {}", ticketTypeId, e);
+            }
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                ticketLeaseRepository.deleteEmptyStale(staleBefore.minusNanos(nodeTimeoutMillis * 1_000_000)));
+    }
+
+    @PreDestroy
+    public void returnAllLeases() {
+        flush(settle(lease -> true));
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    ticketLeaseRepository.deleteEmptyOfNode(nodeId));
+        } catch (RuntimeException e) {
+            log.warn("Could not remove the lease rows of this node", e);
+        }
+    }
+
+    /**
+     * Drain the leases matching {@code drain} and work out how far each lease row can come down
+     */
+    private Map<String, Settlement> settle(Predicate<Lease> drain) {
+        Map<String, Settlement> settlements = new HashMap<>();
+        leases.forEach((ticketTypeId, lease) -> {
+            // No quantity moves between counter and in-flight while the write lock is held
+            lease.settleLock.writeLock().lock();
+            try {
+                long drained = drain.test(lease) ? lease.counter.drain() : 0;
+                long held = lease.counter.sum() + lease.inFlight.get();
+                long settled = lease.leased.get() - held;
+                if (drained > 0 || settled > 0) {
+                    lease.leased.addAndGet(-settled);
+                    settlements.put(ticketTypeId, new Settlement(drained, settled));
+                }
+            } finally {
+                lease.settleLock.writeLock().unlock();
+            }
+        });
+        return settlements;
+    }
+
+    private void flush(Map<String, Settlement> settlements) {
+        if (settlements.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    settlements.forEach((ticketTypeId, settlement) -> {
+                        if (settlement.drained() > 0) {
+                            ticketTypeRepository.incrementAvailable(ticketTypeId, (int) settlement.drained());
+                        }
+                        if (settlement.settled() != 0) {
+                            ticketLeaseRepository.addQuantity(nodeId, ticketTypeId, (int) -settlement.settled(), now);
+                        }
+                    }));
+            settlements.forEach((ticketTypeId, settlement) ->
+                    lease(ticketTypeId).databaseDelta.addAndGet(settlement.drained()));
+            log.debug("Settled leases of {} ticket types", settlements.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not return ticket leases, keeping them in memory", e);
+            settlements.forEach((ticketTypeId, settlement) -> {
+                Lease lease = lease(ticketTypeId);
+                lease.leased.addAndGet(settlement.settled());
+                lease.counter.add(settlement.drained());
+            });
+        }
+    }
+
+    /**
+     * Drop from memory what another node gave back for this one while it was not renewing
+     */
+    private void dropReclaimed() {
+        // Taken first: a lease counted here has its row committed already
+        Map<String, Long> leasedBefore = new HashMap<>();
+        leases.forEach((ticketTypeId, lease) -> leasedBefore.put(ticketTypeId, lease.leased.get()));
+        List<TicketLease> rows = ticketLeaseRepository.findByNodeId(nodeId);
+        Set<String> present = new HashSet<>();
+        for (TicketLease row : rows) {
+            present.add(row.getTicketTypeId());
+            if (row.getReclaimed() > 0) {
+                Lease lease = lease(row.getTicketTypeId());
+                drop(row.getTicketTypeId(), lease, row.getReclaimed());
+                lease.leased.addAndGet(-row.getReclaimed());
+                new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                        ticketLeaseRepository.dropReclaimed(row.getId(), row.getReclaimed()));
+            }
+        }
+        // A row deleted as stale: everything this node had leased was given back
+        leasedBefore.forEach((ticketTypeId, leased) -> {
+            if (leased > 0 && !present.contains(ticketTypeId)) {
+                Lease lease = lease(ticketTypeId);
+                drop(ticketTypeId, lease, leased);
+                lease.leased.addAndGet(-leased);
+            }
+        });
+    }
+
+    private void drop(String ticketTypeId, Lease lease, long quantity) {
+        lease.settleLock.writeLock().lock();
+        try {
+            long dropped = Math.min(quantity, lease.counter.sum());
+            lease.counter.tryAcquire(dropped);
+            log.error("{} units of ticket type {} were reclaimed while this node held them, dropped {}",
+                    quantity, ticketTypeId, dropped);
+        } finally {
+            lease.settleLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quantity of the ticket type is split between available, node leases and sold tickets; what
+     * the live nodes and the tickets do not account for is at most what the stopped nodes still held.
+     * Must run inside a transaction.
+     *
+     * @return quantity given back to available
+     */
+    private int reclaimStranded(String ticketTypeId, LocalDateTime staleBefore) {
+        List<Object[]> stock = ticketTypeRepository.lockStockById(ticketTypeId);
+        if (stock.isEmpty()) {
+            ticketLeaseRepository.deleteAllInBatch(ticketLeaseRepository.findByTicketTypeId(ticketTypeId));
+            return 0;
+        }
+        if (stock.getFirst()[0] == null) {
+            // Created before the total quantity was kept
+            return 0;
+        }
+        long quantity = ((Number) stock.getFirst()[0]).longValue();
+        long available = ((Number) stock.getFirst()[1]).longValue();
+
+        List<TicketLease> rows = ticketLeaseRepository.findByTicketTypeId(ticketTypeId);
+        long liveLeased = rows.stream()
+                .filter(row -> !row.getRenewedAt().isBefore(staleBefore))
+                .mapToLong(TicketLease::getQuantity)
+                .sum();
+        long unaccounted = quantity - available - liveLeased - ticketRepository.countByTicketTypeIdAndStatusIn(ticketTypeId, SOLD);
+
+        int reclaimed = 0;
+        for (TicketLease row : rows) {
+            if (!row.getRenewedAt().isBefore(staleBefore) || row.getQuantity() <= 0) {
+                continue;
+            }
+            int given = (int) Math.clamp(unaccounted, 0, row.getQuantity());
+            unaccounted -= given;
+            reclaimed += given;
+            row.setReclaimed(row.getReclaimed() + given);
+            // With no live leases the count is exact, and the rest of the row was sold
+            row.setQuantity(liveLeased == 0 ? 0 : row.getQuantity() - given);
+        }
+        if (reclaimed > 0) {
+            ticketTypeRepository.incrementAvailable(ticketTypeId, reclaimed);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Lease the next block on the caller's connection. Only the quantity left over after this
+     * purchase goes into memory, and only once the transaction commits; on rollback the database
+     * gets everything back by itself.
+     */
+    private void leaseInTransaction(String ticketTypeId, Lease lease, int quantity) {
+        int taken = takeFromDatabase(ticketTypeId, 1, Math.max(quantity, leaseSize));
+        if (taken == 0) {
+            throw new AppException(ErrorCode.TICKETS_UNAVAILABLE);
+        }
+        int fromDatabase = Math.min(taken, quantity);
+        int fromLease = quantity - fromDatabase;
+        if (fromLease > 0 && !lease.tryTake(fromLease)) {
+            throw new AppException(ErrorCode.TICKETS_UNAVAILABLE);
+        }
+        int surplus = taken - fromDatabase;
+        if (surplus > 0) {
+            recordLease(ticketTypeId, surplus);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                if (fromLease > 0) {
+                    if (committed) {
+                        lease.sold(fromLease);
+                    } else {
+                        lease.giveBack(fromLease);
+                    }
+                }
+                if (committed) {
+                    lease.databaseDelta.addAndGet(-taken);
+                    lease.leased.addAndGet(surplus);
+                    lease.giveBack(0, surplus);
+                }
+            }
+        });
+    }
+
+    /**
+     * Refill for a caller without a transaction (and so without a connection held while it waits)
+     */
+    private void refillAndTake(String ticketTypeId, Lease lease, int quantity) {
+        // A lock rather than synchronized: the refill does I/O and must not pin a virtual thread
+        lease.refillLock.lock();
+        try {
+            while (!lease.tryTake(quantity)) {
+                int missing = (int) Math.max(1, quantity - lease.counter.sum());
+                int wanted = Math.max(missing, leaseSize);
+                Integer leased = new TransactionTemplate(transactionManager).execute(status -> {
+                    int taken = takeFromDatabase(ticketTypeId, missing, wanted);
+                    if (taken > 0) {
+                        recordLease(ticketTypeId, taken);
+                    }
+                    return taken;
+                });
+                if (leased == null || leased == 0) {
+                    throw new AppException(ErrorCode.TICKETS_UNAVAILABLE);
+                }
+                log.debug("Leased {} units of ticket type {}", leased, ticketTypeId);
+                lease.databaseDelta.addAndGet(-leased);
+                lease.leased.addAndGet(leased);
+                lease.giveBack(0, leased);
+            }
+        } finally {
+            lease.refillLock.unlock();
+        }
+    }
+
+    /**
+     * Take between {@code minimum} and {@code wanted} units from available, under a lock of the
+     * ticket type row. Must run inside a transaction.
+     *
+     * @return the quantity taken, 0 if fewer than {@code minimum} units are left
+     */
+    private int takeFromDatabase(String ticketTypeId, int minimum, int wanted) {
+        List<Object[]> stock = ticketTypeRepository.lockStockById(ticketTypeId);
+        if (stock.isEmpty()) {
+            throw new AppException(ErrorCode.TICKET_TYPE_NOT_FOUND);
+        }
+        int taken = Math.min(((Number) stock.getFirst()[1]).intValue(), wanted);
+        if (taken < minimum) {
+            return 0;
+        }
+        ticketTypeRepository.decrementAvailable(ticketTypeId, taken);
+        return taken;
+    }
+
+    private void recordLease(String ticketTypeId, int quantity) {
+        LocalDateTime now = LocalDateTime.now();
+        // Serialized with every other lease row write of the ticket type by the ticket type row lock
+        if (ticketLeaseRepository.addQuantity(nodeId, ticketTypeId, quantity, now) == 0) {
+            ticketLeaseRepository.save(TicketLease.builder()
+                    .nodeId(nodeId)
+                    .ticketTypeId(ticketTypeId)
+                    .quantity(quantity)
+                    .reclaimed(0)
+                    .renewedAt(now)
+                    .build());
+        }
+    }
+
+    private Lease lease(String ticketTypeId) {
+        return leases.computeIfAbsent(ticketTypeId, id -> new Lease());
+    }
+
+    private record Settlement(long drained, long settled) {
+    }
+
+    private static final class Lease {
+        final StripedCounter counter = new StripedCounter();
+        // Taken from the counter, neither sold nor given back yet
+        final AtomicInteger inFlight = new AtomicInteger();
+        // This node's TicketLease.quantity; never below counter + inFlight
+        final AtomicLong leased = new AtomicLong();
+        final AtomicLong databaseDelta = new AtomicLong();
+        final ReentrantLock refillLock = new ReentrantLock();
+        // Read: moving quantity between counter and in-flight; write: settling against the lease row
+        final ReentrantReadWriteLock settleLock = new ReentrantReadWriteLock();
+        volatile long lastUsed = System.currentTimeMillis();
+
+        boolean tryTake(int quantity) {
+            settleLock.readLock().lock();
+            try {
+                if (!counter.tryAcquire(quantity)) {
+                    return false;
+                }
+                inFlight.addAndGet(quantity);
+                return true;
+            } finally {
+                settleLock.readLock().unlock();
+            }
+        }
+
+        void sold(int quantity) {
+            inFlight.addAndGet(-quantity);
+        }
+
+        void giveBack(int quantity) {
+            giveBack(quantity, quantity);
+        }
+
+        /**
+         * Move {@code fromInFlight} back to the counter and add {@code total - fromInFlight} new units
+         */
+        void giveBack(int fromInFlight, int total) {
+            settleLock.readLock().lock();
+            try {
+                counter.add(total);
+                inFlight.addAndGet(-fromInFlight);
+            } finally {
+                settleLock.readLock().unlock();
+            }
+        }
+    }
+}
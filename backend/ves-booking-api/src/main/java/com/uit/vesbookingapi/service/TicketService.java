@@ -10,30 +10,33 @@ import com.uit.vesbookingapi.enums.TicketStatus;
 import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
 import com.uit.vesbookingapi.mapper.TicketMapper;
+import com.uit.vesbookingapi.repository.OrderRepository;
 import com.uit.vesbookingapi.repository.TicketRepository;
-import com.uit.vesbookingapi.repository.TicketTypeRepository;
-import com.uit.vesbookingapi.repository.UserRepository;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class TicketService {
     TicketRepository ticketRepository;
-    TicketTypeRepository ticketTypeRepository;
+    OrderRepository orderRepository;
     TicketMapper ticketMapper;
     CancellationService cancellationService;
-    UserRepository userRepository;
+    CurrentUserService currentUserService;
+    SeatInventoryService seatInventoryService;
+    TicketAvailabilityService ticketAvailabilityService;
+    EventPopularityService eventPopularityService;
+    VoucherQuotaService voucherQuotaService;
+    CheckInIndexService checkInIndexService;
 
     /**
      * Get user tickets with optional event and status filters
@@ -41,7 +44,7 @@ public class TicketService {
      */
     public Page<TicketResponse> getUserTickets(String eventId, TicketStatus status, Pageable pageable) {
         // 1. Get current user
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
 
         // 2-3. Build query based on filters and query with pagination
         // Only return tickets from COMPLETED orders
@@ -78,7 +81,7 @@ public class TicketService {
                 .orElseThrow(() -> new AppException(ErrorCode.TICKET_NOT_FOUND));
 
         // 2. Validate belongs to current user
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
         if (!ticket.getUser().getId().equals(userId)) {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
@@ -101,7 +104,7 @@ public class TicketService {
         Ticket ticket = ticketRepository.findById(ticketId)
                 .orElseThrow(() -> new AppException(ErrorCode.TICKET_NOT_FOUND));
 
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
         if (!ticket.getUser().getId().equals(userId)) {
             throw new AppException(ErrorCode.UNAUTHORIZED);
         }
@@ -111,57 +114,58 @@ public class TicketService {
             throw new AppException(ErrorCode.TICKET_NOT_CANCELLABLE);
         }
 
+        // Held tickets are given up through the hold, not cancelled one by one
+        if (ticket.getOrder().getStatus() != com.uit.vesbookingapi.enums.OrderStatus.COMPLETED) {
+            throw new AppException(ErrorCode.ORDER_NOT_COMPLETED);
+        }
+
+        // Cancellations in one order are serialised, so exactly one of them sees the last ticket go
+        String orderId = ticket.getOrder().getId();
+        orderRepository.lockById(orderId);
+
+        // Checked in at a gate but not written yet
+        if (!checkInIndexService.release(ticket.getQrCode())) {
+            throw new AppException(ErrorCode.TICKET_NOT_CANCELLABLE);
+        }
+
         // 3. Calculate refund via CancellationService
         CancellationService.CancellationResult refundResult =
                 cancellationService.calculateRefund(ticket);
 
-        // 4. Update ticket
-        ticket.setStatus(TicketStatus.CANCELLED);
-        ticket.setRefundAmount(refundResult.getRefundAmount());
-        ticket.setRefundStatus(RefundStatus.PENDING);
-        ticket.setCancelledAt(LocalDateTime.now());
-        if (request.getReason() != null) {
-            ticket.setCancellationReason(request.getReason());
+        // 4. Update ticket, unless a concurrent request cancelled it first
+        LocalDateTime cancelledAt = LocalDateTime.now();
+        if (ticketRepository.cancelIfActive(ticketId, refundResult.getRefundAmount(), request.getReason(), cancelledAt) == 0) {
+            throw new AppException(ErrorCode.TICKET_NOT_CANCELLABLE);
         }
 
-        // 5. Increment ticketType.available atomically
-        ticketTypeRepository.incrementAvailable(ticket.getTicketType().getId(), 1);
+        // The voucher use is given back with the last ticket of the order
+        if (ticket.getOrder().getVoucher() != null
+                && ticketRepository.countByOrderIdAndStatus(orderId, TicketStatus.ACTIVE) == 0) {
+            voucherQuotaService.release(ticket.getOrder().getVoucher().getId());
+        }
+
+        // 5. Give the quantity back to ticketType.available
+        ticketAvailabilityService.releaseCancelled(ticket.getTicketType().getId(), 1);
+        eventPopularityService.recordSalesAfterCommit(ticket.getEvent().getId(), -1);
 
         // 6. Release seat (if seat was assigned)
         if (ticket.getSeat() != null) {
-            ticket.setSeat(null);
+            seatInventoryService.releaseSeatsAfterCommit(
+                    ticket.getEvent().getId(), List.of(ticket.getSeat().getId()));
         }
 
-        // Save ticket changes
-        ticket = ticketRepository.save(ticket);
-
         // 7. Create notification (TODO: Phase 8 - Notification System)
         // notificationService.createCancellationNotification(ticket);
 
         // 8. Return cancellation response
         return CancellationResponse.builder()
-                .ticketId(ticket.getId())
-                .status(ticket.getStatus())
+                .ticketId(ticketId)
+                .status(TicketStatus.CANCELLED)
                 .refundAmount(refundResult.getRefundAmount())
                 .refundPercentage(refundResult.getRefundPercentage())
-                .refundStatus(ticket.getRefundStatus())
-                .cancelledAt(ticket.getCancelledAt())
+                .refundStatus(RefundStatus.PENDING)
+                .cancelledAt(cancelledAt)
                 .message("Ticket cancelled successfully. Refund will be processed within 3-5 business days.")
                 .build();
     }
-
-    /**
-     * Get current authenticated user ID
-     */
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
-        }
-        // authentication.getName() returns username, not user ID
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED))
-                .getId();
-    }
 }
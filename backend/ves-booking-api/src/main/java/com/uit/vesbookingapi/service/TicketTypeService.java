@@ -23,6 +23,7 @@ public class TicketTypeService {
     TicketTypeRepository ticketTypeRepository;
     EventRepository eventRepository;
     TicketTypeMapper ticketTypeMapper;
+    TicketAvailabilityService ticketAvailabilityService;
 
     public List<TicketTypeResponse> getTicketTypesByEvent(String eventId) {
         if (!eventRepository.existsById(eventId)) {
@@ -30,7 +31,12 @@ public class TicketTypeService {
         }
 
         return ticketTypeRepository.findByEventId(eventId).stream()
-                .map(ticketTypeMapper::toTicketTypeResponse)
+                .map(ticketType -> {
+                    TicketTypeResponse response = ticketTypeMapper.toTicketTypeResponse(ticketType);
+                    response.setAvailable(ticketAvailabilityService.effectiveAvailable(
+                            ticketType.getId(), ticketType.getAvailable()));
+                    return response;
+                })
                 .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,212 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.entity.InvalidatedToken;
+import com.uit.vesbookingapi.repository.InvalidatedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory set of revoked token IDs (jti), so checking a token does no database I/O.
+ * Revocations are written to {@code InvalidatedToken}; the set is loaded from it at startup and
+ * then only the rows revoked since the previous sync are read, to pick up logouts made on other
+ * nodes. An entry is kept until the token
+ * can neither be used nor refreshed any more; after that {@link #purge()} deletes the row.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class TokenRevocationService {
+    private static final String LEGACY_TABLE = "invalidated_token";
+    // Re-read this much before the last sync: clocks of other nodes and their commit delay
+    private static final long SYNC_OVERLAP_MILLIS = 60_000;
+
+    InvalidatedTokenRepository invalidatedTokenRepository;
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+
+    // jti -> epoch millis after which the entry can be forgotten
+    Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+    AtomicLong tableSize = new AtomicLong();
+    Counter purgedRows;
+    Timer purgeTimer;
+
+    // Start of the last sync, null until the first (full) one
+    @NonFinal
+    volatile Long syncedAt;
+
+    @NonFinal
+    @Value("${jwt.refreshable-duration}")
+    long refreshableDuration;
+
+    @NonFinal
+    @Value("${booking.auth.purge-batch-size:1000}")
+    int purgeBatchSize;
+
+    public TokenRevocationService(
+            InvalidatedTokenRepository invalidatedTokenRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry) {
+        this.invalidatedTokenRepository = invalidatedTokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        Gauge.builder("booking.revoked.tokens.rows", tableSize, AtomicLong::get)
+                .description("Rows in the revoked token table as of the last purge")
+                .register(meterRegistry);
+        Gauge.builder("booking.revoked.tokens.memory", revoked, Map::size)
+                .description("Revoked token IDs held in memory")
+                .register(meterRegistry);
+        this.purgedRows = Counter.builder("booking.revoked.tokens.purged")
+                .description("Revoked token rows deleted by the purge job")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("booking.revoked.tokens.purge")
+                .description("Duration of a purge run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revoke a token; it is rejected on this node immediately and on the others after the next sync
+     */
+    public void revoke(String jti, Date expiryTime) {
+        UUID id = UUID.fromString(jti);
+        invalidatedTokenRepository.save(InvalidatedToken.builder().id(id).expiryTime(expiryTime).revokedAt(new Date()).build());
+        revoked.put(id, retainUntil(expiryTime));
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        try {
+            return revoked.containsKey(UUID.fromString(jti));
+        } catch (IllegalArgumentException e) {
+            // Every token we issue has a UUID jti
+            return false;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        migrateLegacyTable();
+        sync();
+        tableSize.set(invalidatedTokenRepository.count());
+    }
+
+    /**
+     * Load the revocations made since the last sync (all that still matter on the first run) and
+     * forget expired ones
+     */
+    @Scheduled(fixedDelayString = "${booking.auth.revocation-sync-ms:30000}",
+            initialDelayString = "${booking.auth.revocation-sync-ms:30000}")
+    public void sync() {
+        long now = System.currentTimeMillis();
+        Long since = syncedAt;
+        List<InvalidatedToken> tokens = since == null
+                ? invalidatedTokenRepository.findByExpiryTimeAfter(purgeCutoff(now))
+                : invalidatedTokenRepository.findByRevokedAtAfter(new Date(since - SYNC_OVERLAP_MILLIS));
+        syncedAt = now;
+        for (InvalidatedToken token : tokens) {
+            revoked.put(token.getId(), retainUntil(token.getExpiryTime()));
+        }
+        revoked.values().removeIf(retainUntil -> retainUntil < now);
+        log.debug("Revoked token set synced: {} entries", revoked.size());
+    }
+
+    /**
+     * Delete rows of tokens that can no longer be used or refreshed, one bounded batch per transaction
+     */
+    @Scheduled(cron = "${booking.auth.purge-cron:0 */10 * * * *}")
+    public void purge() {
+        Date cutoff = purgeCutoff(System.currentTimeMillis());
+        long purged = purgeTimer.record(() -> {
+            long total = 0;
+            int deleted;
+            do {
+                deleted = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                    List<UUID> ids = invalidatedTokenRepository.findIdsExpiredBefore(cutoff, PageRequest.of(0, purgeBatchSize));
+                    return ids.isEmpty() ? 0 : invalidatedTokenRepository.deleteByIds(ids);
+                }));
+                total += deleted;
+            } while (deleted == purgeBatchSize);
+            return total;
+        });
+
+        purgedRows.increment(purged);
+        tableSize.set(invalidatedTokenRepository.count());
+        if (purged > 0) {
+            log.info("Purged {} revoked token rows, {} left", purged, tableSize.get());
+        }
+    }
+
+    /**
+     * Copy still relevant rows of the old string-keyed table into the binary-keyed one, a batch of
+     * ids per statement. INSERT IGNORE makes it safe to run on every boot and on several nodes at
+     * once; the old table is left in place and has to be dropped by hand once this has run.
+     * A failure is logged and never stops the application from starting.
+     */
+    private void migrateLegacyTable() {
+        try {
+            jdbcTemplate.queryForList("SELECT id FROM " + LEGACY_TABLE + " LIMIT 1", String.class);
+        } catch (BadSqlGrammarException e) {
+            return; // Already dropped or never existed
+        }
+
+        try {
+            Date cutoff = purgeCutoff(System.currentTimeMillis());
+            String after = "";
+            int copied = 0;
+            while (true) {
+                // Last id of the next batch, null for the final (shorter) one
+                List<String> upper = jdbcTemplate.queryForList("SELECT id FROM " + LEGACY_TABLE +
+                        " WHERE id > ? ORDER BY id LIMIT 1 OFFSET ?", String.class, after, purgeBatchSize - 1);
+                String sql = "INSERT IGNORE INTO revoked_token (id, expiry_time) " +
+                        "SELECT UNHEX(REPLACE(id, '-', '')), expiry_time FROM " + LEGACY_TABLE +
+                        " WHERE id > ? AND CHAR_LENGTH(id) = 36 AND (expiry_time IS NULL OR expiry_time > ?)";
+                if (upper.isEmpty()) {
+                    copied += jdbcTemplate.update(sql, after, cutoff);
+                    break;
+                }
+                copied += jdbcTemplate.update(sql + " AND id <= ?", after, cutoff, upper.getFirst());
+                after = upper.getFirst();
+            }
+            log.info("Copied {} revoked tokens from {}; drop that table once every node runs this version",
+                    copied, LEGACY_TABLE);
+        } catch (DataAccessException e) {
+            log.warn("Could not copy revoked tokens from {}, tokens revoked before the upgrade may be accepted " +
+                    "until they expire", LEGACY_TABLE, e);
+        }
+    }
+
+    private Date purgeCutoff(long now) {
+        return new Date(now - refreshableDuration * 1000);
+    }
+
+    private long retainUntil(Date expiryTime) {
+        // Refresh accepts tokens up to the refreshable duration after issue, which is always
+        // before expiry + refreshable duration
+        long expiry = expiryTime != null ? expiryTime.getTime() : System.currentTimeMillis();
+        return expiry + refreshableDuration * 1000;
+    }
+}
@@ -0,0 +1,213 @@
+package com.uit.vesbookingapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.uit.vesbookingapi.dto.response.VoucherResponse;
+import com.uit.vesbookingapi.entity.Voucher;
+import com.uit.vesbookingapi.enums.VoucherDiscountType;
+import com.uit.vesbookingapi.repository.VoucherRepository;
+import com.uit.vesbookingapi.utils.PricingEngine;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory voucher catalog.
+ * Every voucher is compiled into an immutable {@link VoucherRule} (hash sets of applicable events
+ * and categories, validity window in epoch millis, {@link PricingEngine} promotion, precomputed response), so
+ * checking a code against an order is a map lookup and a few comparisons, with no query and no
+ * lazy collection loads. The catalog is rebuilt in three queries on startup and every
+ * {@code booking.voucher.catalog-refresh-ms}; a code it does not know yet is looked up once and
+ * remembered either way until the next rebuild. How often a voucher is used is tracked by
+ * {@link VoucherQuotaService}, not here.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class VoucherCatalogService {
+    VoucherRepository voucherRepository;
+    TransactionTemplate readOnlyTransaction;
+    Cache<String, Boolean> unknownCodes;
+
+    @NonFinal
+    volatile Map<String, VoucherRule> rulesByCode = new ConcurrentHashMap<>();
+
+    public VoucherCatalogService(
+            VoucherRepository voucherRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.voucher.catalog-refresh-ms:60000}") long refreshMillis) {
+        this.voucherRepository = voucherRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.unknownCodes = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(refreshMillis))
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Recompile every voucher in one read-only transaction
+     */
+    @Scheduled(fixedDelayString = "${booking.voucher.catalog-refresh-ms:60000}",
+            initialDelayString = "${booking.voucher.catalog-refresh-ms:60000}")
+    public void rebuild() {
+        try {
+            rulesByCode = readOnlyTransaction.execute(status -> {
+                Map<String, Set<String>> events = group(voucherRepository.findAllApplicableEvents());
+                Map<String, Set<String>> categories = group(voucherRepository.findAllApplicableCategories());
+
+                Map<String, VoucherRule> rules = new HashMap<>();
+                for (Voucher voucher : voucherRepository.findAll()) {
+                    rules.put(voucher.getCode(), compile(voucher,
+                            events.getOrDefault(voucher.getId(), Set.of()),
+                            categories.getOrDefault(voucher.getId(), Set.of())));
+                }
+                return new ConcurrentHashMap<>(rules);
+            });
+            unknownCodes.invalidateAll();
+            log.debug("Voucher catalog rebuilt: {} vouchers", rulesByCode.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not rebuild the voucher catalog, keeping the previous one", e);
+        }
+    }
+
+    /**
+     * @return the compiled voucher, empty if no voucher has this code
+     */
+    public Optional<VoucherRule> find(String code) {
+        VoucherRule rule = rulesByCode.get(code);
+        if (rule != null || unknownCodes.getIfPresent(code) != null) {
+            return Optional.ofNullable(rule);
+        }
+
+        // Created since the last rebuild, or not a voucher at all
+        rule = readOnlyTransaction.execute(status -> voucherRepository.findByCode(code)
+                .map(voucher -> compile(voucher, new HashSet<>(voucher.getApplicableEvents()),
+                        new HashSet<>(voucher.getApplicableCategories())))
+                .orElse(null));
+        if (rule == null) {
+            unknownCodes.put(code, Boolean.TRUE);
+            return Optional.empty();
+        }
+        rulesByCode.put(code, rule);
+        return Optional.of(rule);
+    }
+
+    private static Map<String, Set<String>> group(List<Object[]> rows) {
+        Map<String, Set<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((String) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        return grouped;
+    }
+
+    private static VoucherRule compile(Voucher voucher, Set<String> events, Set<String> categories) {
+        int value = voucher.getDiscountValue();
+        Integer maxDiscount = voucher.getMaxDiscount();
+        // Vouchers are not combined with each other
+        PricingEngine.Promotion promotion = new PricingEngine.Promotion(
+                voucher.getDiscountType() == VoucherDiscountType.PERCENTAGE,
+                value,
+                maxDiscount != null ? maxDiscount : PricingEngine.NO_LIMIT,
+                voucher.getMinOrderAmount() != null ? voucher.getMinOrderAmount() : 0,
+                false);
+
+        VoucherResponse response = VoucherResponse.builder()
+                .id(voucher.getId())
+                .code(voucher.getCode())
+                .title(voucher.getTitle())
+                .description(voucher.getDescription())
+                .discountType(voucher.getDiscountType())
+                .discountValue(value)
+                .minOrderAmount(voucher.getMinOrderAmount())
+                .maxDiscount(maxDiscount)
+                .startDate(voucher.getStartDate())
+                .endDate(voucher.getEndDate())
+                .usageLimit(voucher.getUsageLimit())
+                .usedCount(voucher.getUsedCount())
+                .applicableEvents(List.copyOf(events))
+                .applicableCategories(List.copyOf(categories))
+                .isPublic(voucher.getIsPublic())
+                .build();
+
+        return new VoucherRule(voucher.getId(), voucher.getUsageLimit(), voucher.getUsedCount(), promotion,
+                toMillis(voucher.getStartDate()), toMillis(voucher.getEndDate()),
+                Set.copyOf(events), Set.copyOf(categories), response);
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * A compiled voucher
+     *
+     * @param usedCount {@code Voucher.usedCount} when the catalog was built
+     * @param response  shared between requests, must not be modified
+     */
+    public record VoucherRule(
+            String id,
+            Integer usageLimit,
+            int usedCount,
+            PricingEngine.Promotion promotion,
+            long validFromMillis,
+            long validUntilMillis,
+            Set<String> eventIds,
+            Set<String> categorySlugs,
+            VoucherResponse response) {
+
+        public boolean isActive(long nowMillis) {
+            return nowMillis >= validFromMillis && nowMillis <= validUntilMillis;
+        }
+
+        public boolean meetsMinOrder(long orderAmount) {
+            return promotion.appliesTo(orderAmount);
+        }
+
+        /**
+         * Why the discount is unusable, null if it is fine
+         */
+        public String invalidDiscount() {
+            if (promotion.isValid()) {
+                return null;
+            }
+            return promotion.percentage() ? "Invalid voucher discount percentage" : "Invalid voucher discount value";
+        }
+
+        /**
+         * No restriction applies to every event, otherwise the event or its category must be listed
+         */
+        public boolean appliesTo(String eventId, String categorySlug) {
+            if (eventIds.isEmpty() && categorySlugs.isEmpty()) {
+                return true;
+            }
+            return eventIds.contains(eventId) || (categorySlug != null && categorySlugs.contains(categorySlug));
+        }
+
+        /**
+         * Discount on an order, never more than the order amount
+         */
+        public int discountFor(int orderAmount) {
+            return (int) PricingEngine.discount(orderAmount, promotion);
+        }
+    }
+}
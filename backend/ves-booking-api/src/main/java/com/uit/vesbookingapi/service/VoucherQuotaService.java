@@ -0,0 +1,164 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.VoucherRepository;
+import com.uit.vesbookingapi.utils.StripedCounter;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.experimental.NonFinal;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Voucher redemptions.
+ * Each limited voucher has an in-memory quota ({@link StripedCounter}) seeded with
+ * {@code usageLimit - usedCount}, so once a flash-sale voucher is used up further attempts are
+ * rejected without touching its row. A redemption that gets through the quota is persisted with a
+ * conditional UPDATE ({@code usedCount < usageLimit}) instead of read-increment-save, so concurrent
+ * redemptions never hit an optimistic lock conflict and the database stays the authority: quotas
+ * are per node, and when the UPDATE finds the voucher used up the local quota is emptied.
+ * An empty quota is re-seeded from the voucher row after {@code booking.voucher.quota-refresh-ms},
+ * which picks up uses given back on other nodes.
+ */
+@Service
+@RequiredArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class VoucherQuotaService {
+    VoucherRepository voucherRepository;
+
+    Map<String, Quota> quotas = new ConcurrentHashMap<>();
+
+    @NonFinal
+    @Value("${booking.voucher.quota-refresh-ms:10000}")
+    long quotaRefreshMillis;
+
+    /**
+     * Use a voucher once in the current transaction; the use is given back if it rolls back
+     *
+     * @throws AppException VOUCHER_USAGE_LIMIT_REACHED if the voucher is used up
+     */
+    public void redeem(VoucherCatalogService.VoucherRule voucher) {
+        String voucherId = voucher.id();
+        reserve(voucherId, voucher.usageLimit(), voucher.usedCount());
+        int updated;
+        try {
+            updated = voucherRepository.incrementUsedCount(voucherId);
+        } catch (RuntimeException e) {
+            unreserve(voucherId);
+            throw e;
+        }
+        if (updated == 0) {
+            exhausted(voucherId);
+            throw new AppException(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        unreserve(voucherId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Give a use back (failed, expired or cancelled order) in the current transaction;
+     * the local quota grows once it commits
+     */
+    public void release(String voucherId) {
+        if (voucherRepository.decrementUsedCount(voucherId) == 0) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            unreserve(voucherId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                unreserve(voucherId);
+            }
+        });
+    }
+
+    /**
+     * Whether a voucher looks used up from here; advisory, {@link #redeem} has the final say
+     */
+    public boolean isUsedUp(VoucherCatalogService.VoucherRule voucher) {
+        if (voucher.usageLimit() == null) {
+            return false;
+        }
+        Quota quota = quotas.get(voucher.id());
+        return quota != null ? quota.remaining.sum() <= 0 : voucher.usedCount() >= voucher.usageLimit();
+    }
+
+    /**
+     * Take one use from the local quota only; for callers that persist the use themselves
+     * and call {@link #unreserve} or {@link #exhausted} if that fails
+     *
+     * @param usageLimit null for unlimited vouchers, which have no quota
+     * @param usedCount  {@code Voucher.usedCount} as last read
+     */
+    public void reserve(String voucherId, Integer usageLimit, int usedCount) {
+        if (usageLimit == null) {
+            return;
+        }
+
+        Quota quota = quotas.computeIfAbsent(voucherId, id -> new Quota(usageLimit - usedCount, false));
+        if (quota.remaining.tryAcquire(1)) {
+            return;
+        }
+
+        // Used up here; trust that until it is old enough to check against the row again
+        if (System.currentTimeMillis() - quota.seededAt < quotaRefreshMillis) {
+            throw new AppException(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+        }
+        Quota reseeded = new Quota(usageLimit - usedCount, false);
+        quotas.put(voucherId, reseeded);
+        if (!reseeded.remaining.tryAcquire(1)) {
+            throw new AppException(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+        }
+    }
+
+    /**
+     * Give back a use taken by {@link #reserve} that was not persisted
+     */
+    public void unreserve(String voucherId) {
+        Quota quota = quotas.get(voucherId);
+        // Uses given back to a voucher found used up are picked up by the next re-seed
+        if (quota != null && !quota.exhausted) {
+            quota.remaining.add(1);
+        }
+    }
+
+    /**
+     * The database found the voucher used up; reject further uses locally until the next refresh
+     */
+    public void exhausted(String voucherId) {
+        log.info("Voucher {} is used up", voucherId);
+        quotas.put(voucherId, new Quota(0, true));
+    }
+
+    private static final class Quota {
+        final StripedCounter remaining = new StripedCounter();
+        final long seededAt = System.currentTimeMillis();
+        final boolean exhausted;
+
+        Quota(long remaining, boolean exhausted) {
+            this.remaining.add(Math.max(0, remaining));
+            this.exhausted = exhausted;
+        }
+    }
+}
@@ -8,7 +8,6 @@ import com.uit.vesbookingapi.entity.Event;
 import com.uit.vesbookingapi.entity.TicketType;
 import com.uit.vesbookingapi.entity.UserVoucher;
 import com.uit.vesbookingapi.entity.Voucher;
-import com.uit.vesbookingapi.enums.VoucherDiscountType;
 import com.uit.vesbookingapi.exception.AppException;
 import com.uit.vesbookingapi.exception.ErrorCode;
 import com.uit.vesbookingapi.mapper.VoucherMapper;
@@ -16,8 +15,6 @@ import com.uit.vesbookingapi.repository.*;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -33,7 +30,9 @@ public class VoucherService {
     EventRepository eventRepository;
     TicketTypeRepository ticketTypeRepository;
     VoucherMapper voucherMapper;
-    UserRepository userRepository;
+    CurrentUserService currentUserService;
+    VoucherCatalogService voucherCatalogService;
+    VoucherQuotaService voucherQuotaService;
 
     /**
      * Get all public vouchers that are currently valid (not expired)
@@ -51,7 +50,7 @@ public class VoucherService {
      * @param status: "active", "used", "expired", or null for all
      */
     public List<UserVoucherResponse> getUserVouchers(String status) {
-        String userId = getCurrentUserId();
+        String userId = currentUserService.getCurrentUserId();
         LocalDateTime now = LocalDateTime.now();
 
         List<UserVoucher> userVouchers;
@@ -76,28 +75,26 @@ public class VoucherService {
      * Validate voucher and calculate discount for a specific order
      */
     public VoucherValidationResponse validateVoucher(ValidateVoucherRequest request) {
-        // 1. Find voucher by code
-        Voucher voucher = voucherRepository.findByCode(request.getVoucherCode())
+        // 1. Find voucher by code (compiled, no query)
+        VoucherCatalogService.VoucherRule voucher = voucherCatalogService.find(request.getVoucherCode())
                 .orElseThrow(() -> new AppException(ErrorCode.VOUCHER_NOT_FOUND));
 
         // 2. Check if expired
-        LocalDateTime now = LocalDateTime.now();
-        if (now.isBefore(voucher.getStartDate()) || now.isAfter(voucher.getEndDate())) {
+        if (!voucher.isActive(System.currentTimeMillis())) {
             return VoucherValidationResponse.builder()
                     .isValid(false)
                     .message("Voucher is expired or not yet valid")
-                    .voucher(voucherMapper.toVoucherResponse(voucher))
+                    .voucher(voucher.response())
                     .build();
         }
 
         // 3. Check usage limit
-        // NOTE: This check is not atomic and may allow concurrent requests to pass.
-        // Final enforcement should be done atomically during booking transaction.
-        if (voucher.getUsageLimit() != null && voucher.getUsedCount() >= voucher.getUsageLimit()) {
+        // Advisory only; redemptions are enforced atomically by VoucherQuotaService
+        if (voucherQuotaService.isUsedUp(voucher)) {
             return VoucherValidationResponse.builder()
                     .isValid(false)
                     .message("Voucher usage limit reached")
-                    .voucher(voucherMapper.toVoucherResponse(voucher))
+                    .voucher(voucher.response())
                     .build();
         }
 
@@ -120,83 +117,36 @@ public class VoucherService {
         int orderAmount = ticketType.getPrice() * request.getQuantity();
 
         // 7. Check min order amount
-        if (voucher.getMinOrderAmount() != null && orderAmount < voucher.getMinOrderAmount()) {
+        if (!voucher.meetsMinOrder(orderAmount)) {
             return VoucherValidationResponse.builder()
                     .isValid(false)
-                    .message("Minimum order amount not met: " + voucher.getMinOrderAmount())
+                    .message("Minimum order amount not met: " + voucher.promotion().minOrderAmount())
                     .orderAmount(orderAmount)
-                    .voucher(voucherMapper.toVoucherResponse(voucher))
+                    .voucher(voucher.response())
                     .build();
         }
 
-        // 8. Check if applicable to event/category
-        // If both lists are empty, voucher applies to all events
-        boolean hasEventRestriction = voucher.getApplicableEvents() != null && !voucher.getApplicableEvents().isEmpty();
-        boolean hasCategoryRestriction = voucher.getApplicableCategories() != null && !voucher.getApplicableCategories().isEmpty();
-
-        boolean isApplicable;
-        if (!hasEventRestriction && !hasCategoryRestriction) {
-            // No restrictions - applies to all events
-            isApplicable = true;
-        } else {
-            // Check if applicable to specific event
-            boolean matchesEvent = hasEventRestriction && voucher.getApplicableEvents().contains(event.getId());
-
-            // Check if applicable to event's category
-            boolean matchesCategory = hasCategoryRestriction && event.getCategory() != null &&
-                    voucher.getApplicableCategories().contains(event.getCategory().getSlug());
-
-            // Voucher applies if it matches either event OR category restriction (OR logic)
-            isApplicable = matchesEvent || matchesCategory;
-        }
-
-        if (!isApplicable) {
+        // 8. Check if applicable to event/category (either one matches; no restriction applies to all events)
+        String categorySlug = event.getCategory() != null ? event.getCategory().getSlug() : null;
+        if (!voucher.appliesTo(event.getId(), categorySlug)) {
             return VoucherValidationResponse.builder()
                     .isValid(false)
                     .message("Voucher not applicable for this event")
                     .orderAmount(orderAmount)
-                    .voucher(voucherMapper.toVoucherResponse(voucher))
+                    .voucher(voucher.response())
                     .build();
         }
 
-        // 9. Calculate discount
-        int discountAmount;
-        if (voucher.getDiscountType() == VoucherDiscountType.FIXED_AMOUNT) {
-            // Validate fixed amount is positive
-            if (voucher.getDiscountValue() <= 0) {
-                return VoucherValidationResponse.builder()
-                        .isValid(false)
-                        .message("Invalid voucher discount value")
-                        .orderAmount(orderAmount)
-                        .voucher(voucherMapper.toVoucherResponse(voucher))
-                        .build();
-            }
-            discountAmount = voucher.getDiscountValue();
-        } else { // PERCENTAGE
-            // Validate percentage is within valid range (0-100)
-            if (voucher.getDiscountValue() <= 0 || voucher.getDiscountValue() > 100) {
-                return VoucherValidationResponse.builder()
-                        .isValid(false)
-                        .message("Invalid voucher discount percentage")
-                        .orderAmount(orderAmount)
-                        .voucher(voucherMapper.toVoucherResponse(voucher))
-                        .build();
-            }
-            // Use long to prevent overflow
-            long discountLong = ((long) orderAmount * voucher.getDiscountValue()) / 100;
-            discountAmount = (int) Math.min(discountLong, Integer.MAX_VALUE);
-
-            // Cap at maxDiscount if specified
-            if (voucher.getMaxDiscount() != null && discountAmount > voucher.getMaxDiscount()) {
-                discountAmount = voucher.getMaxDiscount();
-            }
-        }
-
-        // Ensure discount doesn't exceed order amount
-        if (discountAmount > orderAmount) {
-            discountAmount = orderAmount;
+        // 9. Calculate discount (never more than the order amount)
+        if (voucher.invalidDiscount() != null) {
+            return VoucherValidationResponse.builder()
+                    .isValid(false)
+                    .message(voucher.invalidDiscount())
+                    .orderAmount(orderAmount)
+                    .voucher(voucher.response())
+                    .build();
         }
-
+        int discountAmount = voucher.discountFor(orderAmount);
         int finalAmount = orderAmount - discountAmount;
 
         // 10. Return validation result
@@ -206,22 +156,7 @@ public class VoucherService {
                 .orderAmount(orderAmount)
                 .discountAmount(discountAmount)
                 .finalAmount(finalAmount)
-                .voucher(voucherMapper.toVoucherResponse(voucher))
+                .voucher(voucher.response())
                 .build();
     }
-
-    /**
-     * Get current authenticated user ID
-     */
-    private String getCurrentUserId() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new AppException(ErrorCode.UNAUTHENTICATED);
-        }
-        // authentication.getName() returns username, not user ID
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new AppException(ErrorCode.USER_NOT_EXISTED))
-                .getId();
-    }
 }
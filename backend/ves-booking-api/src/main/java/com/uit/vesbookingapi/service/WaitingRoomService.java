@@ -0,0 +1,327 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.WaitingRoomResponse;
+import com.uit.vesbookingapi.dto.response.WaitingRoomStatsResponse;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.EventRepository;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual waiting room for high-demand on-sales.
+ * While an event's waiting room is open ({@code Event.waitingRoomRate}), users join a FIFO queue
+ * and are admitted at that rate; purchases and holds of the event need the HMAC-signed admission
+ * token the status poll hands out once the user's turn has come. Joining, polling and checking
+ * a token are memory-only, so a rush never reaches the connection pool before it is admitted.
+ * <p>
+ * Queues are per node (clients should be routed to the same node while waiting), and so is the
+ * rate: every node admits {@code waitingRoomRate} users per second from its own queue. Admission
+ * tokens are accepted by every node. Open rooms are synced from the database every
+ * {@code booking.waiting-room.sync-ms}.
+ */
+@Service
+@FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
+@Slf4j
+public class WaitingRoomService {
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final String QUEUE_TOKEN = "Q";
+    private static final String ADMISSION_TOKEN = "A";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64_DECODER = Base64.getUrlDecoder();
+
+    EventRepository eventRepository;
+    TransactionTemplate transactionTemplate;
+    SecretKeySpec signingKey;
+    long admissionTtlSeconds;
+    long tickMs;
+    Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+    public WaitingRoomService(
+            EventRepository eventRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${booking.waiting-room.secret:}") String secret,
+            @Value("${booking.waiting-room.require-secret:false}") boolean requireSecret,
+            @Value("${jwt.signerKey}") String jwtSignerKey,
+            @Value("${booking.waiting-room.admission-ttl-seconds:600}") long admissionTtlSeconds,
+            @Value("${booking.waiting-room.tick-ms:200}") long tickMs) {
+        byte[] key;
+        if (secret.isBlank() && !requireSecret) {
+            // Development: tokens only work on this node and until it restarts
+            log.warn("booking.waiting-room.secret (WAITING_ROOM_SECRET) is not set, signing waiting room tokens "
+                    + "with a random key; set it on multi-node deployments");
+            key = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(key);
+        } else {
+            // A key of its own: anyone holding the JWT key could otherwise mint admissions, and the other way round
+            key = secret.getBytes(StandardCharsets.UTF_8);
+            if (key.length < MIN_SECRET_BYTES || secret.equals(jwtSignerKey)) {
+                throw new IllegalStateException("booking.waiting-room.secret (WAITING_ROOM_SECRET) must be set to a key of at least "
+                        + MIN_SECRET_BYTES + " bytes, different from jwt.signerKey");
+            }
+        }
+        this.eventRepository = eventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.signingKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+        this.admissionTtlSeconds = admissionTtlSeconds;
+        this.tickMs = tickMs;
+    }
+
+    /**
+     * Take a place in the queue of an event; joining again returns the same place
+     */
+    public WaitingRoomResponse join(String eventId) {
+        Room room = rooms.get(eventId);
+        if (room == null) {
+            throw new AppException(ErrorCode.WAITING_ROOM_NOT_OPEN);
+        }
+        String username = currentUsername();
+        Place place = room.places.computeIfAbsent(username, user -> new Place(room.lastNumber.incrementAndGet()));
+        return status(room, username, place);
+    }
+
+    /**
+     * Position in the queue, or the admission token once it is the user's turn
+     */
+    public WaitingRoomResponse getStatus(String eventId, String queueToken) {
+        Room room = rooms.get(eventId);
+        if (room == null) {
+            throw new AppException(ErrorCode.WAITING_ROOM_NOT_OPEN);
+        }
+        String username = currentUsername();
+        String[] claims = verify(queueToken, QUEUE_TOKEN);
+        Place place = room.places.get(username);
+        if (claims == null || !claims[1].equals(eventId) || !claims[2].equals(username)
+                || place == null || place.number != Long.parseLong(claims[3])) {
+            throw new AppException(ErrorCode.INVALID_QUEUE_TOKEN);
+        }
+        return status(room, username, place);
+    }
+
+    /**
+     * Reject a purchase or hold of an event whose waiting room is open, unless the caller was admitted
+     */
+    public void checkAdmission(String eventId, String admissionToken) {
+        if (eventId == null || !rooms.containsKey(eventId)) {
+            return;
+        }
+        String[] claims = verify(admissionToken, ADMISSION_TOKEN);
+        if (claims == null || !claims[1].equals(eventId) || !claims[2].equals(currentUsername())
+                || Long.parseLong(claims[3]) < Instant.now().getEpochSecond()) {
+            throw new AppException(ErrorCode.ADMISSION_REQUIRED);
+        }
+    }
+
+    /**
+     * Open the waiting room of an event, or change its admission rate.
+     * The rate applies on every node, so the cluster admits up to {@code admitPerSecond} times the node count.
+     */
+    public WaitingRoomStatsResponse open(String eventId, int admitPerSecond) {
+        setRate(eventId, admitPerSecond);
+        rooms.computeIfAbsent(eventId, Room::new).admitPerSecond = admitPerSecond;
+        log.info("Waiting room of event {} open, admitting {}/s per node", eventId, admitPerSecond);
+        return getStats(eventId);
+    }
+
+    public void close(String eventId) {
+        setRate(eventId, null);
+        rooms.remove(eventId);
+        log.info("Waiting room of event {} closed", eventId);
+    }
+
+    public WaitingRoomStatsResponse getStats(String eventId) {
+        Room room = rooms.get(eventId);
+        if (room == null) {
+            throw new AppException(ErrorCode.WAITING_ROOM_NOT_OPEN);
+        }
+        long joined = room.lastNumber.get();
+        long admitted = room.admittedUpTo;
+        return WaitingRoomStatsResponse.builder()
+                .eventId(eventId)
+                .admitPerSecond(room.admitPerSecond)
+                .joined(joined)
+                .admitted(admitted)
+                .waiting(joined - admitted)
+                .build();
+    }
+
+    /**
+     * Move every queue forward by its rate
+     */
+    @Scheduled(fixedRateString = "${booking.waiting-room.tick-ms:200}")
+    public void admit() {
+        for (Room room : rooms.values()) {
+            long waiting = room.lastNumber.get() - room.admittedUpTo;
+            if (waiting <= 0) {
+                // No burst of saved-up admissions when a crowd arrives
+                room.credit = 0;
+                continue;
+            }
+            room.credit += room.admitPerSecond * tickMs / 1000.0;
+            long admit = Math.min((long) room.credit, waiting);
+            room.credit -= admit;
+            room.admittedUpTo += admit;
+        }
+    }
+
+    /**
+     * Pick up rooms opened, changed or closed on other nodes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${booking.waiting-room.sync-ms:5000}", initialDelayString = "${booking.waiting-room.sync-ms:5000}")
+    public void sync() {
+        Map<String, Integer> rates = new HashMap<>();
+        try {
+            for (Object[] row : eventRepository.findWaitingRoomRates()) {
+                rates.put((String) row[0], (Integer) row[1]);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not sync waiting rooms, keeping the current ones", e);
+            return;
+        }
+        rooms.keySet().retainAll(rates.keySet());
+        rates.forEach((eventId, rate) -> rooms.computeIfAbsent(eventId, Room::new).admitPerSecond = rate);
+    }
+
+    private void setRate(String eventId, Integer admitPerSecond) {
+        Integer updated = transactionTemplate.execute(status -> eventRepository.updateWaitingRoomRate(eventId, admitPerSecond));
+        if (updated == null || updated == 0) {
+            throw new AppException(ErrorCode.EVENT_NOT_FOUND);
+        }
+    }
+
+    private WaitingRoomResponse status(Room room, String username, Place place) {
+        long admittedUpTo = room.admittedUpTo;
+        WaitingRoomResponse.WaitingRoomResponseBuilder response = WaitingRoomResponse.builder()
+                .eventId(room.eventId)
+                .queueToken(sign(QUEUE_TOKEN, room.eventId, username, String.valueOf(place.number)));
+
+        if (place.number > admittedUpTo) {
+            long ahead = place.number - admittedUpTo - 1;
+            return response
+                    .position(ahead)
+                    .estimatedWaitSeconds((ahead + room.admitPerSecond) / Math.max(1, room.admitPerSecond))
+                    .admitted(false)
+                    .build();
+        }
+
+        // The admission window starts at the first poll after the user's turn came
+        long now = Instant.now().getEpochSecond();
+        place.admissionExpiresAt.compareAndSet(0, now + admissionTtlSeconds);
+        long expiresAt = place.admissionExpiresAt.get();
+        if (expiresAt < now) {
+            // Missed the window; joining again goes to the back of the queue
+            room.places.remove(username, place);
+            throw new AppException(ErrorCode.ADMISSION_REQUIRED);
+        }
+        return response
+                .position(0L)
+                .estimatedWaitSeconds(0L)
+                .admitted(true)
+                .admissionToken(sign(ADMISSION_TOKEN, room.eventId, username, String.valueOf(expiresAt)))
+                .admissionExpiresAt(LocalDateTime.ofInstant(Instant.ofEpochSecond(expiresAt), ZoneId.systemDefault()))
+                .build();
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new AppException(ErrorCode.UNAUTHENTICATED);
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * {@code base64url(type \n claims...) . base64url(hmac)}
+     */
+    private String sign(String type, String... claims) {
+        String payload = type + "\n" + String.join("\n", claims);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return BASE64.encodeToString(payloadBytes) + "." + BASE64.encodeToString(hmac(payloadBytes));
+    }
+
+    /**
+     * @return type followed by the claims, null if the token is malformed, forged or of another type
+     */
+    private String[] verify(String token, String type) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        try {
+            byte[] payload = BASE64_DECODER.decode(token.substring(0, dot));
+            byte[] signature = BASE64_DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(hmac(payload), signature)) {
+                return null;
+            }
+            String[] claims = new String(payload, StandardCharsets.UTF_8).split("\n", -1);
+            if (claims.length != 4 || !claims[0].equals(type)) {
+                return null;
+            }
+            Long.parseLong(claims[3]);
+            return claims;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private byte[] hmac(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(signingKey);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign waiting room token", e);
+        }
+    }
+
+    private static final class Room {
+        final String eventId;
+        final AtomicLong lastNumber = new AtomicLong();
+        final Map<String, Place> places = new ConcurrentHashMap<>();
+        volatile int admitPerSecond;
+        // Everyone up to this number may enter; written by the admit job only
+        volatile long admittedUpTo;
+        double credit;
+
+        Room(String eventId) {
+            this.eventId = eventId;
+        }
+    }
+
+    private static final class Place {
+        final long number;
+        final AtomicLong admissionExpiresAt = new AtomicLong();
+
+        Place(long number) {
+            this.number = number;
+        }
+    }
+}
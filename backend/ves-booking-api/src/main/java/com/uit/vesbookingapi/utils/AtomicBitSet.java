@@ -0,0 +1,80 @@
+package com.uit.vesbookingapi.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size bit set whose bits are flipped with compare-and-set, so concurrent
+ * callers can claim individual bits without taking a lock.
+ */
+public class AtomicBitSet {
+    private final AtomicLongArray words;
+    private final int size;
+
+    public AtomicBitSet(int size) {
+        this.size = size;
+        this.words = new AtomicLongArray(Math.max(1, (size + 63) >>> 6));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean get(int index) {
+        checkIndex(index);
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    /**
+     * Set the bit if it is currently clear
+     *
+     * @return true if this call flipped the bit, false if it was already set
+     */
+    public boolean trySet(int index) {
+        checkIndex(index);
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(wordIndex);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(wordIndex, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Clear the bit if it is currently set
+     *
+     * @return true if this call flipped the bit, false if it was already clear
+     */
+    public boolean tryClear(int index) {
+        checkIndex(index);
+        int wordIndex = index >>> 6;
+        long mask = 1L << index;
+        while (true) {
+            long current = words.get(wordIndex);
+            if ((current & mask) == 0) {
+                return false;
+            }
+            if (words.compareAndSet(wordIndex, current, current & ~mask)) {
+                return true;
+            }
+        }
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < words.length(); i++) {
+            count += Long.bitCount(words.get(i));
+        }
+        return count;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Bit index " + index + " out of range [0, " + size + ")");
+        }
+    }
+}
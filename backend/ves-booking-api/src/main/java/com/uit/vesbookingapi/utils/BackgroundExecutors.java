@@ -0,0 +1,25 @@
+package com.uit.vesbookingapi.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors for background work of services, following {@code spring.threads.virtual.enabled}:
+ * a virtual thread per task in virtual-thread mode, otherwise a cached pool of daemon platform
+ * threads so the threads are reused between tasks.
+ */
+public final class BackgroundExecutors {
+
+    private BackgroundExecutors() {
+    }
+
+    /**
+     * @param name prefix of the thread names
+     */
+    public static ExecutorService newExecutor(String name, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        }
+        return Executors.newCachedThreadPool(Thread.ofPlatform().name(name + "-", 0).daemon(true).factory());
+    }
+}
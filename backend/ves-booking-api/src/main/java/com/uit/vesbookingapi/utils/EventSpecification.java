@@ -1,13 +1,11 @@
 package com.uit.vesbookingapi.utils;
 
 import com.uit.vesbookingapi.entity.Event;
-import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
-import jakarta.persistence.criteria.Path;
-import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 
 public class EventSpecification {
 
@@ -64,14 +62,22 @@ public class EventSpecification {
             Predicate nameMatch = cb.like(cb.lower(root.get("name")), searchPattern);
             Predicate descriptionMatch = cb.like(cb.lower(root.get("description")), searchPattern);
 
-            // Search in tags
-            Join<Event, String> tagsJoin = root.join("tags", JoinType.LEFT);
-            Predicate tagMatch = cb.like(cb.lower(tagsJoin), searchPattern);
+            // Search in tags; EXISTS rather than a join so an event matching several tags is counted once
+            Subquery<String> tagQuery = query.subquery(String.class);
+            Root<Event> tagRoot = tagQuery.from(Event.class);
+            Join<Event, String> tagsJoin = tagRoot.join("tags");
+            tagQuery.select(tagRoot.get("id"))
+                    .where(cb.equal(tagRoot, root), cb.like(cb.lower(tagsJoin), searchPattern));
+            Predicate tagMatch = cb.exists(tagQuery);
 
             return cb.or(nameMatch, descriptionMatch, tagMatch);
         };
     }
 
+    public static Specification<Event> hasIdIn(Collection<String> eventIds) {
+        return (root, query, cb) -> eventIds.isEmpty() ? cb.disjunction() : root.get("id").in(eventIds);
+    }
+
     @SafeVarargs
     public static Specification<Event> combine(Specification<Event>... specs) {
         Specification<Event> combined = Specification.where(null);
@@ -0,0 +1,124 @@
+package com.uit.vesbookingapi.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.uit.vesbookingapi.enums.ExportFormat;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes export rows straight to an output stream as they come, CSV or NDJSON, optionally
+ * gzipped. Only a fixed-size buffer is held, so the size of an export is not bounded by the heap.
+ */
+public abstract class ExportWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    final String[] columns;
+
+    ExportWriter(String[] columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * @param columns names of the values of every row, in order
+     */
+    public static ExportWriter open(OutputStream out, ExportFormat format, boolean gzip, String... columns) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : new BufferedOutputStream(out, BUFFER_SIZE);
+        return switch (format) {
+            case CSV -> new Csv(columns, new OutputStreamWriter(target, StandardCharsets.UTF_8));
+            case NDJSON -> new Ndjson(columns, target);
+        };
+    }
+
+    /**
+     * @param values one per column; null, numbers, booleans, or anything written by its toString
+     */
+    public abstract void row(Object[] values) throws IOException;
+
+    static final class Csv extends ExportWriter {
+        private final Writer writer;
+
+        Csv(String[] columns, Writer writer) throws IOException {
+            super(columns);
+            this.writer = writer;
+            // BOM, so spreadsheet apps read the names as UTF-8
+            writer.write('\uFEFF');
+            row(columns);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] instanceof String text) {
+                    writeText(text);
+                } else if (values[i] != null) {
+                    writer.write(values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeText(String text) throws IOException {
+            // Text starting like a formula would be run by spreadsheet apps
+            boolean formula = !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0;
+            boolean quoted = formula || text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                    || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+            if (!quoted) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            if (formula) {
+                writer.write('\'');
+            }
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    static final class Ndjson extends ExportWriter {
+        private final JsonGenerator generator;
+
+        Ndjson(String[] columns, OutputStream out) throws IOException {
+            super(columns);
+            this.generator = JSON_FACTORY.createGenerator(out);
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            generator.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                generator.writeFieldName(columns[i]);
+                switch (values[i]) {
+                    case null -> generator.writeNull();
+                    case Integer value -> generator.writeNumber(value);
+                    case Long value -> generator.writeNumber(value);
+                    case BigDecimal value -> generator.writeNumber(value);
+                    case BigInteger value -> generator.writeNumber(value);
+                    case Boolean value -> generator.writeBoolean(value);
+                    default -> generator.writeString(values[i].toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.uit.vesbookingapi.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck) for expiring items at a deadline.
+ * Level 0 has {@code wheelSize} buckets of {@code tickMillis}; every next level covers the
+ * whole span of the level below per bucket and is created on demand. Scheduling is O(1) and
+ * each tick only looks at one bucket per level; entries of a coarse bucket are cascaded to the
+ * finer levels when the clock reaches it. Cancelled entries are dropped lazily when reached.
+ * <p>
+ * Thread safe; expected to be driven by a single ticker calling {@link #advance(long)}.
+ */
+public class HierarchicalTimingWheel<T> {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    // Start of the current level 0 tick, every bucket before it has been expired
+    private long currentTime;
+    private int size;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize at least 2");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMillis - startMillis % tickMillis;
+        this.levels.add(new Level<>(tickMillis, wheelSize));
+    }
+
+    /**
+     * Schedule an item to expire at {@code deadlineMillis}.
+     * An item whose deadline has already passed is returned by the next {@link #advance(long)}.
+     */
+    public synchronized Timeout<T> schedule(T item, long deadlineMillis) {
+        Timeout<T> timeout = new Timeout<>(item, Math.max(deadlineMillis, currentTime));
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Move the clock forward to {@code nowMillis}.
+     * An item is never handed out before its deadline and at most one tick after it.
+     *
+     * @return the items whose tick has fully passed, in no particular order
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        while (currentTime + tickMillis <= nowMillis) {
+            expireTick(currentTime, expired);
+            currentTime += tickMillis;
+        }
+        return expired;
+    }
+
+    /**
+     * Number of scheduled entries, including cancelled ones not yet reached by the clock
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void expireTick(long time, List<T> expired) {
+        // Cascade coarse buckets starting at this tick first, their entries may land in the level 0 bucket
+        for (int i = levels.size() - 1; i > 0; i--) {
+            Bucket<T> bucket = levels.get(i).bucketFor(time);
+            if (bucket.start == time) {
+                for (Timeout<T> timeout : bucket.takeAll()) {
+                    if (timeout.cancelled) {
+                        size--;
+                    } else {
+                        place(timeout);
+                    }
+                }
+            }
+        }
+
+        Bucket<T> bucket = levels.get(0).bucketFor(time);
+        if (bucket.start == time) {
+            for (Timeout<T> timeout : bucket.takeAll()) {
+                size--;
+                if (!timeout.cancelled) {
+                    timeout.expired = true;
+                    expired.add(timeout.item);
+                }
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long deadline = Math.max(timeout.deadline, currentTime);
+        long span = tickMillis * wheelSize;
+        int levelIndex = 0;
+        // Level i holds deadlines less than its span ahead of the clock, so its buckets never wrap
+        while (deadline - currentTime >= span) {
+            levelIndex++;
+            span = Math.multiplyExact(span, wheelSize);
+        }
+        while (levels.size() <= levelIndex) {
+            Level<T> coarsest = levels.get(levels.size() - 1);
+            levels.add(new Level<>(coarsest.tickMillis * wheelSize, wheelSize));
+        }
+
+        Level<T> level = levels.get(levelIndex);
+        Bucket<T> bucket = level.bucketFor(deadline);
+        bucket.start = deadline - deadline % level.tickMillis;
+        bucket.entries.add(timeout);
+    }
+
+    /**
+     * Handle of a scheduled item
+     */
+    public static final class Timeout<T> {
+        private final T item;
+        private final long deadline;
+        private volatile boolean cancelled;
+        private volatile boolean expired;
+
+        private Timeout(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+
+        public T item() {
+            return item;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        /**
+         * @return false if the item has already been handed out by {@link #advance(long)}
+         */
+        public boolean cancel() {
+            cancelled = true;
+            return !expired;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private static final class Level<T> {
+        final long tickMillis;
+        final Bucket<T>[] buckets;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMillis, int wheelSize) {
+            this.tickMillis = tickMillis;
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        Bucket<T> bucketFor(long time) {
+            return buckets[(int) ((time / tickMillis) % buckets.length)];
+        }
+    }
+
+    private static final class Bucket<T> {
+        // Start of the time range this bucket currently holds, -1 when empty
+        long start = -1;
+        List<Timeout<T>> entries = new ArrayList<>();
+
+        List<Timeout<T>> takeAll() {
+            List<Timeout<T>> taken = entries;
+            entries = new ArrayList<>();
+            start = -1;
+            return taken;
+        }
+    }
+}
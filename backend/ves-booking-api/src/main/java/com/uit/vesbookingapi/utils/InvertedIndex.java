@@ -0,0 +1,146 @@
+package com.uit.vesbookingapi.utils;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index for keyword search.
+ * Text is folded to lowercase ASCII (Vietnamese diacritics and đ removed) and split into
+ * words, so "Hà Nội" and "ha noi" index the same terms. Terms live in a sorted dictionary,
+ * which lets every query word also match as a prefix ("conc" finds "concert").
+ * A document matches when all query words match; it is scored by the weight of the
+ * matched terms times their inverse document frequency, with prefix matches counting half.
+ */
+public class InvertedIndex {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final float PREFIX_FACTOR = 0.5f;
+
+    // term -> document -> weight
+    private final NavigableMap<String, Map<String, Float>> postings = new TreeMap<>();
+    // document -> its terms, to remove old postings on update
+    private final Map<String, Set<String>> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Lowercase, diacritic-free words of {@code text}
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = Normalizer.normalize(text.replace('đ', 'd').replace('Đ', 'D'), Normalizer.Form.NFD);
+        folded = COMBINING_MARKS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+        return Arrays.stream(NON_WORD.split(folded))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Add {@code weight} for every word of {@code text} to a term weight map being built for a document
+     */
+    public static void addText(Map<String, Float> termWeights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            termWeights.merge(token, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Index a document, replacing whatever was indexed for it before
+     */
+    public void put(String documentId, Map<String, Float> termWeights) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(documentId);
+            for (Map.Entry<String, Float> entry : termWeights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>()).put(documentId, entry.getValue());
+            }
+            documents.put(documentId, new HashSet<>(termWeights.keySet()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String documentId) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(documentId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Score of every document matching all words of {@code query}; empty if the query has no words
+     */
+    public Map<String, Float> search(String query) {
+        List<String> words = tokenize(query).stream().distinct().toList();
+        if (words.isEmpty()) {
+            return Map.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Float> scores = null;
+            for (String word : words) {
+                Map<String, Float> wordScores = scoreWord(word);
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    scores.keySet().retainAll(wordScores.keySet());
+                    scores.replaceAll((documentId, score) -> score + wordScores.get(documentId));
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+            return scores;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Best score per document over the terms the word is equal to or a prefix of
+     */
+    private Map<String, Float> scoreWord(String word) {
+        Map<String, Float> scores = new HashMap<>();
+        int documentCount = documents.size();
+        for (Map.Entry<String, Map<String, Float>> entry :
+                postings.subMap(word, true, word + Character.MAX_VALUE, false).entrySet()) {
+            Map<String, Float> postingList = entry.getValue();
+            float idf = (float) Math.log(1 + (double) documentCount / postingList.size());
+            float factor = entry.getKey().equals(word) ? idf : idf * PREFIX_FACTOR;
+            postingList.forEach((documentId, weight) -> scores.merge(documentId, weight * factor, Math::max));
+        }
+        return scores;
+    }
+
+    private void removeUnlocked(String documentId) {
+        Set<String> terms = documents.remove(documentId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<String, Float> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(documentId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
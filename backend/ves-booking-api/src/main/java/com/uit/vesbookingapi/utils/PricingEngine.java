@@ -0,0 +1,88 @@
+package com.uit.vesbookingapi.utils;
+
+/**
+ * Discount arithmetic shared by voucher validation, booking and cart previews.
+ * Promotions are flat records of primitives and every evaluation is plain {@code long} math
+ * over them, so pricing an order allocates nothing and never unboxes.
+ * Amounts are in the currency's minor unit; a discount is never negative and never more than
+ * the amount it applies to. Percentages are rounded down.
+ */
+public final class PricingEngine {
+    public static final long NO_LIMIT = Long.MAX_VALUE;
+
+    private PricingEngine() {
+    }
+
+    /**
+     * A compiled promotion
+     *
+     * @param percentage     {@code value} is a percentage of the amount, otherwise a fixed amount
+     * @param maxDiscount    cap on the discount, {@link #NO_LIMIT} for none
+     * @param minOrderAmount order amount below which the promotion does not apply, 0 for none
+     * @param stackable      may be combined with other stackable promotions
+     */
+    public record Promotion(boolean percentage, long value, long maxDiscount, long minOrderAmount, boolean stackable) {
+
+        public static Promotion percentage(long percent, long maxDiscount, long minOrderAmount, boolean stackable) {
+            return new Promotion(true, percent, maxDiscount, minOrderAmount, stackable);
+        }
+
+        public static Promotion fixed(long amount, long minOrderAmount, boolean stackable) {
+            return new Promotion(false, amount, NO_LIMIT, minOrderAmount, stackable);
+        }
+
+        /**
+         * Positive value, and at most 100 for a percentage
+         */
+        public boolean isValid() {
+            return value > 0 && (!percentage || value <= 100);
+        }
+
+        public boolean appliesTo(long orderAmount) {
+            return orderAmount >= minOrderAmount;
+        }
+    }
+
+    /**
+     * Discount of one promotion on an order, 0 if the order is below its minimum
+     */
+    public static long discount(long orderAmount, Promotion promotion) {
+        if (!promotion.appliesTo(orderAmount)) {
+            return 0;
+        }
+        return discountOn(orderAmount, promotion);
+    }
+
+    /**
+     * Best discount from a set of promotions: either all applicable stackable ones, each taken
+     * off what the previous ones left (in array order), or the single best applicable one,
+     * whichever saves more. Minimum order amounts are checked against the full order.
+     *
+     * @param count number of promotions to consider from the start of the array
+     */
+    public static long bestDiscount(long orderAmount, Promotion[] promotions, int count) {
+        long stacked = 0;
+        long best = 0;
+        for (int i = 0; i < count; i++) {
+            Promotion promotion = promotions[i];
+            if (!promotion.appliesTo(orderAmount)) {
+                continue;
+            }
+            best = Math.max(best, discountOn(orderAmount, promotion));
+            if (promotion.stackable()) {
+                stacked += discountOn(orderAmount - stacked, promotion);
+            }
+        }
+        return Math.max(best, stacked);
+    }
+
+    private static long discountOn(long amount, Promotion promotion) {
+        if (amount <= 0) {
+            return 0;
+        }
+        // amount * percent only overflows for amounts beyond 9 * 10^16
+        long discount = promotion.percentage() ? amount * promotion.value() / 100 : promotion.value();
+        discount = Math.min(discount, promotion.maxDiscount());
+        return Math.max(0, Math.min(discount, amount));
+    }
+}
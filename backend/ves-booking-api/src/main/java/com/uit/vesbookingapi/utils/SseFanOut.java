@@ -0,0 +1,253 @@
+package com.uit.vesbookingapi.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out of Server-Sent Events frames to subscribers grouped by topic (e.g. an event id).
+ * A frame is built once and the same instance is queued for every subscriber of its topic.
+ * Each subscriber has a bounded queue drained by a virtual thread, so a slow client never
+ * blocks publishers or other subscribers; when its queue is full it is either disconnected
+ * ({@link WhenFull#DISCONNECT}) or its oldest frame is dropped ({@link WhenFull#DROP_OLDEST}).
+ */
+@Slf4j
+public class SseFanOut {
+    private static final Frame HEARTBEAT = Frame.of(Long.MAX_VALUE, ":\n\n");
+
+    /**
+     * What happens to a subscriber whose queue is full
+     */
+    public enum WhenFull {
+        // Frames are deltas: the client reconnects and catches up
+        DISCONNECT,
+        // Frames are snapshots: only the latest ones matter
+        DROP_OLDEST
+    }
+
+    private final String name;
+    private final Map<String, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final int maxSubscribers;
+    private final int queueSize;
+    private final WhenFull whenFull;
+    private final long timeoutMs;
+
+    public SseFanOut(String name, int maxSubscribers, int queueSize, WhenFull whenFull, long timeoutMs) {
+        this.name = name;
+        this.maxSubscribers = maxSubscribers;
+        this.queueSize = queueSize;
+        this.whenFull = whenFull;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Register a subscriber of a topic. Frames published from now on are queued, and written
+     * once {@link Subscriber#start(long)} is called.
+     *
+     * @return null if {@code maxSubscribers} are already connected
+     */
+    public Subscriber subscribe(String topic) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+
+        Subscriber subscriber = new Subscriber(topic, new SseEmitter(timeoutMs), new ArrayBlockingQueue<>(queueSize));
+        subscriber.emitter.onCompletion(() -> remove(subscriber));
+        subscriber.emitter.onTimeout(() -> remove(subscriber));
+        subscriber.emitter.onError(e -> remove(subscriber));
+        topics.computeIfAbsent(topic, t -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Queue a frame for every subscriber of a topic
+     */
+    public void publish(String topic, Frame frame) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> offer(subscriber, frame));
+        }
+    }
+
+    public boolean hasSubscribers(String topic) {
+        return topics.containsKey(topic);
+    }
+
+    /**
+     * Topics with at least one subscriber
+     */
+    public Set<String> topics() {
+        return topics.keySet();
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Disconnect every subscriber of a topic
+     */
+    public void closeTopic(String topic) {
+        Set<Subscriber> subscribers = topics.get(topic);
+        if (subscribers != null) {
+            subscribers.forEach(this::close);
+        }
+    }
+
+    /**
+     * Comment frame to every idle subscriber, so dead connections are noticed and proxies keep
+     * idle streams open; a subscriber with frames queued is not idle
+     */
+    public void heartbeat() {
+        topics.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.queue.isEmpty()) {
+                offer(subscriber, HEARTBEAT);
+            }
+        }));
+    }
+
+    public void shutdown() {
+        topics.values().forEach(subscribers -> subscribers.forEach(this::close));
+        writers.shutdown();
+    }
+
+    private void offer(Subscriber subscriber, Frame frame) {
+        while (!subscriber.queue.offer(frame)) {
+            if (whenFull == WhenFull.DISCONNECT) {
+                log.debug("Dropping slow {} subscriber of {}", name, subscriber.topic);
+                close(subscriber);
+                return;
+            }
+            subscriber.queue.poll();
+        }
+        scheduleDrain(subscriber);
+    }
+
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.ready && !subscriber.closed && subscriber.draining.compareAndSet(false, true)) {
+            try {
+                writers.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Frame frame;
+            while (!subscriber.closed && (frame = subscriber.queue.poll()) != null) {
+                if (frame == HEARTBEAT || frame.version > subscriber.minVersion) {
+                    subscriber.emitter.send(frame.data);
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks may not fire for a broken pipe
+            remove(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // A frame queued after the loop ended but before the flag was cleared
+        if (!subscriber.queue.isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void close(Subscriber subscriber) {
+        if (remove(subscriber)) {
+            // complete() waits for a send in progress, which may be stuck on the slow client
+            try {
+                writers.execute(subscriber.emitter::complete);
+            } catch (RejectedExecutionException e) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        if (subscriber.closed) {
+            return false;
+        }
+        synchronized (subscriber) {
+            if (subscriber.closed) {
+                return false;
+            }
+            subscriber.closed = true;
+        }
+        subscriber.queue.clear();
+        topics.computeIfPresent(subscriber.topic, (t, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    public final class Subscriber {
+        private final String topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Frame> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean ready;
+        private volatile boolean closed;
+        // Frames up to this version were covered by what was sent before start()
+        private volatile long minVersion = Long.MAX_VALUE;
+
+        private Subscriber(String topic, SseEmitter emitter, BlockingQueue<Frame> queue) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        public SseEmitter emitter() {
+            return emitter;
+        }
+
+        /**
+         * Write a frame right away, ahead of the queue (the initial snapshot or catch-up)
+         */
+        public void send(Frame frame) throws IOException {
+            emitter.send(frame.data);
+        }
+
+        /**
+         * Start writing queued frames, skipping the ones with a version up to {@code minVersion}
+         */
+        public void start(long minVersion) {
+            this.minVersion = minVersion;
+            ready = true;
+            scheduleDrain(this);
+        }
+
+        /**
+         * Unregister a subscriber that could not be started
+         */
+        public void cancel() {
+            remove(this);
+        }
+    }
+
+    /**
+     * A complete SSE frame, written as-is to every subscriber
+     */
+    public record Frame(long version, Set<DataWithMediaType> data) {
+
+        public static Frame of(long version, String frame) {
+            return new Frame(version, Set.of(new DataWithMediaType(frame.getBytes(StandardCharsets.UTF_8),
+                    MediaType.APPLICATION_OCTET_STREAM)));
+        }
+    }
+}
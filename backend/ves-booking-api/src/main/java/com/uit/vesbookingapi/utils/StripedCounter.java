@@ -0,0 +1,111 @@
+package com.uit.vesbookingapi.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Non-negative counter split over several cache-line padded cells (LongAdder style).
+ * Unlike LongAdder it supports a conditional {@link #tryAcquire(long)}: callers first try
+ * their own cell with CAS and only fall back to a locked rebalance when the quantity is
+ * spread over several cells.
+ */
+public class StripedCounter {
+    // 8 longs = 64 bytes, keeps every cell on its own cache line
+    private static final int PADDING = 8;
+
+    private final int stripes;
+    private final AtomicLongArray cells;
+
+    public StripedCounter() {
+        this(Math.max(2, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2));
+    }
+
+    public StripedCounter(int stripes) {
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PADDING);
+    }
+
+    /**
+     * Take {@code amount} from the counter if that much is available
+     *
+     * @return true if the amount was taken
+     */
+    public boolean tryAcquire(long amount) {
+        if (amount <= 0) {
+            return true;
+        }
+
+        int home = homeStripe();
+        for (int i = 0; i < stripes; i++) {
+            int cell = ((home + i) % stripes) * PADDING;
+            long current = cells.get(cell);
+            while (current >= amount) {
+                if (cells.compareAndSet(cell, current, current - amount)) {
+                    return true;
+                }
+                current = cells.get(cell);
+            }
+        }
+
+        return rebalanceAndAcquire(amount);
+    }
+
+    /**
+     * Give {@code amount} back to the counter
+     */
+    public void add(long amount) {
+        if (amount != 0) {
+            cells.addAndGet(homeStripe() * PADDING, amount);
+        }
+    }
+
+    /**
+     * Current total; only a snapshot while other threads are updating
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < stripes; i++) {
+            sum += cells.get(i * PADDING);
+        }
+        return sum;
+    }
+
+    /**
+     * Atomically empty every cell
+     *
+     * @return the amount that was removed
+     */
+    public synchronized long drain() {
+        long drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += cells.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+
+    private synchronized boolean rebalanceAndAcquire(long amount) {
+        long total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += cells.getAndSet(i * PADDING, 0);
+        }
+
+        boolean acquired = total >= amount;
+        if (acquired) {
+            total -= amount;
+        }
+
+        long share = total / stripes;
+        long remainder = total % stripes;
+        for (int i = 0; i < stripes; i++) {
+            long value = share + (i < remainder ? 1 : 0);
+            if (value != 0) {
+                cells.addAndGet(i * PADDING, value);
+            }
+        }
+        return acquired;
+    }
+
+    private int homeStripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) ((id ^ (id >>> 16)) & 0x7fffffff) % stripes;
+    }
+}
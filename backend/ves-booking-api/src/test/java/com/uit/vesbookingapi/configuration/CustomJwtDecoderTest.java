@@ -0,0 +1,78 @@
+package com.uit.vesbookingapi.configuration;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import com.uit.vesbookingapi.service.TokenRevocationService;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.util.Date;
+
+class CustomJwtDecoderTest {
+    private static final String SIGNER_KEY = "1TjXchw5FloESb63Kc+DFhTARvpWL4jUGCwfGWxuG5SIf/1y/LgJxHnMqaF6A/ij";
+
+    private TokenRevocationService tokenRevocationService;
+    private CustomJwtDecoder decoder;
+
+    @BeforeEach
+    void initData() throws Exception {
+        tokenRevocationService = Mockito.mock(TokenRevocationService.class);
+        decoder = new CustomJwtDecoder(tokenRevocationService, SIGNER_KEY, 100);
+    }
+
+    @Test
+    void decode_validToken_success() throws Exception {
+        String token = sign(SIGNER_KEY, System.currentTimeMillis() + 60_000);
+
+        Jwt jwt = decoder.decode(token);
+
+        Assertions.assertThat(jwt.getSubject()).isEqualTo("john");
+        Assertions.assertThat(jwt.getId()).isEqualTo("jti-1");
+        Assertions.assertThat(jwt.getClaimAsString("scope")).isEqualTo("ROLE_USER");
+        Assertions.assertThat(jwt.getExpiresAt()).isNotNull();
+    }
+
+    @Test
+    void decode_revokedAfterCaching_fail() throws Exception {
+        String token = sign(SIGNER_KEY, System.currentTimeMillis() + 60_000);
+        decoder.decode(token);
+
+        Mockito.when(tokenRevocationService.isRevoked("jti-1")).thenReturn(true);
+
+        Assertions.assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void decode_expiredToken_fail() throws Exception {
+        String token = sign(SIGNER_KEY, System.currentTimeMillis() - 1_000);
+
+        Assertions.assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+    }
+
+    @Test
+    void decode_wrongSignature_fail() throws Exception {
+        String token = sign(SIGNER_KEY.replace('1', '2'), System.currentTimeMillis() + 60_000);
+
+        Assertions.assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtException.class);
+    }
+
+    private String sign(String key, long expiresAtMillis) throws Exception {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("john")
+                .issueTime(new Date(expiresAtMillis - 3_600_000))
+                .expirationTime(new Date(expiresAtMillis))
+                .jwtID("jti-1")
+                .claim("scope", "ROLE_USER")
+                .build();
+        SignedJWT signedJWT = new SignedJWT(new JWSHeader(JWSAlgorithm.HS512), claims);
+        signedJWT.sign(new MACSigner(key.getBytes()));
+        return signedJWT.serialize();
+    }
+}
@@ -0,0 +1,177 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.AdminOrderResponse;
+import com.uit.vesbookingapi.dto.response.CursorPageResponse;
+import com.uit.vesbookingapi.enums.ExportFormat;
+import com.uit.vesbookingapi.exception.AppException;
+import org.assertj.core.api.Assertions;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.uit.vesbookingapi.service.AdminOrderServiceTest$StatementCounter")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AdminOrderServiceTest {
+    private static final int ORDERS = 30;
+
+    @Autowired
+    private AdminOrderService adminOrderService;
+
+    @Autowired
+    private AdminExportService adminExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void insertOrders() {
+        jdbcTemplate.update("INSERT INTO \"user\" (id, username, email, phone, first_name, last_name) " +
+                "VALUES ('ao-user', 'ao-buyer', 'ao@ves.vn', '0900000003', 'Lan', 'Nguyen')");
+        jdbcTemplate.update("INSERT INTO category (id, name, slug) VALUES ('ao-cat', 'Orders Music', 'ao-music')");
+        jdbcTemplate.update("INSERT INTO city (id, name, slug) VALUES ('ao-city', 'Orders City', 'ao-hcm')");
+        jdbcTemplate.update("INSERT INTO venue (id, name, city_id) VALUES ('ao-venue', 'Hall', 'ao-city')");
+        jdbcTemplate.update("INSERT INTO seat (id, venue_id, section_name, row_name, seat_number) VALUES ('ao-seat', 'ao-venue', 'A', '1', 'A1')");
+        jdbcTemplate.update("INSERT INTO event (id, name, slug, start_date, created_at, category_id, city_id, venue_id) " +
+                "VALUES ('ao-event', 'Concert', 'ao-concert', NOW(), NOW(), 'ao-cat', 'ao-city', 'ao-venue')");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('ao-standing', 'ao-event', 'Standing', 100000, 100, false, 0)");
+        jdbcTemplate.update("INSERT INTO voucher (id, code, title, discount_type, discount_value, start_date, end_date, used_count, version) " +
+                "VALUES ('ao-voucher', 'AO10', 'Ten off', 'FIXED_AMOUNT', 10000, NOW(), NOW(), 0, 0)");
+        for (int i = 0; i < ORDERS; i++) {
+            String orderId = "ao-order-" + i;
+            jdbcTemplate.update("INSERT INTO orders (id, user_id, event_id, ticket_type_id, quantity, subtotal, total, status, " +
+                    "voucher_id, created_at) VALUES (?, 'ao-user', 'ao-event', 'ao-standing', 2, 200000, 190000, 'COMPLETED', " +
+                    "'ao-voucher', DATEADD('MINUTE', ?, NOW()))", orderId, i);
+            for (int t = 0; t < 2; t++) {
+                jdbcTemplate.update("INSERT INTO ticket (id, order_id, user_id, event_id, ticket_type_id, seat_id, qr_code, status) " +
+                        "VALUES (?, ?, 'ao-user', 'ao-event', 'ao-standing', ?, ?, 'ACTIVE')",
+                        orderId + "-" + t, orderId, i == ORDERS - 1 && t == 0 ? "ao-seat" : null, "QR-" + orderId + "-" + t);
+            }
+        }
+    }
+
+    @BeforeEach
+    void signInAsAdmin() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))));
+    }
+
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getAllOrders_queryCountDoesNotGrowWithPageSize() {
+        for (int size : new int[]{5, 20}) {
+            StatementCounter.reset();
+            Page<AdminOrderResponse> page = adminOrderService.getAllOrders(
+                    null, "ao-event", null, PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+            Assertions.assertThat(page.getContent()).hasSize(size);
+            Assertions.assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+            // Order rows, count, ticket summaries
+            Assertions.assertThat(StatementCounter.count()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void getAllOrders_projectionMapsRelatedRows() {
+        AdminOrderResponse order = adminOrderService.getAllOrders(
+                null, "ao-event", null, PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent().getFirst();
+
+        Assertions.assertThat(order.getId()).isEqualTo("ao-order-" + (ORDERS - 1));
+        Assertions.assertThat(order.getUser().getFullName()).isEqualTo("Lan Nguyen");
+        Assertions.assertThat(order.getEvent().getSlug()).isEqualTo("ao-concert");
+        Assertions.assertThat(order.getTicketType().getName()).isEqualTo("Standing");
+        Assertions.assertThat(order.getVoucherCode()).isEqualTo("AO10");
+        Assertions.assertThat(order.getTickets())
+                .extracting(AdminOrderResponse.TicketSummary::getSeatNumber)
+                .containsExactlyInAnyOrder("A1", null);
+    }
+
+    @Test
+    void scrollOrders_walksEveryOrderOnceNewestFirst() {
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        CursorPageResponse<AdminOrderResponse> page;
+        do {
+            page = adminOrderService.scrollOrders(null, "ao-event", null, cursor, 7, cursor == null);
+            page.getContent().forEach(order -> seen.add(order.getId()));
+            cursor = page.getNextCursor();
+        } while (page.isHasNext());
+
+        List<String> expected = new ArrayList<>();
+        for (int i = ORDERS - 1; i >= 0; i--) {
+            expected.add("ao-order-" + i);
+        }
+        Assertions.assertThat(seen).isEqualTo(expected);
+        Assertions.assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void scrollOrders_totalOnlyWhenAsked() {
+        CursorPageResponse<AdminOrderResponse> page = adminOrderService.scrollOrders(null, "ao-event", null, null, 5, true);
+        Assertions.assertThat(page.getApproximateTotal()).isEqualTo(ORDERS);
+        Assertions.assertThat(page.getTotalCapped()).isFalse();
+
+        page = adminOrderService.scrollOrders(null, "ao-event", null, null, 5, false);
+        Assertions.assertThat(page.getApproximateTotal()).isNull();
+
+        Assertions.assertThatThrownBy(() -> adminOrderService.scrollOrders(null, null, null, "not-a-cursor", 5, false))
+                .isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void exportOrders_writesEveryOrderOldestFirst() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = adminExportService.exportOrders("ao-event", ExportFormat.CSV, false, () -> out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        Assertions.assertThat(rows).isEqualTo(ORDERS);
+        Assertions.assertThat(lines).hasSize(ORDERS + 1);
+        Assertions.assertThat(lines.get(1)).startsWith("ao-order-0,").contains(",Lan,Nguyen,Standing,2,200000,").endsWith(",AO10");
+    }
+
+    /**
+     * Counts the SQL statements Hibernate prepares on the current thread
+     */
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+        static void reset() {
+            COUNT.get()[0] = 0;
+        }
+
+        static int count() {
+            return COUNT.get()[0];
+        }
+
+        @Override
+        public String inspect(String sql) {
+            COUNT.get()[0]++;
+            return sql;
+        }
+    }
+}
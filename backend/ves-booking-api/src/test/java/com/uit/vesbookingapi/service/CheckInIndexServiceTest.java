@@ -0,0 +1,133 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.enums.CheckInResult;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = {
+        "booking.check-in.flush-ms=3600000", "booking.check-in.sync-ms=3600000"})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CheckInIndexServiceTest {
+    @Autowired
+    private CheckInIndexService checkInIndexService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void loadEvent() {
+        jdbcTemplate.update("INSERT INTO \"user\" (id, username, email, phone) VALUES ('ci-user', 'ci-guest', 'ci@ves.vn', '0900000001')");
+        jdbcTemplate.update("INSERT INTO category (id, name, slug) VALUES ('ci-cat', 'Check-in Music', 'ci-music')");
+        jdbcTemplate.update("INSERT INTO city (id, name, slug) VALUES ('ci-city', 'Check-in City', 'ci-hcm')");
+        jdbcTemplate.update("INSERT INTO venue (id, name, city_id) VALUES ('ci-venue', 'Hall', 'ci-city')");
+        jdbcTemplate.update("INSERT INTO event (id, name, slug, start_date, created_at, category_id, city_id, venue_id) " +
+                "VALUES ('ci-event', 'Concert', 'ci-concert', NOW(), NOW(), 'ci-cat', 'ci-city', 'ci-venue')");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('ci-standing', 'ci-event', 'Standing', 100000, 100, false, 0)");
+        insertOrder("ci-paid", "COMPLETED");
+        insertOrder("ci-pending", "PENDING");
+        insertTicket("ci-active-1", "ci-paid", "ACTIVE");
+        insertTicket("ci-active-2", "ci-paid", "ACTIVE");
+        insertTicket("ci-active-3", "ci-paid", "ACTIVE");
+        insertTicket("ci-used", "ci-paid", "USED");
+        insertTicket("ci-unpaid", "ci-pending", "ACTIVE");
+
+        checkInIndexService.load("ci-event");
+    }
+
+    @Test
+    void sameTicketScannedConcurrently_admittedOnceAndWrittenOnFlush() throws Exception {
+        List<Future<CheckInIndexService.Claim>> claims = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                claims.add(executor.submit(() -> {
+                    start.await();
+                    return checkInIndexService.claim("QR-ci-active-1");
+                }));
+            }
+            start.countDown();
+        }
+
+        int checkedIn = 0;
+        for (Future<CheckInIndexService.Claim> claim : claims) {
+            if (claim.get().result() == CheckInResult.CHECKED_IN) {
+                checkedIn++;
+            } else {
+                Assertions.assertThat(claim.get().result()).isEqualTo(CheckInResult.ALREADY_USED);
+            }
+        }
+        Assertions.assertThat(checkedIn).isEqualTo(1);
+
+        checkInIndexService.persistLater("ci-active-1", LocalDateTime.now());
+        Assertions.assertThat(status("ci-active-1")).isEqualTo("ACTIVE");
+        checkInIndexService.flush();
+        Assertions.assertThat(status("ci-active-1")).isEqualTo("USED");
+        Assertions.assertThat(checkInIndexService.getStats("ci-event").getCheckedIn()).isEqualTo(2);
+    }
+
+    @Test
+    void ticketsTheIndexDoesNotDecide_leftToTheDatabase() {
+        Assertions.assertThat(checkInIndexService.claim("QR-ci-used").result()).isEqualTo(CheckInResult.ALREADY_USED);
+        Assertions.assertThat(checkInIndexService.claim("QR-ci-unpaid")).isNull();
+        Assertions.assertThat(checkInIndexService.claim("QR-unknown")).isNull();
+    }
+
+    @Test
+    void release_checkedInTicketIsKept() {
+        Assertions.assertThat(checkInIndexService.claim("QR-ci-active-2").result()).isEqualTo(CheckInResult.CHECKED_IN);
+        Assertions.assertThat(checkInIndexService.release("QR-ci-active-2")).isFalse();
+
+        Assertions.assertThat(checkInIndexService.release("QR-ci-active-3")).isTrue();
+        Assertions.assertThat(checkInIndexService.claim("QR-ci-active-3")).isNull();
+    }
+
+    @Test
+    void sync_appliesCancellationsAndCheckInsOfOtherNodes() {
+        jdbcTemplate.update("INSERT INTO event (id, name, slug, start_date, created_at, category_id, city_id, venue_id) " +
+                "VALUES ('ci-event-2', 'Matinee', 'ci-matinee', NOW(), NOW(), 'ci-cat', 'ci-city', 'ci-venue')");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('ci-standing-2', 'ci-event-2', 'Standing', 100000, 100, false, 0)");
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, event_id, ticket_type_id, quantity, subtotal, total, status, created_at) " +
+                "VALUES ('ci-paid-2', 'ci-user', 'ci-event-2', 'ci-standing-2', 2, 200000, 200000, 'COMPLETED', NOW())");
+        for (String id : List.of("ci-refunded", "ci-elsewhere")) {
+            jdbcTemplate.update("INSERT INTO ticket (id, order_id, user_id, event_id, ticket_type_id, qr_code, status) " +
+                    "VALUES (?, 'ci-paid-2', 'ci-user', 'ci-event-2', 'ci-standing-2', ?, 'ACTIVE')", id, "QR-" + id);
+        }
+        checkInIndexService.load("ci-event-2");
+
+        // Made on another node
+        jdbcTemplate.update("UPDATE ticket SET status = 'CANCELLED', cancelled_at = NOW() WHERE id = 'ci-refunded'");
+        jdbcTemplate.update("UPDATE ticket SET status = 'USED', checked_in_at = NOW() WHERE id = 'ci-elsewhere'");
+        checkInIndexService.sync();
+
+        Assertions.assertThat(checkInIndexService.claim("QR-ci-refunded")).isNull();
+        Assertions.assertThat(checkInIndexService.claim("QR-ci-elsewhere").result()).isEqualTo(CheckInResult.ALREADY_USED);
+    }
+
+    private void insertOrder(String id, String status) {
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, event_id, ticket_type_id, quantity, subtotal, total, status, created_at) " +
+                "VALUES (?, 'ci-user', 'ci-event', 'ci-standing', 1, 100000, 100000, ?, NOW())", id, status);
+    }
+
+    private void insertTicket(String id, String orderId, String status) {
+        jdbcTemplate.update("INSERT INTO ticket (id, order_id, user_id, event_id, ticket_type_id, qr_code, status) " +
+                "VALUES (?, ?, 'ci-user', 'ci-event', 'ci-standing', ?, ?)", id, orderId, "QR-" + id, status);
+    }
+
+    private String status(String ticketId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM ticket WHERE id = ?", String.class, ticketId);
+    }
+}
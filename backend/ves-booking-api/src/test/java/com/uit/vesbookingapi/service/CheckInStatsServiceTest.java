@@ -0,0 +1,77 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.CheckInStatsResponse;
+import com.uit.vesbookingapi.dto.response.TicketTypeCheckInResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = "booking.check-in.flush-ms=3600000")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CheckInStatsServiceTest {
+    @Autowired
+    private CheckInStatsService checkInStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void insertEvent() {
+        jdbcTemplate.update("INSERT INTO \"user\" (id, username, email, phone) VALUES ('cs-user', 'cs-guest', 'cs@ves.vn', '0900000002')");
+        jdbcTemplate.update("INSERT INTO category (id, name, slug) VALUES ('cs-cat', 'Stats Music', 'cs-music')");
+        jdbcTemplate.update("INSERT INTO city (id, name, slug) VALUES ('cs-city', 'Stats City', 'cs-hcm')");
+        jdbcTemplate.update("INSERT INTO venue (id, name, city_id) VALUES ('cs-venue', 'Hall', 'cs-city')");
+        jdbcTemplate.update("INSERT INTO event (id, name, slug, start_date, created_at, category_id, city_id, venue_id) " +
+                "VALUES ('cs-event', 'Concert', 'cs-concert', NOW(), NOW(), 'cs-cat', 'cs-city', 'cs-venue')");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('cs-standing', 'cs-event', 'Standing', 100000, 100, false, 0)");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('cs-vip', 'cs-event', 'VIP', 500000, 100, false, 0)");
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, event_id, ticket_type_id, quantity, subtotal, total, status, created_at) " +
+                "VALUES ('cs-paid', 'cs-user', 'cs-event', 'cs-standing', 1, 100000, 100000, 'COMPLETED', NOW())");
+        jdbcTemplate.update("INSERT INTO orders (id, user_id, event_id, ticket_type_id, quantity, subtotal, total, status, created_at) " +
+                "VALUES ('cs-pending', 'cs-user', 'cs-event', 'cs-standing', 1, 100000, 100000, 'PENDING', NOW())");
+        insertTicket("cs-standing-1", "cs-paid", "cs-standing", "ACTIVE");
+        insertTicket("cs-standing-2", "cs-paid", "cs-standing", "ACTIVE");
+        insertTicket("cs-vip-1", "cs-paid", "cs-vip", "ACTIVE");
+        insertTicket("cs-cancelled", "cs-paid", "cs-vip", "CANCELLED");
+        insertTicket("cs-unpaid", "cs-pending", "cs-standing", "ACTIVE");
+        jdbcTemplate.update("INSERT INTO ticket (id, order_id, user_id, event_id, ticket_type_id, qr_code, status, checked_in_at) " +
+                "VALUES ('cs-used', 'cs-paid', 'cs-user', 'cs-event', 'cs-vip', 'QR-cs-used', 'USED', NOW())");
+    }
+
+    @Test
+    void checkIns_countedPerTicketTypeAndMinute() {
+        CheckInStatsResponse stats = checkInStatsService.getStats("cs-event");
+        Assertions.assertThat(stats.getTotal()).isEqualTo(4);
+        Assertions.assertThat(stats.getCheckedIn()).isEqualTo(1);
+        Assertions.assertThat(stats.getRemaining()).isEqualTo(3);
+
+        LocalDateTime now = LocalDateTime.now();
+        checkInStatsService.recordCheckInAfterCommit("cs-event", "cs-standing", now);
+        checkInStatsService.recordCheckInAfterCommit("cs-event", "cs-standing", now);
+
+        stats = checkInStatsService.getStats("cs-event");
+        Assertions.assertThat(stats.getCheckedIn()).isEqualTo(3);
+        Assertions.assertThat(stats.getRemaining()).isEqualTo(1);
+        Assertions.assertThat(stats.getTicketTypes())
+                .extracting(TicketTypeCheckInResponse::getName, TicketTypeCheckInResponse::getTotal, TicketTypeCheckInResponse::getCheckedIn)
+                .containsExactly(Assertions.tuple("Standing", 2, 2), Assertions.tuple("VIP", 2, 1));
+        Assertions.assertThat(stats.getEntriesPerMinute().getLast().getMinute()).isEqualTo(now.truncatedTo(ChronoUnit.MINUTES));
+        Assertions.assertThat(stats.getEntriesPerMinute().stream().mapToInt(minute -> minute.getEntries()).sum()).isEqualTo(3);
+    }
+
+    private void insertTicket(String id, String orderId, String ticketTypeId, String status) {
+        jdbcTemplate.update("INSERT INTO ticket (id, order_id, user_id, event_id, ticket_type_id, qr_code, status) " +
+                "VALUES (?, ?, 'cs-user', 'cs-event', ?, ?, ?)", id, orderId, ticketTypeId, "QR-" + id, status);
+    }
+}
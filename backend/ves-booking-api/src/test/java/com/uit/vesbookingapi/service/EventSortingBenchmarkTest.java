@@ -0,0 +1,108 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.EventResponse;
+import com.uit.vesbookingapi.dto.response.PageResponse;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Listing latency per sortBy on 100k events (database path, the in-memory catalog is disabled).
+ * Run with {@code mvn test -Dtest=EventSortingBenchmarkTest -Dbenchmark=true}.
+ */
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = "booking.catalog.max-events=0")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class EventSortingBenchmarkTest {
+    private static final int EVENTS = 100_000;
+    private static final int WARMUP = 50;
+    private static final int RUNS = 200;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private EventCatalogService eventCatalogService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void insertEvents() {
+        jdbcTemplate.update("INSERT INTO category (id, name, slug) VALUES ('cat-1', 'Music', 'music')");
+        jdbcTemplate.update("INSERT INTO city (id, name, slug) VALUES ('city-1', 'Ho Chi Minh', 'hcm')");
+
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        List<Object[]> rows = new ArrayList<>(EVENTS);
+        for (int i = 0; i < EVENTS; i++) {
+            rows.add(new Object[]{
+                    UUID.randomUUID().toString(),
+                    "Event " + i,
+                    "event-" + i,
+                    Timestamp.valueOf(base.plusMinutes(random.nextInt(500_000))),
+                    Timestamp.valueOf(base.minusMinutes(random.nextInt(500_000))),
+                    random.nextInt(2_000) * 1_000,
+                    (long) random.nextInt(10_000)
+            });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO event (id, name, slug, start_date, created_at, min_price, sold_count, " +
+                "category_id, city_id) VALUES (?, ?, ?, ?, ?, ?, ?, 'cat-1', 'city-1')", rows);
+
+        // Above booking.catalog.max-events, so listings go to the database
+        eventCatalogService.rebuild();
+    }
+
+    @Test
+    void priceAndPopularitySorts_asFastAsDateSort() {
+        Map<String, Double> medianMillis = new LinkedHashMap<>();
+        for (String sortBy : List.of("date", "price_low", "price_high", "popularity")) {
+            medianMillis.put(sortBy, medianMillis(sortBy));
+        }
+        System.out.printf("Median listing latency at %d events (ms): %s%n", EVENTS, medianMillis);
+
+        double date = medianMillis.get("date");
+        medianMillis.forEach((sortBy, millis) ->
+                Assertions.assertThat(millis).as(sortBy).isLessThanOrEqualTo(date * 1.5 + 1));
+    }
+
+    private double medianMillis(String sortBy) {
+        // Stands in for the session a web request has open
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+
+        long[] samples = new long[RUNS];
+        for (int i = 0; i < WARMUP + RUNS; i++) {
+            // Spread over the first pages, as real clients do
+            long start = System.nanoTime();
+            int pageNumber = i % 5;
+            PageResponse<EventResponse> page = transactionTemplate.execute(status -> eventService.getEvents(
+                    null, null, null, null, null, null, sortBy, PageRequest.of(pageNumber, 20)));
+            long elapsed = System.nanoTime() - start;
+
+            Assertions.assertThat(page.getContent()).hasSize(20);
+            if (i >= WARMUP) {
+                samples[i - WARMUP] = elapsed;
+            }
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2] / 1_000_000.0;
+    }
+}
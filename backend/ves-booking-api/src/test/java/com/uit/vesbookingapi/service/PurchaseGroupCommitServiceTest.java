@@ -0,0 +1,145 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.request.PurchaseRequest;
+import com.uit.vesbookingapi.dto.response.PurchaseResponse;
+import com.uit.vesbookingapi.enums.PaymentMethod;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+@SpringBootTest
+@TestPropertySource(locations = "/test.properties", properties = "booking.purchase.batch-window-ms=20")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class PurchaseGroupCommitServiceTest {
+    @Autowired
+    private PurchaseGroupCommitService purchaseGroupCommitService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void insertEvent() {
+        jdbcTemplate.update("INSERT INTO \"user\" (id, username, email, phone) VALUES ('gc-user', 'gc-buyer', 'gc@ves.vn', '0900000000')");
+        jdbcTemplate.update("INSERT INTO category (id, name, slug) VALUES ('gc-cat', 'Music', 'gc-music')");
+        jdbcTemplate.update("INSERT INTO city (id, name, slug) VALUES ('gc-city', 'Ho Chi Minh', 'gc-hcm')");
+        jdbcTemplate.update("INSERT INTO venue (id, name, city_id) VALUES ('gc-venue', 'Hall', 'gc-city')");
+        jdbcTemplate.update("INSERT INTO seat (id, venue_id, section_name, row_name, seat_number) VALUES ('gc-seat', 'gc-venue', 'A', '1', 'A1')");
+        jdbcTemplate.update("INSERT INTO event (id, name, slug, start_date, created_at, category_id, city_id, venue_id) " +
+                "VALUES ('gc-event', 'Concert', 'gc-concert', DATEADD('DAY', 30, NOW()), NOW(), 'gc-cat', 'gc-city', 'gc-venue')");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('gc-standing', 'gc-event', 'Standing', 100000, 25, false, 0)");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('gc-seated', 'gc-event', 'Seated', 200000, 10, true, 0)");
+        jdbcTemplate.update("INSERT INTO ticket_type (id, event_id, name, price, available, requires_seat_selection, version) " +
+                "VALUES ('gc-promo', 'gc-event', 'Promo', 100000, 20, false, 0)");
+        jdbcTemplate.update("INSERT INTO voucher (id, code, title, discount_type, discount_value, start_date, end_date, " +
+                "usage_limit, used_count, version) VALUES ('gc-voucher', 'GC3', 'Three uses', 'FIXED_AMOUNT', 10000, " +
+                "DATEADD('DAY', -1, NOW()), DATEADD('DAY', 1, NOW()), 3, 0, 0)");
+    }
+
+    @Test
+    void concurrentPurchases_committedTogether_eachGetsOwnResult() throws Exception {
+        List<Future<PurchaseResponse>> results = purchaseConcurrently(40, () -> request("gc-standing", null));
+
+        int succeeded = 0;
+        for (Future<PurchaseResponse> result : results) {
+            try {
+                Assertions.assertThat(result.get().getOrderId()).isNotBlank();
+                succeeded++;
+            } catch (ExecutionException e) {
+                Assertions.assertThat(e.getCause()).isInstanceOf(AppException.class);
+                Assertions.assertThat(((AppException) e.getCause()).getErrorCode()).isEqualTo(ErrorCode.TICKETS_UNAVAILABLE);
+            }
+        }
+
+        Assertions.assertThat(succeeded).isEqualTo(25);
+        Assertions.assertThat(count("SELECT COUNT(*) FROM orders WHERE ticket_type_id = 'gc-standing'")).isEqualTo(25);
+        Assertions.assertThat(count("SELECT COUNT(*) FROM ticket WHERE ticket_type_id = 'gc-standing'")).isEqualTo(25);
+    }
+
+    @Test
+    void sameSeatInOneBatch_onlyFirstPurchaseGetsIt() throws Exception {
+        List<Future<PurchaseResponse>> results = purchaseConcurrently(5, () -> request("gc-seated", List.of("gc-seat")));
+
+        int succeeded = 0;
+        for (Future<PurchaseResponse> result : results) {
+            try {
+                result.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                Assertions.assertThat(((AppException) e.getCause()).getErrorCode()).isEqualTo(ErrorCode.SEAT_ALREADY_TAKEN);
+            }
+        }
+
+        Assertions.assertThat(succeeded).isEqualTo(1);
+        Assertions.assertThat(count("SELECT COUNT(*) FROM ticket WHERE seat_id = 'gc-seat'")).isEqualTo(1);
+    }
+
+    @Test
+    void voucherRedeemedConcurrently_neverExceedsUsageLimit() throws Exception {
+        List<Future<PurchaseResponse>> results = purchaseConcurrently(10, () -> {
+            PurchaseRequest purchaseRequest = request("gc-promo", null);
+            purchaseRequest.setVoucherCode("GC3");
+            return purchaseRequest;
+        });
+
+        int succeeded = 0;
+        for (Future<PurchaseResponse> result : results) {
+            try {
+                result.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                Assertions.assertThat(((AppException) e.getCause()).getErrorCode()).isEqualTo(ErrorCode.VOUCHER_USAGE_LIMIT_REACHED);
+            }
+        }
+
+        Assertions.assertThat(succeeded).isEqualTo(3);
+        Assertions.assertThat(count("SELECT used_count FROM voucher WHERE id = 'gc-voucher'")).isEqualTo(3);
+        Assertions.assertThat(count("SELECT COUNT(*) FROM orders WHERE voucher_id = 'gc-voucher'")).isEqualTo(3);
+    }
+
+    private List<Future<PurchaseResponse>> purchaseConcurrently(int buyers, Callable<PurchaseRequest> request) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PurchaseResponse>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(buyers)) {
+            for (int i = 0; i < buyers; i++) {
+                PurchaseRequest purchaseRequest = request.call();
+                results.add(executor.submit(() -> {
+                    SecurityContextHolder.getContext().setAuthentication(
+                            new UsernamePasswordAuthenticationToken("gc-buyer", null, List.of()));
+                    start.await();
+                    return purchaseGroupCommitService.purchaseTickets(purchaseRequest);
+                }));
+            }
+            start.countDown();
+        }
+        return results;
+    }
+
+    private PurchaseRequest request(String ticketTypeId, List<String> seatIds) {
+        return PurchaseRequest.builder()
+                .eventId("gc-event")
+                .ticketTypeId(ticketTypeId)
+                .quantity(1)
+                .seatIds(seatIds)
+                .paymentMethod(PaymentMethod.E_WALLET)
+                .build();
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
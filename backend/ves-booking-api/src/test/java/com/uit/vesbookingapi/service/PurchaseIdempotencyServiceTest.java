@@ -0,0 +1,112 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.request.PurchaseRequest;
+import com.uit.vesbookingapi.dto.response.PurchaseResponse;
+import com.uit.vesbookingapi.enums.PaymentMethod;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class PurchaseIdempotencyServiceTest {
+    private PurchaseGroupCommitService purchaseGroupCommitService;
+    private PurchaseIdempotencyService service;
+
+    @BeforeEach
+    void initData() {
+        purchaseGroupCommitService = Mockito.mock(PurchaseGroupCommitService.class);
+        CurrentUserService currentUserService = Mockito.mock(CurrentUserService.class);
+        Mockito.when(currentUserService.getCurrentUserId()).thenReturn("user-1");
+        service = new PurchaseIdempotencyService(purchaseGroupCommitService, currentUserService, 100, 60);
+    }
+
+    @Test
+    void retry_returnsCachedResponse() {
+        Mockito.when(purchaseGroupCommitService.purchaseTickets(Mockito.any()))
+                .thenReturn(PurchaseResponse.builder().orderId("order-1").build());
+
+        PurchaseResponse first = service.purchaseTickets(request(1), "key-1");
+        PurchaseResponse retry = service.purchaseTickets(request(1), "key-1");
+
+        Assertions.assertThat(retry.getOrderId()).isEqualTo(first.getOrderId());
+        Mockito.verify(purchaseGroupCommitService, Mockito.times(1)).purchaseTickets(Mockito.any());
+    }
+
+    @Test
+    void concurrentDuplicate_waitsForFirstAttempt() throws Exception {
+        CountDownLatch purchasing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(purchaseGroupCommitService.purchaseTickets(Mockito.any())).thenAnswer(invocation -> {
+            purchasing.countDown();
+            release.await();
+            return PurchaseResponse.builder().orderId("order-1").build();
+        });
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<PurchaseResponse> first = executor.submit(() -> service.purchaseTickets(request(1), "key-1"));
+            purchasing.await();
+            Future<PurchaseResponse> duplicate = executor.submit(() -> service.purchaseTickets(request(1), "key-1"));
+            Thread.sleep(100);
+            Assertions.assertThat(duplicate.isDone()).isFalse();
+
+            release.countDown();
+            Assertions.assertThat(duplicate.get().getOrderId()).isEqualTo(first.get().getOrderId());
+        }
+        Mockito.verify(purchaseGroupCommitService, Mockito.times(1)).purchaseTickets(Mockito.any());
+    }
+
+    @Test
+    void failedAttempt_canBeRetried() {
+        Mockito.when(purchaseGroupCommitService.purchaseTickets(Mockito.any()))
+                .thenThrow(new AppException(ErrorCode.TICKETS_UNAVAILABLE))
+                .thenReturn(PurchaseResponse.builder().orderId("order-1").build());
+
+        Assertions.assertThatThrownBy(() -> service.purchaseTickets(request(1), "key-1")).isInstanceOf(AppException.class);
+
+        Assertions.assertThat(service.purchaseTickets(request(1), "key-1").getOrderId()).isEqualTo("order-1");
+    }
+
+    @Test
+    void retry_skipsPrecondition() {
+        Mockito.when(purchaseGroupCommitService.purchaseTickets(Mockito.any()))
+                .thenReturn(PurchaseResponse.builder().orderId("order-1").build());
+        Runnable admissionExpired = () -> {
+            throw new AppException(ErrorCode.ADMISSION_REQUIRED);
+        };
+
+        service.purchaseTickets(request(1), "key-1");
+
+        Assertions.assertThat(service.purchaseTickets(request(1), "key-1", admissionExpired).getOrderId()).isEqualTo("order-1");
+        Assertions.assertThatThrownBy(() -> service.purchaseTickets(request(1), "key-2", admissionExpired))
+                .isInstanceOf(AppException.class);
+        Mockito.verify(purchaseGroupCommitService, Mockito.times(1)).purchaseTickets(Mockito.any());
+    }
+
+    @Test
+    void sameKeyDifferentRequest_fail() {
+        Mockito.when(purchaseGroupCommitService.purchaseTickets(Mockito.any()))
+                .thenReturn(PurchaseResponse.builder().orderId("order-1").build());
+        service.purchaseTickets(request(1), "key-1");
+
+        Assertions.assertThatThrownBy(() -> service.purchaseTickets(request(2), "key-1"))
+                .isInstanceOf(AppException.class)
+                .extracting(e -> ((AppException) e).getErrorCode())
+                .isEqualTo(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+    }
+
+    private PurchaseRequest request(int quantity) {
+        return PurchaseRequest.builder()
+                .eventId("event-1")
+                .ticketTypeId("type-1")
+                .quantity(quantity)
+                .paymentMethod(PaymentMethod.E_WALLET)
+                .build();
+    }
+}
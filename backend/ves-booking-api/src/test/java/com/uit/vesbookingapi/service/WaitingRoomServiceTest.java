@@ -0,0 +1,127 @@
+package com.uit.vesbookingapi.service;
+
+import com.uit.vesbookingapi.dto.response.WaitingRoomResponse;
+import com.uit.vesbookingapi.exception.AppException;
+import com.uit.vesbookingapi.exception.ErrorCode;
+import com.uit.vesbookingapi.repository.EventRepository;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.List;
+
+class WaitingRoomServiceTest {
+    private static final String SECRET = "waiting-room-secret-0123456789abcdef";
+    private static final String JWT_KEY = "jwt-signer-key-0123456789abcdefghijkl";
+
+    private EventRepository eventRepository;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void initData() {
+        eventRepository = Mockito.mock(EventRepository.class);
+        Mockito.when(eventRepository.updateWaitingRoomRate(Mockito.anyString(), Mockito.any())).thenReturn(1);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("alice", null, List.of()));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void admissionToken_acceptedForItsEventAndUser() {
+        WaitingRoomService service = service(SECRET, 600);
+        String admissionToken = admit(service).getAdmissionToken();
+
+        service.checkAdmission("event-1", admissionToken);
+        service.open("event-2", 1000);
+        assertRejected(() -> service.checkAdmission("event-2", admissionToken), ErrorCode.ADMISSION_REQUIRED);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("bob", null, List.of()));
+        assertRejected(() -> service.checkAdmission("event-1", admissionToken), ErrorCode.ADMISSION_REQUIRED);
+    }
+
+    @Test
+    void forgedTokens_rejected() {
+        WaitingRoomService service = service(SECRET, 600);
+        String admissionToken = admit(service).getAdmissionToken();
+        String otherKeyToken = admit(service("another-waiting-room-secret-0123456789", 600)).getAdmissionToken();
+
+        // Same signature over a payload that never expires
+        int dot = admissionToken.indexOf('.');
+        String payload = new String(Base64.getUrlDecoder().decode(admissionToken.substring(0, dot)), StandardCharsets.UTF_8);
+        String extended = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(payload.replaceAll("\n\\d+$", "\n9999999999").getBytes(StandardCharsets.UTF_8))
+                + admissionToken.substring(dot);
+
+        assertRejected(() -> service.checkAdmission("event-1", extended), ErrorCode.ADMISSION_REQUIRED);
+        assertRejected(() -> service.checkAdmission("event-1", otherKeyToken), ErrorCode.ADMISSION_REQUIRED);
+        assertRejected(() -> service.checkAdmission("event-1", "not-a-token"), ErrorCode.ADMISSION_REQUIRED);
+    }
+
+    @Test
+    void queueToken_notAcceptedAsAdmission() {
+        WaitingRoomService service = service(SECRET, 600);
+        WaitingRoomResponse admitted = admit(service);
+
+        assertRejected(() -> service.checkAdmission("event-1", admitted.getQueueToken()), ErrorCode.ADMISSION_REQUIRED);
+        assertRejected(() -> service.getStatus("event-1", admitted.getAdmissionToken()), ErrorCode.INVALID_QUEUE_TOKEN);
+    }
+
+    @Test
+    void expiredAdmissionToken_rejected() throws InterruptedException {
+        WaitingRoomService service = service(SECRET, 0);
+        WaitingRoomResponse admitted = admit(service);
+
+        long expiresAt = admitted.getAdmissionExpiresAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+        while (System.currentTimeMillis() / 1000 <= expiresAt) {
+            Thread.sleep(50);
+        }
+        assertRejected(() -> service.checkAdmission("event-1", admitted.getAdmissionToken()), ErrorCode.ADMISSION_REQUIRED);
+    }
+
+    @Test
+    void secret_mustBeDedicated() {
+        Assertions.assertThatThrownBy(() -> service("short", 600)).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThatThrownBy(() -> service(JWT_KEY, 600)).isInstanceOf(IllegalStateException.class);
+        Assertions.assertThatThrownBy(() -> new WaitingRoomService(eventRepository, transactionManager, "", true, JWT_KEY, 600, 200))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void noSecret_signsWithAKeyOfItsOwn() {
+        WaitingRoomService service = service("", 600);
+        String admissionToken = admit(service).getAdmissionToken();
+        String otherProcessToken = admit(service("", 600)).getAdmissionToken();
+
+        service.checkAdmission("event-1", admissionToken);
+        assertRejected(() -> service.checkAdmission("event-1", otherProcessToken), ErrorCode.ADMISSION_REQUIRED);
+    }
+
+    private WaitingRoomService service(String secret, long admissionTtlSeconds) {
+        return new WaitingRoomService(eventRepository, transactionManager, secret, false, JWT_KEY, admissionTtlSeconds, 200);
+    }
+
+    private WaitingRoomResponse admit(WaitingRoomService service) {
+        service.open("event-1", 1000);
+        String queueToken = service.join("event-1").getQueueToken();
+        service.admit();
+        WaitingRoomResponse status = service.getStatus("event-1", queueToken);
+        Assertions.assertThat(status.getAdmitted()).isTrue();
+        return status;
+    }
+
+    private void assertRejected(Runnable call, ErrorCode errorCode) {
+        Assertions.assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(AppException.class, e -> Assertions.assertThat(e.getErrorCode()).isEqualTo(errorCode));
+    }
+}
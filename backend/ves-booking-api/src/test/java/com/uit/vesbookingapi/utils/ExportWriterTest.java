@@ -0,0 +1,45 @@
+package com.uit.vesbookingapi.utils;
+
+import com.uit.vesbookingapi.enums.ExportFormat;
+import com.uit.vesbookingapi.enums.TicketStatus;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.GZIPInputStream;
+
+class ExportWriterTest {
+
+    @Test
+    void csv_quotesSpecialTextAndDefusesFormulas() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter writer = ExportWriter.open(out, ExportFormat.CSV, false, "name", "note", "total", "at")) {
+            writer.row(new Object[]{"Nguyễn Văn A", "say \"hi\", then\nleave", 190000, LocalDateTime.of(2026, 1, 2, 3, 4)});
+            writer.row(new Object[]{"=HYPERLINK(\"x\")", null, -5, null});
+        }
+
+        Assertions.assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo("\uFEFFname,note,total,at\r\n"
+                + "Nguyễn Văn A,\"say \"\"hi\"\", then\nleave\",190000,2026-01-02T03:04\r\n"
+                + "\"'=HYPERLINK(\"\"x\"\")\",,-5,\r\n");
+    }
+
+    @Test
+    void ndjson_gzipped_oneObjectPerLine() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter writer = ExportWriter.open(out, ExportFormat.NDJSON, true, "id", "status", "price", "seat")) {
+            writer.row(new Object[]{"t-1", TicketStatus.USED, 100000, null});
+            writer.row(new Object[]{"t-2", TicketStatus.ACTIVE, 250000, "A12"});
+        }
+
+        String json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Assertions.assertThat(json).isEqualTo("{\"id\":\"t-1\",\"status\":\"USED\",\"price\":100000,\"seat\":null}\n"
+                + "{\"id\":\"t-2\",\"status\":\"ACTIVE\",\"price\":250000,\"seat\":\"A12\"}\n");
+    }
+}
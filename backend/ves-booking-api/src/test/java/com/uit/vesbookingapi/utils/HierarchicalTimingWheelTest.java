@@ -0,0 +1,62 @@
+package com.uit.vesbookingapi.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void advance_deadlineInFirstLevel_expiresAfterItsTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+
+        Assertions.assertThat(wheel.advance(250)).isEmpty();
+        Assertions.assertThat(wheel.advance(300)).containsExactly("a");
+        Assertions.assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void advance_deadlineInHigherLevels_cascadesAndExpiresOnTime() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(10, 4, 0);
+        Random random = new Random(42);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = random.nextInt(20_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        int expiredCount = 0;
+        for (long now = 0; now <= 20_010; now += 7) {
+            for (long deadline : wheel.advance(now)) {
+                Assertions.assertThat(deadline).isLessThan(now);
+                Assertions.assertThat(now - deadline).isLessThanOrEqualTo(10 + 7);
+                expiredCount++;
+            }
+        }
+        Assertions.assertThat(expiredCount).isEqualTo(deadlines.size());
+    }
+
+    @Test
+    void advance_cancelledTimeout_notReturned() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        HierarchicalTimingWheel.Timeout<String> timeout = wheel.schedule("a", 5_000);
+        wheel.schedule("b", 5_000);
+
+        Assertions.assertThat(timeout.cancel()).isTrue();
+        Assertions.assertThat(wheel.advance(10_000)).containsExactly("b");
+        Assertions.assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void schedule_pastDeadline_expiresOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 1_000);
+        wheel.schedule("late", 10);
+
+        Assertions.assertThat(wheel.advance(1_100)).containsExactly("late");
+    }
+}
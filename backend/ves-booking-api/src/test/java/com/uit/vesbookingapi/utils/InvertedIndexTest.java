@@ -0,0 +1,60 @@
+package com.uit.vesbookingapi.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+class InvertedIndexTest {
+
+    @Test
+    void tokenize_vietnameseText_foldsDiacritics() {
+        Assertions.assertThat(InvertedIndex.tokenize("Đêm nhạc Hà Nội - Sơn Tùng M-TP"))
+                .containsExactly("dem", "nhac", "ha", "noi", "son", "tung", "m", "tp");
+    }
+
+    @Test
+    void search_allWordsMustMatch_withOrWithoutDiacritics() {
+        InvertedIndex index = new InvertedIndex();
+        index.put("e1", terms("Đêm nhạc Hà Nội", 1));
+        index.put("e2", terms("Hội chợ Hà Nội", 1));
+        index.put("e3", terms("Đêm nhạc Sài Gòn", 1));
+
+        Assertions.assertThat(index.search("dem nhac ha noi").keySet()).containsExactly("e1");
+        Assertions.assertThat(index.search("Hà Nội").keySet()).containsExactlyInAnyOrder("e1", "e2");
+        Assertions.assertThat(index.search("   ")).isEmpty();
+    }
+
+    @Test
+    void search_prefixMatch_ranksBelowExactMatch() {
+        InvertedIndex index = new InvertedIndex();
+        index.put("exact", terms("rock", 1));
+        index.put("prefix", terms("rockstar", 1));
+
+        Map<String, Float> scores = index.search("rock");
+
+        Assertions.assertThat(scores).containsOnlyKeys("exact", "prefix");
+        Assertions.assertThat(scores.get("exact")).isGreaterThan(scores.get("prefix"));
+    }
+
+    @Test
+    void put_existingDocument_replacesOldTerms() {
+        InvertedIndex index = new InvertedIndex();
+        index.put("e1", terms("jazz night", 1));
+        index.put("e1", terms("rock night", 1));
+
+        Assertions.assertThat(index.search("jazz")).isEmpty();
+        Assertions.assertThat(index.search("rock")).containsOnlyKeys("e1");
+
+        index.remove("e1");
+        Assertions.assertThat(index.search("night")).isEmpty();
+        Assertions.assertThat(index.size()).isZero();
+    }
+
+    private Map<String, Float> terms(String text, float weight) {
+        Map<String, Float> termWeights = new HashMap<>();
+        InvertedIndex.addText(termWeights, text, weight);
+        return termWeights;
+    }
+}
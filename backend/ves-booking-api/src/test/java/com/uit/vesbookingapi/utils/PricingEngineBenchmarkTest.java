@@ -0,0 +1,81 @@
+package com.uit.vesbookingapi.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * Cost of one pricing evaluation, in nanoseconds and allocated bytes.
+ * Run with {@code mvn test -Dtest=PricingEngineBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PricingEngineBenchmarkTest {
+    private static final int ORDERS = 1 << 16;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    // Keeps the JIT from removing the evaluations
+    private static long sink;
+
+    @Test
+    void evaluation_nanosecondsAndAllocationFree() {
+        long[] amounts = new long[ORDERS];
+        Random random = new Random(42);
+        for (int i = 0; i < ORDERS; i++) {
+            amounts[i] = 50_000L + random.nextInt(5_000_000);
+        }
+        PricingEngine.Promotion voucher = PricingEngine.Promotion.percentage(20, 500_000, 200_000, false);
+        PricingEngine.Promotion[] cart = {
+                PricingEngine.Promotion.percentage(10, PricingEngine.NO_LIMIT, 0, true),
+                PricingEngine.Promotion.fixed(50_000, 300_000, true),
+                PricingEngine.Promotion.percentage(5, 100_000, 0, true),
+                voucher
+        };
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            single(amounts, voucher);
+            stacked(amounts, cart);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            single(amounts, voucher);
+        }
+        double singleNanos = (System.nanoTime() - start) / (double) (ROUNDS * ORDERS);
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            stacked(amounts, cart);
+        }
+        double stackedNanos = (System.nanoTime() - start) / (double) (ROUNDS * ORDERS);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        System.out.printf("Pricing: %.2f ns per voucher, %.2f ns per 4-promotion cart, %d bytes allocated over %d evaluations%n",
+                singleNanos, stackedNanos, allocated, 2L * ROUNDS * ORDERS);
+        // Nothing per evaluation; a few bytes of noise from the measurement itself
+        Assertions.assertThat(allocated).isLessThan(ORDERS);
+    }
+
+    private static void single(long[] amounts, PricingEngine.Promotion voucher) {
+        long total = 0;
+        for (long amount : amounts) {
+            total += PricingEngine.discount(amount, voucher);
+        }
+        sink += total;
+    }
+
+    private static void stacked(long[] amounts, PricingEngine.Promotion[] cart) {
+        long total = 0;
+        for (long amount : amounts) {
+            total += PricingEngine.bestDiscount(amount, cart, cart.length);
+        }
+        sink += total;
+    }
+}
@@ -0,0 +1,48 @@
+package com.uit.vesbookingapi.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PricingEngineTest {
+
+    @Test
+    void discount_percentage_roundedDownAndCapped() {
+        PricingEngine.Promotion promotion = PricingEngine.Promotion.percentage(15, 100_000, 0, false);
+
+        Assertions.assertThat(PricingEngine.discount(333_333, promotion)).isEqualTo(49_999);
+        Assertions.assertThat(PricingEngine.discount(2_000_000, promotion)).isEqualTo(100_000);
+    }
+
+    @Test
+    void discount_belowMinOrderOrAboveAmount() {
+        PricingEngine.Promotion promotion = PricingEngine.Promotion.fixed(100_000, 500_000, false);
+
+        Assertions.assertThat(PricingEngine.discount(499_999, promotion)).isZero();
+        Assertions.assertThat(PricingEngine.discount(500_000, promotion)).isEqualTo(100_000);
+        Assertions.assertThat(PricingEngine.discount(50_000, PricingEngine.Promotion.fixed(100_000, 0, false)))
+                .isEqualTo(50_000);
+    }
+
+    @Test
+    void bestDiscount_stackableAppliedOnRemainder_orBestExclusive() {
+        PricingEngine.Promotion[] promotions = {
+                PricingEngine.Promotion.percentage(10, PricingEngine.NO_LIMIT, 0, true),
+                PricingEngine.Promotion.fixed(50_000, 0, true),
+                PricingEngine.Promotion.percentage(20, PricingEngine.NO_LIMIT, 0, false)
+        };
+
+        // 10% then 50,000 off the rest (150,000) loses to 20% alone (200,000)
+        Assertions.assertThat(PricingEngine.bestDiscount(1_000_000, promotions, 3)).isEqualTo(200_000);
+        // 10,000 + 50,000 stacked beats 20,000
+        Assertions.assertThat(PricingEngine.bestDiscount(100_000, promotions, 3)).isEqualTo(60_000);
+        // Stacked discounts never exceed the order
+        Assertions.assertThat(PricingEngine.bestDiscount(40_000, promotions, 2)).isEqualTo(40_000);
+    }
+
+    @Test
+    void isValid_percentageOutOfRange_false() {
+        Assertions.assertThat(PricingEngine.Promotion.percentage(101, PricingEngine.NO_LIMIT, 0, false).isValid()).isFalse();
+        Assertions.assertThat(PricingEngine.Promotion.fixed(0, 0, false).isValid()).isFalse();
+        Assertions.assertThat(PricingEngine.Promotion.percentage(100, PricingEngine.NO_LIMIT, 0, false).isValid()).isTrue();
+    }
+}
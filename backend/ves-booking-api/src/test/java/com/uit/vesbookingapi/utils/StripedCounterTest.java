@@ -0,0 +1,69 @@
+package com.uit.vesbookingapi.utils;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+class StripedCounterTest {
+
+    @Test
+    void tryAcquire_spreadOverStripes_success() {
+        StripedCounter counter = new StripedCounter(4);
+        for (int i = 0; i < 4; i++) {
+            counter.add(1);
+        }
+
+        Assertions.assertThat(counter.tryAcquire(3)).isTrue();
+        Assertions.assertThat(counter.sum()).isEqualTo(1);
+        Assertions.assertThat(counter.tryAcquire(2)).isFalse();
+        Assertions.assertThat(counter.sum()).isEqualTo(1);
+    }
+
+    @Test
+    void tryAcquire_concurrentBuyers_neverOversells() throws Exception {
+        StripedCounter counter = new StripedCounter(8);
+        counter.add(1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int acquired = 0;
+                for (int i = 0; i < 200; i++) {
+                    if (counter.tryAcquire(1)) {
+                        acquired++;
+                    }
+                }
+                return acquired;
+            }));
+        }
+        start.countDown();
+
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assertions.assertThat(total).isEqualTo(1000);
+        Assertions.assertThat(counter.sum()).isZero();
+    }
+
+    @Test
+    void drain_returnsEverything() {
+        StripedCounter counter = new StripedCounter(4);
+        counter.add(7);
+
+        Assertions.assertThat(counter.drain()).isEqualTo(7);
+        Assertions.assertThat(counter.sum()).isZero();
+    }
+}